@@ -1,5 +1,7 @@
 package br.unitins;
 
+import br.unitins.config.DatabaseConfig;
+import br.unitins.repository.AccessPointRepository;
 import br.unitins.service.MenuService;
 import br.unitins.service.WifiScannerService;
 import br.unitins.util.DatabaseConnection;
@@ -17,18 +19,22 @@ public class Main {
             System.out.println("Sistema operacional: " + WifiScannerFactory.getOperatingSystem());
             System.out.println("Suporte Windows: " + WifiScannerFactory.isWindows());
             System.out.println("Suporte Linux: " + WifiScannerFactory.isLinux());
+            if (WifiScannerFactory.getScanner() != null) {
+                System.out.println("Scanner Wi-Fi: " + WifiScannerFactory.getScanner().getName());
+            }
             System.out.println();
             
-            // Inicializar banco de dados
-            DatabaseConnection.initializeDatabase();
+            // Inicializar banco de dados (o modo "segment" grava em arquivos locais)
+            if (AccessPointRepository.requiresDatabase(DatabaseConfig.STORAGE_MODE)) {
+                DatabaseConnection.initializeDatabase();
+            }
             
-            // Limpar duplicatas existentes
-            System.out.println("Limpando registros duplicados...");
+            // Duplicatas são removidas em segundo plano pelo serviço
             WifiScannerService wifiService = new WifiScannerService();
-            wifiService.removeDuplicatesByMinute();
+            wifiService.warmLatestState();
             
             // Iniciar aplicação
-            MenuService menuService = new MenuService();
+            MenuService menuService = new MenuService(wifiService);
             menuService.start();
             
         } catch (Exception e) {
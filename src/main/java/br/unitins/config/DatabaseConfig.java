@@ -1,5 +1,7 @@
 package br.unitins.config;
 
+import java.util.List;
+
 public class DatabaseConfig {
     public static final String DB_URL = "jdbc:mariadb://localhost:3306/hotspot_scanner";
     public static final String DB_USER = "root";
@@ -9,8 +11,117 @@ public class DatabaseConfig {
     // Configurações de pool de conexão
     public static final int MAX_CONNECTIONS = 10;
     public static final int CONNECTION_TIMEOUT = 30000; // 30 segundos
+    public static final int CONNECTION_VALIDATION_IDLE_MS = 1000; // Ociosa há mais que isso: validar no empréstimo
+    
+    // Linhas por INSERT de várias linhas na gravação em lote
+    public static final int INSERT_CHUNK_SIZE = 500;
+    
+    // Armazenamento: "wide" (access_points), "normalized" (bssid/ssid + ap_observations)
+    // ou "segment" (arquivos locais, sem MariaDB). Pode ser sobrescrito com -Dhotspot.storage=<modo>
+    public static final String STORAGE_MODE = System.getProperty("hotspot.storage", "wide");
+    
+    // Modo "segment": diretório, tamanho fixo de cada arquivo e sincronização a cada gravação
+    public static final String SEGMENT_DIR = System.getProperty("hotspot.segments.dir", "segments");
+    public static final int SEGMENT_SIZE_MB = 64;
+    public static final boolean SEGMENT_FORCE_WRITES = true;
+    public static final int SEGMENT_LATEST_LOOKBACK_HOURS = 24; // Janela lida para aquecer o estado atual
+    
+    // Estado atual em memória: BSSID sem ser visto há mais que isso sai das listas
+    public static final int LATEST_STATE_TTL_MINUTES = 60;
+    
+    // Cache de consultas históricas por minuto/hora já encerrados
+    public static final long RESULT_CACHE_MAX_BYTES = 32L * 1024 * 1024;
+    public static final int RESULT_CACHE_SETTLE_SECONDS = 30; // Folga após o fim do intervalo antes de cachear
+    
+    // Linhas por bloco na leitura em fluxo e tamanho de página do Stream de histórico
+    public static final int STREAM_FETCH_SIZE = 1000;
+    
+    // Resumos por hora e por dia atualizados a cada gravação
+    public static final boolean ROLLUPS_ENABLED = true;
+    
+    // Particionamento por dia de access_points e retenção (0 = manter tudo). Uma tabela
+    // já populada só é convertida com -Dhotspot.partition.convert=true, pois o ALTER
+    // reescreve a tabela inteira; tabela vazia é particionada direto
+    public static final boolean PARTITION_BY_DAY = true;
+    public static final boolean PARTITION_CONVERT_EXISTING = Boolean.getBoolean("hotspot.partition.convert");
+    public static final int PARTITION_DAYS_AHEAD = 3;
+    public static final int RETENTION_DAYS = 0;
+    
+    // Remoção incremental de duplicatas (linhas por rodada e intervalo entre rodadas)
+    public static final int DEDUP_CHUNK_ROWS = 10000;
+    public static final int DEDUP_INTERVAL_SECONDS = 300;
+    
+    // Histórico de sinal comprimido em memória por BSSID (janela e tamanho de cada bloco)
+    public static final int SIGNAL_HISTORY_HOURS = 26;
+    public static final int SIGNAL_HISTORY_BLOCK_BYTES = 256;
+    
+    // Análise de congestionamento por canal: AP some da contagem após esse tempo sem ser
+    // visto, e o peso pelo RSSI vai de 0 (CHANNEL_MIN_SIGNAL) a 1 (CHANNEL_MAX_SIGNAL)
+    public static final int CHANNEL_STALE_SECONDS = 180;
+    public static final int CHANNEL_MIN_SIGNAL = -95;
+    public static final int CHANNEL_MAX_SIGNAL = -30;
+    
+    // Diferença entre varreduras: AP dado como sumido após N varreduras sem aparecer, e
+    // variação mínima de sinal (dB) em relação ao último valor reportado
+    public static final int SCAN_DIFF_GONE_AFTER_MISSES = 3;
+    public static final int SCAN_DIFF_SIGNAL_THRESHOLD_DB = 6;
+    
+    // Detecção de AP falso: SSID novo só aprende (sem alertas) nesse período, BSSIDs
+    // confiáveis nunca geram alerta (ex.: -Dhotspot.rogue.whitelist=AA:BB:CC:DD:EE:FF,...)
+    // e os perfis aprendidos são salvos em arquivo para sobreviver a reinícios
+    public static final int ROGUE_LEARNING_MINUTES = 10;
+    public static final String ROGUE_STATE_FILE = "rogue-state.bin";
+    public static final List<String> ROGUE_WHITELIST = List.of(
+            System.getProperty("hotspot.rogue.whitelist", "").split(","));
+    
+    // Detector de anomalias: peso da EWMA, z-score e queda mínima (dB) para queda de sinal,
+    // amostras antes de alertar, limiar e decaimento por varredura da pontuação de
+    // oscilação, ausências até esquecer o BSSID e arquivo do snapshot do estado
+    public static final double ANOMALY_EWMA_ALPHA = 0.1;
+    public static final double ANOMALY_Z_THRESHOLD = 3.0;
+    public static final int ANOMALY_MIN_DROP_DB = 6;
+    public static final int ANOMALY_WARMUP_SAMPLES = 10;
+    public static final double ANOMALY_FLAP_THRESHOLD = 3.0;
+    public static final double ANOMALY_FLAP_DECAY = 0.95;
+    public static final int ANOMALY_FORGET_AFTER_MISSES = 60;
+    public static final String ANOMALY_STATE_FILE = "anomaly-state.bin";
+    
+    // Persistência: "full" (uma linha por AP por minuto) ou "change-only" (linha só quando
+    // sinal/qualidade variam além do limite, canal ou segurança mudam, ou a cada heartbeat).
+    // Pode ser sobrescrito com -Dhotspot.persistence=<modo>
+    public static final String PERSISTENCE_MODE = System.getProperty("hotspot.persistence", "full");
+    public static final int CHANGE_SIGNAL_DELTA_DB = 4;
+    public static final int CHANGE_QUALITY_DELTA = 5;
+    public static final int CHANGE_HEARTBEAT_MINUTES = 30;
+    
+    // Persistência write-behind
+    public static final int WRITE_BEHIND_QUEUE_CAPACITY = 120; // Varreduras aguardando gravação
+    public static final int WRITE_BEHIND_FLUSH_ROWS = 5000; // Linhas por transação
+    public static final int WRITE_BEHIND_FLUSH_MILLIS = 2000; // Espera máxima de um lote na fila
+    public static final String WRITE_BEHIND_POLICY = "spill"; // "block", "drop-oldest" ou "spill"
+    public static final String WRITE_BEHIND_SPILL_DIR = "spill"; // Lotes descarregados em disco
+    public static final int WRITE_BEHIND_MAX_ATTEMPTS = 5; // Tentativas antes do dead-letter (erro permanente)
     
     // Configurações da aplicação
     public static final int SCAN_INTERVAL_SECONDS = 60;
     public static final String WIFI_INTERFACE = "wlan0"; // Interface padrão, pode ser alterada
+    // Interfaces varridas em paralelo (ex.: -Dhotspot.interfaces=wlan0,wlan1 para rádios 2.4 GHz e 5 GHz)
+    public static final List<String> WIFI_INTERFACES = List.of(
+            System.getProperty("hotspot.interfaces", WIFI_INTERFACE).split(","));
+    // Observações mais antigas que isso perdem para uma mais recente na mescla por BSSID
+    public static final int MERGE_STALE_BEACON_MS = 5000;
+    public static final int SCAN_TIMEOUT_SECONDS = 20; // Prazo máximo de um comando de varredura
+    
+    // Scanner Wi-Fi: "auto" (detecta a plataforma), "linux", "windows" ou "synthetic" (teste de carga).
+    // Pode ser sobrescrito com -Dhotspot.scanner=<nome>
+    public static final String WIFI_SCANNER = System.getProperty("hotspot.scanner", "auto");
+    
+    // Backend de escaneamento no Linux: "iw" (lê o cache do kernel) ou "iwlist" (sempre varredura ativa)
+    public static final String LINUX_SCAN_BACKEND = "iw";
+    public static final int IW_ACTIVE_SCAN_INTERVAL_SECONDS = 300; // Cadência da varredura ativa com iw
+    
+    // Scanner sintético (-Dhotspot.scanner=synthetic)
+    public static final int SYNTHETIC_AP_COUNT = Integer.getInteger("hotspot.synthetic.aps", 10000);
+    public static final double SYNTHETIC_CHURN_PERCENT = 0.5; // % da população substituída por varredura
+    public static final long SYNTHETIC_SEED = 42L;
 } 
\ No newline at end of file
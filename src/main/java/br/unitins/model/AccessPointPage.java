@@ -0,0 +1,28 @@
+package br.unitins.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Página de uma consulta paginada por chave (scan_time, id). A próxima página é pedida
+// a partir da última linha desta, então o custo não cresce com o número da página.
+public class AccessPointPage {
+    private final List<AccessPoint> items;
+    private final LocalDateTime lastScanTime;
+    private final long lastKey;
+    private final boolean hasMore;
+
+    public AccessPointPage(List<AccessPoint> items, LocalDateTime lastScanTime, long lastKey, boolean hasMore) {
+        this.items = items;
+        this.lastScanTime = lastScanTime;
+        this.lastKey = lastKey;
+        this.hasMore = hasMore;
+    }
+
+    public List<AccessPoint> getItems() { return items; }
+
+    public LocalDateTime getLastScanTime() { return lastScanTime; }
+
+    public long getLastKey() { return lastKey; }
+
+    public boolean hasMore() { return hasMore; }
+}
@@ -0,0 +1,106 @@
+package br.unitins.model;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Resumo de um BSSID em um intervalo (hora, dia ou faixa arbitrária): sinal mínimo,
+// máximo e médio, qualidade média, número de amostras, canais vistos e primeira/última
+// observação. As médias são guardadas como somas para que resumos possam ser combinados.
+public class AccessPointRollup {
+    private String macAddress;
+    private String ssid;
+    private int minSignal = Integer.MAX_VALUE;
+    private int maxSignal = Integer.MIN_VALUE;
+    private long signalSum;
+    private long qualitySum;
+    private long sampleCount;
+    private final Set<Integer> channels = new TreeSet<>();
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+
+    public AccessPointRollup() {}
+
+    public AccessPointRollup(String macAddress, String ssid, int minSignal, int maxSignal, long signalSum,
+                             long qualitySum, long sampleCount, String channelList,
+                             LocalDateTime firstSeen, LocalDateTime lastSeen) {
+        this.macAddress = macAddress;
+        this.ssid = ssid;
+        this.minSignal = minSignal;
+        this.maxSignal = maxSignal;
+        this.signalSum = signalSum;
+        this.qualitySum = qualitySum;
+        this.sampleCount = sampleCount;
+        this.firstSeen = firstSeen;
+        this.lastSeen = lastSeen;
+        addChannels(channelList);
+    }
+
+    // Combina com o resumo do mesmo BSSID em outro intervalo
+    public void merge(AccessPointRollup other) {
+        if (macAddress == null) {
+            macAddress = other.macAddress;
+        }
+        if (lastSeen == null || (other.lastSeen != null && other.lastSeen.isAfter(lastSeen))) {
+            lastSeen = other.lastSeen;
+            if (other.ssid != null) {
+                ssid = other.ssid;
+            }
+        }
+        if (firstSeen == null || (other.firstSeen != null && other.firstSeen.isBefore(firstSeen))) {
+            firstSeen = other.firstSeen;
+        }
+        minSignal = Math.min(minSignal, other.minSignal);
+        maxSignal = Math.max(maxSignal, other.maxSignal);
+        signalSum += other.signalSum;
+        qualitySum += other.qualitySum;
+        sampleCount += other.sampleCount;
+        channels.addAll(other.channels);
+    }
+
+    // Lista separada por vírgulas, como gravada nas tabelas de resumo
+    public void addChannels(String channelList) {
+        if (channelList == null || channelList.isEmpty()) {
+            return;
+        }
+        for (String channel : channelList.split(",")) {
+            channels.add(Integer.parseInt(channel.trim()));
+        }
+    }
+
+    public String getMacAddress() { return macAddress; }
+    public void setMacAddress(String macAddress) { this.macAddress = macAddress; }
+
+    public String getSsid() { return ssid; }
+    public void setSsid(String ssid) { this.ssid = ssid; }
+
+    public int getMinSignal() { return minSignal; }
+
+    public int getMaxSignal() { return maxSignal; }
+
+    public double getAvgSignal() { return sampleCount == 0 ? 0 : (double) signalSum / sampleCount; }
+
+    public double getAvgQuality() { return sampleCount == 0 ? 0 : (double) qualitySum / sampleCount; }
+
+    public long getSampleCount() { return sampleCount; }
+
+    public Set<Integer> getChannels() { return channels; }
+
+    public LocalDateTime getFirstSeen() { return firstSeen; }
+
+    public LocalDateTime getLastSeen() { return lastSeen; }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s | %-17s | %4d/%4d/%6.1fdBm | %5.1f%% | %6d amostras | canais %s",
+                ssid != null ? ssid : "Hidden",
+                macAddress,
+                minSignal,
+                maxSignal,
+                getAvgSignal(),
+                getAvgQuality(),
+                sampleCount,
+                channels.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+}
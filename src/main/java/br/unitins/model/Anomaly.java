@@ -0,0 +1,52 @@
+package br.unitins.model;
+
+import br.unitins.util.MacAddress;
+import java.time.LocalDateTime;
+
+// Comportamento fora do padrão de um BSSID, com severidade de 0 (limiar) a 1 (extremo)
+public class Anomaly {
+
+    public enum Type {
+        RSSI_DROP,               // Queda de sinal muito abaixo da média móvel
+        FLAPPING,                // AP some e volta repetidamente
+        BEACON_INTERVAL_CHANGED  // Intervalo de beacon diferente do anunciado antes
+    }
+
+    private final Type type;
+    private final long mac;
+    private final String ssid;
+    private final long epochSecond;
+    private final double severity;
+    private final String details;
+
+    public Anomaly(Type type, long mac, String ssid, long epochSecond, double severity, String details) {
+        this.type = type;
+        this.mac = mac;
+        this.ssid = ssid;
+        this.epochSecond = epochSecond;
+        this.severity = severity;
+        this.details = details;
+    }
+
+    public Type getType() { return type; }
+
+    public long getMac() { return mac; }
+
+    public String getMacAddress() { return MacAddress.format(mac); }
+
+    public String getSsid() { return ssid; }
+
+    public long getEpochSecond() { return epochSecond; }
+
+    public LocalDateTime getTime() { return ScanBatch.toLocalDateTime(epochSecond); }
+
+    public double getSeverity() { return severity; }
+
+    public String getDetails() { return details; }
+
+    @Override
+    public String toString() {
+        return String.format("%-23s | %-20s | %-17s | severidade %.2f | %s",
+                type, ssid != null ? ssid : "Hidden", getMacAddress(), severity, details);
+    }
+}
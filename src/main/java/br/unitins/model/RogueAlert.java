@@ -0,0 +1,52 @@
+package br.unitins.model;
+
+import br.unitins.util.MacAddress;
+import java.time.LocalDateTime;
+
+// Alerta de possível AP falso (evil twin) para um SSID conhecido
+public class RogueAlert {
+
+    public enum Type {
+        UNEXPECTED_BSSID,   // BSSID novo para o SSID, de um fabricante já visto
+        NEW_VENDOR,         // BSSID novo com prefixo de fabricante (OUI) nunca visto no SSID
+        SECURITY_DOWNGRADE  // Segurança mais fraca que a já observada no SSID
+    }
+
+    private final Type type;
+    private final String ssid;
+    private final long mac;
+    private final WifiSecurity security;
+    private final long epochSecond;
+    private final String details;
+
+    public RogueAlert(Type type, String ssid, long mac, WifiSecurity security, long epochSecond, String details) {
+        this.type = type;
+        this.ssid = ssid;
+        this.mac = mac;
+        this.security = security;
+        this.epochSecond = epochSecond;
+        this.details = details;
+    }
+
+    public Type getType() { return type; }
+
+    public String getSsid() { return ssid; }
+
+    public long getMac() { return mac; }
+
+    public String getMacAddress() { return MacAddress.format(mac); }
+
+    public WifiSecurity getSecurity() { return security; }
+
+    public long getEpochSecond() { return epochSecond; }
+
+    public LocalDateTime getDetectedAt() { return ScanBatch.toLocalDateTime(epochSecond); }
+
+    public String getDetails() { return details; }
+
+    @Override
+    public String toString() {
+        return String.format("%-18s | %-20s | %-17s | %-7s | %s",
+                type, ssid, getMacAddress(), security.getLabel(), details);
+    }
+}
@@ -0,0 +1,262 @@
+package br.unitins.model;
+
+import br.unitins.util.MacAddress;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Lote de observações em colunas primitivas (struct-of-arrays), usado no caminho
+// scanner -> repositório -> cache. As colunas crescem sob demanda e são reaproveitadas
+// após clear(), de modo que varreduras sucessivas não alocam por AP.
+public class ScanBatch {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // Linha-marcador gravada no modo "change-only" quando um AP some: encerra a
+    // reconstrução da última linha dele. O sinal é o menor valor da coluna, que add()
+    // nunca grava (leituras reais são limitadas a partir de TOMBSTONE_SIGNAL + 1)
+    public static final int TOMBSTONE_SIGNAL = Short.MIN_VALUE;
+
+    private int size;
+    private long[] macs;
+    private String[] ssids;
+    private long[] scanEpochSeconds;
+    private short[] signalLevels;
+    private byte[] qualityLinks;
+    private short[] channels;
+    private int[] frequenciesMhz;
+    private int[] lastBeacons;
+    private short[] beaconIntervals;
+    private byte[] securities;
+
+    public ScanBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ScanBatch(int capacity) {
+        int initial = Math.max(1, capacity);
+        macs = new long[initial];
+        ssids = new String[initial];
+        scanEpochSeconds = new long[initial];
+        signalLevels = new short[initial];
+        qualityLinks = new byte[initial];
+        channels = new short[initial];
+        frequenciesMhz = new int[initial];
+        lastBeacons = new int[initial];
+        beaconIntervals = new short[initial];
+        securities = new byte[initial];
+    }
+
+    public static ScanBatch fromAccessPoints(List<AccessPoint> accessPoints) {
+        ScanBatch batch = new ScanBatch(accessPoints.size());
+        int dropped = 0;
+        for (AccessPoint ap : accessPoints) {
+            if (!batch.add(ap)) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            System.err.println("Ignorando " + dropped + " AP(s) com BSSID invalido na varredura");
+        }
+        return batch;
+    }
+
+    // Retorna false e descarta o AP se o BSSID não for um MAC válido (inclusive o
+    // 00:00:00:00:00:00 que os parsers usam para endereço ilegível): todos eles
+    // colapsariam em uma única chave nos índices por MAC
+    public boolean add(AccessPoint ap) {
+        long mac = MacAddress.parse(ap.getMacAddress());
+        if (mac == MacAddress.INVALID || mac == 0) {
+            return false;
+        }
+        LocalDateTime scanTime = ap.getScanTime() != null ? ap.getScanTime() : LocalDateTime.now();
+        add(mac,
+                ap.getSsid(),
+                toEpochSecond(scanTime),
+                ap.getSignalLevel(),
+                ap.getQualityLink(),
+                ap.getChannel(),
+                (int) Math.round(ap.getFrequency() * 1000),
+                ap.getLastBeacon(),
+                ap.getBeaconInterval(),
+                WifiSecurity.fromLabel(ap.getWifiSecurity()));
+        return true;
+    }
+
+    public void add(long mac, String ssid, long scanEpochSecond, int signalLevel, int qualityLink,
+                    int channel, int frequencyMhz, long lastBeacon, int beaconInterval, WifiSecurity security) {
+        ensureCapacity(size + 1);
+        macs[size] = mac;
+        ssids[size] = ssid;
+        scanEpochSeconds[size] = scanEpochSecond;
+        signalLevels[size] = (short) Math.max(TOMBSTONE_SIGNAL + 1, Math.min(Short.MAX_VALUE, signalLevel));
+        qualityLinks[size] = (byte) qualityLink;
+        channels[size] = (short) channel;
+        frequenciesMhz[size] = frequencyMhz;
+        lastBeacons[size] = (int) Math.min(lastBeacon, Integer.MAX_VALUE);
+        beaconIntervals[size] = (short) beaconInterval;
+        securities[size] = (byte) security.ordinal();
+        size++;
+    }
+
+    public void addTombstone(long mac, long epochSecond) {
+        add(mac, null, epochSecond, 0, 0, 0, 0, 0, 0, WifiSecurity.NONE);
+        signalLevels[size - 1] = (short) TOMBSTONE_SIGNAL;
+    }
+
+    // Acrescenta todas as linhas de outro lote (usado para agrupar varreduras em uma transação)
+    public void addAll(ScanBatch other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.macs, 0, macs, size, other.size);
+        System.arraycopy(other.ssids, 0, ssids, size, other.size);
+        System.arraycopy(other.scanEpochSeconds, 0, scanEpochSeconds, size, other.size);
+        System.arraycopy(other.signalLevels, 0, signalLevels, size, other.size);
+        System.arraycopy(other.qualityLinks, 0, qualityLinks, size, other.size);
+        System.arraycopy(other.channels, 0, channels, size, other.size);
+        System.arraycopy(other.frequenciesMhz, 0, frequenciesMhz, size, other.size);
+        System.arraycopy(other.lastBeacons, 0, lastBeacons, size, other.size);
+        System.arraycopy(other.beaconIntervals, 0, beaconIntervals, size, other.size);
+        System.arraycopy(other.securities, 0, securities, size, other.size);
+        size += other.size;
+    }
+
+    // Formato binário simples, usado para descarregar lotes em disco
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(macs[i]);
+            out.writeBoolean(ssids[i] != null);
+            if (ssids[i] != null) {
+                out.writeUTF(ssids[i]);
+            }
+            out.writeLong(scanEpochSeconds[i]);
+            out.writeShort(signalLevels[i]);
+            out.writeByte(qualityLinks[i]);
+            out.writeShort(channels[i]);
+            out.writeInt(frequenciesMhz[i]);
+            out.writeInt(lastBeacons[i]);
+            out.writeShort(beaconIntervals[i]);
+            out.writeByte(securities[i]);
+        }
+    }
+
+    public static ScanBatch readFrom(DataInput in) throws IOException {
+        int rows = in.readInt();
+        ScanBatch batch = new ScanBatch(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.macs[i] = in.readLong();
+            batch.ssids[i] = in.readBoolean() ? in.readUTF() : null;
+            batch.scanEpochSeconds[i] = in.readLong();
+            batch.signalLevels[i] = in.readShort();
+            batch.qualityLinks[i] = in.readByte();
+            batch.channels[i] = in.readShort();
+            batch.frequenciesMhz[i] = in.readInt();
+            batch.lastBeacons[i] = in.readInt();
+            batch.beaconIntervals[i] = in.readShort();
+            batch.securities[i] = in.readByte();
+        }
+        batch.size = rows;
+        return batch;
+    }
+
+    public void clear() {
+        // Solta as referências das strings, mantendo as colunas alocadas
+        Arrays.fill(ssids, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getMac(int i) { return macs[i]; }
+
+    public String getMacAddress(int i) { return MacAddress.format(macs[i]); }
+
+    public String getSsid(int i) { return ssids[i]; }
+
+    public long getScanEpochSecond(int i) { return scanEpochSeconds[i]; }
+
+    public LocalDateTime getScanTime(int i) { return toLocalDateTime(scanEpochSeconds[i]); }
+
+    public int getSignalLevel(int i) { return signalLevels[i]; }
+
+    public int getQualityLink(int i) { return qualityLinks[i]; }
+
+    public int getChannel(int i) { return channels[i]; }
+
+    public int getFrequencyMhz(int i) { return frequenciesMhz[i]; }
+
+    public double getFrequency(int i) { return frequenciesMhz[i] / 1000.0; }
+
+    public long getLastBeacon(int i) { return lastBeacons[i]; }
+
+    public int getBeaconInterval(int i) { return beaconIntervals[i]; }
+
+    public WifiSecurity getSecurity(int i) { return WifiSecurity.fromOrdinal(securities[i]); }
+
+    public boolean isTombstone(int i) { return signalLevels[i] == TOMBSTONE_SIGNAL; }
+
+    // Adaptadores para a interface de console, que continua trabalhando com AccessPoint
+    public AccessPoint toAccessPoint(int i) {
+        AccessPoint ap = new AccessPoint();
+        ap.setSsid(ssids[i]);
+        ap.setMacAddress(getMacAddress(i));
+        ap.setQualityLink(qualityLinks[i]);
+        ap.setSignalLevel(signalLevels[i]);
+        ap.setChannel(channels[i]);
+        ap.setFrequency(getFrequency(i));
+        ap.setLastBeacon(lastBeacons[i]);
+        ap.setBeaconInterval(beaconIntervals[i]);
+        ap.setWifiSecurity(getSecurity(i).getLabel());
+        ap.setScanTime(getScanTime(i));
+        return ap;
+    }
+
+    public List<AccessPoint> toAccessPoints() {
+        List<AccessPoint> accessPoints = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            accessPoints.add(toAccessPoint(i));
+        }
+        return accessPoints;
+    }
+
+    // Os timestamps seguem o fuso local, como o scanTime do AccessPoint
+    public static long toEpochSecond(LocalDateTime time) {
+        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(time);
+        return time.toEpochSecond(offset);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0,
+                ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(epochSecond)));
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= macs.length) {
+            return;
+        }
+        int capacity = Math.max(required, macs.length + (macs.length >> 1));
+        macs = Arrays.copyOf(macs, capacity);
+        ssids = Arrays.copyOf(ssids, capacity);
+        scanEpochSeconds = Arrays.copyOf(scanEpochSeconds, capacity);
+        signalLevels = Arrays.copyOf(signalLevels, capacity);
+        qualityLinks = Arrays.copyOf(qualityLinks, capacity);
+        channels = Arrays.copyOf(channels, capacity);
+        frequenciesMhz = Arrays.copyOf(frequenciesMhz, capacity);
+        lastBeacons = Arrays.copyOf(lastBeacons, capacity);
+        beaconIntervals = Arrays.copyOf(beaconIntervals, capacity);
+        securities = Arrays.copyOf(securities, capacity);
+    }
+}
@@ -0,0 +1,63 @@
+package br.unitins.model;
+
+import br.unitins.util.MacAddress;
+import java.time.LocalDateTime;
+
+// Mudança detectada entre duas varreduras consecutivas de um BSSID. Os valores anterior e
+// atual dependem do tipo: dBm para SIGNAL_CHANGED, número do canal para CHANNEL_CHANGED
+// e ordinal de WifiSecurity para SECURITY_CHANGED; em APPEARED/GONE são o sinal.
+public class ScanEvent {
+
+    public enum Type {
+        APPEARED,
+        GONE,
+        SIGNAL_CHANGED,
+        CHANNEL_CHANGED,
+        SECURITY_CHANGED
+    }
+
+    private final Type type;
+    private final long mac;
+    private final String ssid;
+    private final long epochSecond;
+    private final int previousValue;
+    private final int currentValue;
+
+    public ScanEvent(Type type, long mac, String ssid, long epochSecond, int previousValue, int currentValue) {
+        this.type = type;
+        this.mac = mac;
+        this.ssid = ssid;
+        this.epochSecond = epochSecond;
+        this.previousValue = previousValue;
+        this.currentValue = currentValue;
+    }
+
+    public Type getType() { return type; }
+
+    public long getMac() { return mac; }
+
+    public String getMacAddress() { return MacAddress.format(mac); }
+
+    public String getSsid() { return ssid; }
+
+    public long getEpochSecond() { return epochSecond; }
+
+    public LocalDateTime getTime() { return ScanBatch.toLocalDateTime(epochSecond); }
+
+    public int getPreviousValue() { return previousValue; }
+
+    public int getCurrentValue() { return currentValue; }
+
+    @Override
+    public String toString() {
+        String detail = switch (type) {
+            case APPEARED -> "apareceu (" + currentValue + " dBm)";
+            case GONE -> "sumiu (ultimo sinal " + previousValue + " dBm)";
+            case SIGNAL_CHANGED -> "sinal " + previousValue + " -> " + currentValue + " dBm";
+            case CHANNEL_CHANGED -> "canal " + previousValue + " -> " + currentValue;
+            case SECURITY_CHANGED -> "seguranca " + WifiSecurity.fromOrdinal(previousValue).getLabel()
+                    + " -> " + WifiSecurity.fromOrdinal(currentValue).getLabel();
+        };
+        return String.format("%-20s | %-17s | %s", ssid != null ? ssid : "Hidden", getMacAddress(), detail);
+    }
+}
@@ -0,0 +1,42 @@
+package br.unitins.model;
+
+// Tipos de segurança conhecidos; o ordinal é usado como coluna compacta no ScanBatch
+public enum WifiSecurity {
+    NONE(null),
+    UNKNOWN("Unknown"),
+    OPEN("Open"),
+    WEP("WEP"),
+    WPA("WPA"),
+    WPA2("WPA2"),
+    WPA3("WPA3");
+
+    private static final WifiSecurity[] VALUES = values();
+
+    private final String label;
+
+    WifiSecurity(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static WifiSecurity fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static WifiSecurity fromLabel(String label) {
+        if (label == null) {
+            return NONE;
+        }
+        return switch (label) {
+            case "Open" -> OPEN;
+            case "WEP" -> WEP;
+            case "WPA" -> WPA;
+            case "WPA2" -> WPA2;
+            case "WPA3" -> WPA3;
+            default -> UNKNOWN;
+        };
+    }
+}
@@ -1,134 +1,304 @@
 package br.unitins.repository;
 
+import br.unitins.config.DatabaseConfig;
 import br.unitins.model.AccessPoint;
+import br.unitins.model.AccessPointPage;
+import br.unitins.model.AccessPointRollup;
+import br.unitins.model.ScanBatch;
 import br.unitins.util.DatabaseConnection;
+import br.unitins.util.LongHashSet;
+import br.unitins.util.MacAddress;
+import br.unitins.util.migration.SchemaMigrator;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class AccessPointRepository {
     
+    // Modo de armazenamento: "wide" (uma linha com textos por observação),
+    // "normalized" (dimensões bssid/ssid e tabela de fatos estreita) ou
+    // "segment" (arquivos locais mapeados em memória, sem MariaDB)
+    public static AccessPointRepository forStorageMode(String mode) {
+        return switch (mode) {
+            case "normalized" -> new NormalizedAccessPointRepository();
+            case "segment" -> new SegmentAccessPointRepository();
+            default -> new AccessPointRepository();
+        };
+    }
+    
+    public static boolean requiresDatabase(String mode) {
+        return !"segment".equals(mode);
+    }
+    
+    private static final String INSERT_PREFIX = """
+        INSERT INTO access_points 
+        (ssid, mac_address, quality_link, signal_level, channel_number, 
+         frequency, last_beacon, beacon_interval, wifi_security, scan_time) 
+        VALUES """;
+    
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // Usar INSERT ... ON DUPLICATE KEY UPDATE para evitar duplicatas por minuto
+    private static final String UPSERT_SUFFIX = """
+        
+        ON DUPLICATE KEY UPDATE
+        quality_link = VALUES(quality_link),
+        signal_level = VALUES(signal_level),
+        channel_number = VALUES(channel_number),
+        frequency = VALUES(frequency),
+        last_beacon = VALUES(last_beacon),
+        beacon_interval = VALUES(beacon_interval),
+        wifi_security = VALUES(wifi_security),
+        scan_time = VALUES(scan_time)
+        """;
+    
+    private static final String FULL_CHUNK_SQL = buildUpsertSql(DatabaseConfig.INSERT_CHUNK_SIZE);
+    
+    // (mac, minuto) já gravados: regravações no mesmo minuto não chegam ao banco
+    private final WrittenMinuteCache writtenKeys = new WrittenMinuteCache();
+    
+    // Marca do backfill dos resumos (epoch, 0 = completo); -1 até a primeira leitura
+    private volatile long rollupBackfillBefore = -1;
+    
+    // Só no modo "change-only"; null grava todas as observações
+    private final ChangeOnlyFilter changeFilter = "change-only".equals(DatabaseConfig.PERSISTENCE_MODE)
+            ? new ChangeOnlyFilter(DatabaseConfig.CHANGE_SIGNAL_DELTA_DB, DatabaseConfig.CHANGE_QUALITY_DELTA,
+                    DatabaseConfig.CHANGE_HEARTBEAT_MINUTES)
+            : null;
+    
+    // Uma gravação por vez: o flusher do write-behind e a importação não se intercalam
+    private final Object writeLock = new Object();
+    
+    // Aviso de tabela não particionada mostrado uma vez por execução
+    private volatile boolean partitionConversionNoticeShown;
+    
     public void saveAccessPoint(AccessPoint ap) throws SQLException {
-        // Verificar se scanTime não é null antes de converter
-        LocalDateTime scanTime = ap.getScanTime();
-        if (scanTime == null) {
-            scanTime = LocalDateTime.now();
+        saveAccessPoints(List.of(ap));
+    }
+    
+    public void saveAccessPoints(List<AccessPoint> accessPoints) throws SQLException {
+        saveScanBatch(ScanBatch.fromAccessPoints(accessPoints));
+    }
+    
+    // Varredura corrente: passa pelo filtro de mudanças (modo "change-only")
+    public void saveScanBatch(ScanBatch batch) throws SQLException {
+        synchronized (writeLock) {
+            writeBatch(batch, true);
         }
-        
-        // Truncar para o minuto (sem segundos) para evitar duplicatas no mesmo minuto
-        LocalDateTime truncatedTime = scanTime.withSecond(0).withNano(0);
-        
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            // Verificar se já existe entrada para esta rede neste minuto
-            if (existsInCurrentMinute(conn, ap.getMacAddress(), truncatedTime)) {
-                return; // Não salvar se já existe
-            }
-            
-            String sql = """
-                INSERT INTO access_points 
-                (ssid, mac_address, quality_link, signal_level, channel_number, 
-                 frequency, last_beacon, beacon_interval, wifi_security, scan_time) 
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, ap.getSsid());
-                stmt.setString(2, ap.getMacAddress());
-                stmt.setInt(3, ap.getQualityLink());
-                stmt.setInt(4, ap.getSignalLevel());
-                stmt.setInt(5, ap.getChannel());
-                stmt.setDouble(6, ap.getFrequency());
-                stmt.setLong(7, ap.getLastBeacon());
-                stmt.setInt(8, ap.getBeaconInterval());
-                stmt.setString(9, ap.getWifiSecurity());
-                stmt.setTimestamp(10, Timestamp.valueOf(truncatedTime));
-                
-                stmt.executeUpdate();
-            }
+    }
+    
+    // Dados históricos (reimportação de uma exportação, lote reenviado do spill): grava
+    // todas as linhas sem consultar nem alterar o estado do filtro de mudanças, que
+    // acompanha só as varreduras correntes. Serializado com as gravações do write-behind.
+    public void importScanBatch(ScanBatch batch) throws SQLException {
+        synchronized (writeLock) {
+            writeBatch(batch, false);
         }
     }
     
-    public void saveAccessPoints(List<AccessPoint> accessPoints) throws SQLException {
-        if (accessPoints.isEmpty()) {
+    // Grava o lote com INSERTs de várias linhas (até INSERT_CHUNK_SIZE por comando)
+    // em uma única transação, sem consultas prévias por AP. As subclasses mudam só o
+    // SQL e o bind de cada bloco (chunkSql/bindChunk) e o preparo antes da transação
+    protected void writeBatch(ScanBatch batch, boolean live) throws SQLException {
+        if (batch.isEmpty()) {
             return;
         }
         
-        // Usar INSERT ... ON DUPLICATE KEY UPDATE para evitar duplicatas por minuto
-        String sql = """
-            INSERT INTO access_points 
-            (ssid, mac_address, quality_link, signal_level, channel_number, 
-             frequency, last_beacon, beacon_interval, wifi_security, scan_time) 
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-            quality_link = VALUES(quality_link),
-            signal_level = VALUES(signal_level),
-            channel_number = VALUES(channel_number),
-            frequency = VALUES(frequency),
-            last_beacon = VALUES(last_beacon),
-            beacon_interval = VALUES(beacon_interval),
-            wifi_security = VALUES(wifi_security),
-            scan_time = VALUES(scan_time)
-            """;
+        int[] pending = new int[batch.size()];
+        int count = selectUnwritten(batch, pending);
+        if (count == 0) {
+            return;
+        }
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Os resumos recebem todas as observações; só as linhas brutas são filtradas
+        int[] rows = live ? selectChanged(batch, pending, count) : Arrays.copyOf(pending, count);
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            prepareWrite(conn, batch, rows);
             
             conn.setAutoCommit(false);
             
-            for (AccessPoint ap : accessPoints) {
-                // Verificar se scanTime não é null antes de converter
-                LocalDateTime scanTime = ap.getScanTime();
-                if (scanTime == null) {
-                    scanTime = LocalDateTime.now();
-                }
-                
-                // Truncar para o minuto (sem segundos) para evitar duplicatas no mesmo minuto
-                LocalDateTime truncatedTime = scanTime.withSecond(0).withNano(0);
-                
-                // Verificar se já existe entrada para esta rede neste minuto
-                if (!existsInCurrentMinute(conn, ap.getMacAddress(), truncatedTime)) {
-                    stmt.setString(1, ap.getSsid());
-                    stmt.setString(2, ap.getMacAddress());
-                    stmt.setInt(3, ap.getQualityLink());
-                    stmt.setInt(4, ap.getSignalLevel());
-                    stmt.setInt(5, ap.getChannel());
-                    stmt.setDouble(6, ap.getFrequency());
-                    stmt.setLong(7, ap.getLastBeacon());
-                    stmt.setInt(8, ap.getBeaconInterval());
-                    stmt.setString(9, ap.getWifiSecurity());
-                    stmt.setTimestamp(10, Timestamp.valueOf(truncatedTime));
-                    
-                    stmt.addBatch();
-                }
+            writeChunks(conn, batch, rows);
+            
+            if (DatabaseConfig.ROLLUPS_ENABLED) {
+                RollupWriter.apply(conn, batch, pending, count, rollupBackfillBefore(conn));
             }
             
-            stmt.executeBatch();
             conn.commit();
             conn.setAutoCommit(true);
         }
+        
+        markWritten(batch, pending, count, rows, live);
     }
     
+    // Blocos cheios reaproveitam um único PreparedStatement; o resto vai em um comando menor
+    private void writeChunks(Connection conn, ScanBatch batch, int[] rows) throws SQLException {
+        int chunkSize = DatabaseConfig.INSERT_CHUNK_SIZE;
+        int offset = 0;
+        if (rows.length >= chunkSize) {
+            try (PreparedStatement stmt = conn.prepareStatement(chunkSql(chunkSize))) {
+                for (; rows.length - offset >= chunkSize; offset += chunkSize) {
+                    bindChunk(stmt, batch, rows, offset, chunkSize);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+        
+        if (offset < rows.length) {
+            try (PreparedStatement stmt = conn.prepareStatement(chunkSql(rows.length - offset))) {
+                bindChunk(stmt, batch, rows, offset, rows.length - offset);
+                stmt.executeUpdate();
+            }
+        }
+    }
+    
+    // Executado antes de abrir a transação (ex.: criar IDs de dimensão no modo normalizado)
+    protected void prepareWrite(Connection conn, ScanBatch batch, int[] rows) throws SQLException {
+    }
+    
+    // Upsert de várias linhas; o bloco cheio é montado uma única vez
+    protected String chunkSql(int rows) {
+        return rows == DatabaseConfig.INSERT_CHUNK_SIZE ? FULL_CHUNK_SQL : buildUpsertSql(rows);
+    }
+    
+    // Preenche pending com os índices do lote ainda não gravados no seu minuto, um por
+    // (mac, minuto): lotes agrupados pelo write-behind podem repetir o par, e só a última
+    // observação (a que o upsert manteria) segue para as linhas e os resumos
+    protected int selectUnwritten(ScanBatch batch, int[] pending) {
+        Map<Long, LongHashSet> seenByMinute = new HashMap<>();
+        long cachedMinute = Long.MIN_VALUE;
+        LongHashSet seen = null;
+        int count = 0;
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            long mac = batch.getMac(i);
+            long minute = minuteOf(batch.getScanEpochSecond(i));
+            if (minute != cachedMinute) {
+                cachedMinute = minute;
+                seen = seenByMinute.computeIfAbsent(minute, m -> new LongHashSet(batch.size()));
+            }
+            if (seen.add(mac) && !writtenKeys.contains(mac, minute)) {
+                pending[count++] = i;
+            }
+        }
+        // Volta à ordem do lote (cronológica), esperada pelo filtro de mudanças
+        for (int left = 0, right = count - 1; left < right; left++, right--) {
+            int tmp = pending[left];
+            pending[left] = pending[right];
+            pending[right] = tmp;
+        }
+        return count;
+    }
+    
+    // Índices de pending que viram linha: todos no modo "full"; no "change-only", só as
+    // observações que mudaram em relação à última linha gravada do BSSID
+    protected int[] selectChanged(ScanBatch batch, int[] pending, int count) {
+        if (changeFilter == null) {
+            return Arrays.copyOf(pending, count);
+        }
+        return changeFilter.select(batch, pending, count);
+    }
+    
+    // Só marcar como gravado depois do commit
+    protected void markWritten(ScanBatch batch, int[] pending, int count, int[] rows, boolean live) {
+        for (int k = 0; k < count; k++) {
+            int i = pending[k];
+            writtenKeys.add(batch.getMac(i), minuteOf(batch.getScanEpochSecond(i)));
+        }
+        if (changeFilter != null && live) {
+            changeFilter.record(batch, rows);
+        }
+    }
+    
+    protected void bindChunk(PreparedStatement stmt, ScanBatch batch, int[] pending,
+                             int offset, int rows) throws SQLException {
+        int p = 1;
+        for (int k = offset; k < offset + rows; k++) {
+            int i = pending[k];
+            // Truncar para o minuto (sem segundos) para evitar duplicatas no mesmo minuto
+            Timestamp truncatedTime = new Timestamp(minuteOf(batch.getScanEpochSecond(i)) * 1000);
+            
+            stmt.setString(p++, batch.getSsid(i));
+            stmt.setString(p++, batch.getMacAddress(i));
+            stmt.setInt(p++, batch.getQualityLink(i));
+            stmt.setInt(p++, batch.getSignalLevel(i));
+            stmt.setInt(p++, batch.getChannel(i));
+            stmt.setDouble(p++, batch.getFrequency(i));
+            stmt.setLong(p++, batch.getLastBeacon(i));
+            stmt.setInt(p++, batch.getBeaconInterval(i));
+            stmt.setString(p++, batch.getSecurity(i).getLabel());
+            stmt.setTimestamp(p++, truncatedTime);
+        }
+    }
+    
+    private static String buildUpsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2)
+                + UPSERT_SUFFIX.length());
+        sql.append(INSERT_PREFIX).append(' ');
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.append(UPSERT_SUFFIX).toString();
+    }
+    
+    protected static long minuteOf(long epochSecond) {
+        return epochSecond - Math.floorMod(epochSecond, 60);
+    }
+    
+    // Um AP cuja linha mais recente é o marcador de que sumiu fica de fora
     public List<AccessPoint> getLatestAccessPoints() throws SQLException {
         String sql = """
             SELECT ssid, mac_address, quality_link, signal_level, 
                    channel_number, frequency, last_beacon, beacon_interval, 
                    wifi_security, scan_time
             FROM access_points ap1
-            WHERE scan_time = (
+            WHERE signal_level <> %d AND scan_time = (
                 SELECT MAX(scan_time) 
                 FROM access_points ap2 
                 WHERE ap2.mac_address = ap1.mac_address
             )
             GROUP BY mac_address
             ORDER BY quality_link DESC
-            """;
+            """.formatted(ScanBatch.TOMBSTONE_SIGNAL);
         
         return executeQuery(sql);
     }
     
+    // Uma observação por AP por minuto em [startTime, endTime]. No modo "change-only" a
+    // busca recua o bastante para achar a linha que vale no início e cada linha é
+    // repetida nos minutos seguintes até a próxima do BSSID (ou até o heartbeat)
     public List<AccessPoint> getAccessPointsByTime(LocalDateTime startTime, LocalDateTime endTime) throws SQLException {
+        if (changeFilter == null) {
+            // Marcadores só existem se o banco já foi usado no modo "change-only"
+            List<AccessPoint> stored = queryAccessPointsByTime(startTime, endTime);
+            stored.removeIf(CarryForward::isTombstone);
+            return stored;
+        }
+        int heartbeat = DatabaseConfig.CHANGE_HEARTBEAT_MINUTES;
+        List<AccessPoint> stored = queryAccessPointsByTime(startTime.minusMinutes(heartbeat - 1), endTime);
+        return CarryForward.expand(stored, ScanBatch.toEpochSecond(startTime), ScanBatch.toEpochSecond(endTime), heartbeat);
+    }
+    
+    // Linhas gravadas em [startTime, endTime], sem reconstrução e com os marcadores de
+    // AP que sumiu (a reconstrução precisa deles)
+    protected List<AccessPoint> queryAccessPointsByTime(LocalDateTime startTime, LocalDateTime endTime)
+            throws SQLException {
         String sql = """
             SELECT ssid, mac_address, quality_link, signal_level, 
                    channel_number, frequency, last_beacon, beacon_interval, 
@@ -148,6 +318,117 @@ public class AccessPointRepository {
         }
     }
     
+    // Percorre [startTime, endTime] em ordem de (scan_time, id) sem materializar o
+    // intervalo, sem os marcadores de AP que sumiu: o driver entrega as linhas em blocos de STREAM_FETCH_SIZE. A conexão
+    // fica ocupada até o callback terminar; para consumo lento, prefira a paginação.
+    public void forEachAccessPointByTime(LocalDateTime startTime, LocalDateTime endTime,
+                                         Consumer<AccessPoint> consumer) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(keysetSql(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(DatabaseConfig.STREAM_FETCH_SIZE);
+            bindKeyset(stmt, endTime, startTime, Long.MIN_VALUE);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapRow(rs));
+                }
+            }
+        }
+    }
+    
+    // Paginação por chave: previous == null pede a primeira página. Cada página é uma
+    // busca por faixa no índice de scan_time, sem OFFSET
+    public AccessPointPage getAccessPointsPage(LocalDateTime startTime, LocalDateTime endTime,
+                                               AccessPointPage previous, int limit) throws SQLException {
+        LocalDateTime afterTime = previous != null ? previous.getLastScanTime() : startTime;
+        long afterKey = previous != null ? previous.getLastKey() : Long.MIN_VALUE;
+        
+        if (previous != null && !previous.hasMore()) {
+            return new AccessPointPage(List.of(), afterTime, afterKey, false);
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(keysetSql() + " LIMIT ?")) {
+            
+            bindKeyset(stmt, endTime, afterTime, afterKey);
+            // Uma linha a mais indica se existe próxima página
+            stmt.setInt(5, limit + 1);
+            
+            List<AccessPoint> items = new ArrayList<>(limit);
+            boolean hasMore = false;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (items.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    items.add(mapRow(rs));
+                    afterTime = rs.getTimestamp("scan_time").toLocalDateTime();
+                    afterKey = rs.getLong("row_key");
+                }
+            }
+            
+            return new AccessPointPage(items, afterTime, afterKey, hasMore);
+        }
+    }
+    
+    // Stream preguiçoso sobre a paginação: memória constante e nenhuma conexão presa
+    // entre páginas. Erros de banco chegam como IllegalStateException no consumo.
+    public Stream<AccessPoint> streamAccessPointsByTime(LocalDateTime startTime, LocalDateTime endTime) {
+        int pageSize = DatabaseConfig.STREAM_FETCH_SIZE;
+        
+        Spliterator<AccessPoint> pages = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private AccessPointPage page;
+            private int next;
+            
+            @Override
+            public boolean tryAdvance(Consumer<? super AccessPoint> action) {
+                while (page == null || next == page.getItems().size()) {
+                    if (page != null && !page.hasMore()) {
+                        return false;
+                    }
+                    try {
+                        page = getAccessPointsPage(startTime, endTime, page, pageSize);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Erro ao ler pagina do banco: " + e.getMessage(), e);
+                    }
+                    next = 0;
+                }
+                action.accept(page.getItems().get(next++));
+                return true;
+            }
+        };
+        
+        return StreamSupport.stream(pages, false);
+    }
+    
+    // Linhas até o fim depois da chave (scan_time, row_key) informada. A faixa começa
+    // no scan_time da chave, então cada página parte direto do ponto certo do índice.
+    // Parâmetros: scan_time da chave, fim, scan_time da chave e row_key da chave
+    protected String keysetSql() {
+        return """
+            SELECT id AS row_key, ssid, mac_address, quality_link, signal_level,
+                   channel_number, frequency, last_beacon, beacon_interval,
+                   wifi_security, scan_time
+            FROM access_points
+            WHERE scan_time >= ? AND scan_time <= ?
+            AND (scan_time > ? OR id > ?)
+            AND signal_level <> %d
+            ORDER BY scan_time, id
+            """.formatted(ScanBatch.TOMBSTONE_SIGNAL);
+    }
+    
+    private static void bindKeyset(PreparedStatement stmt, LocalDateTime endTime,
+                                   LocalDateTime afterTime, long afterKey) throws SQLException {
+        stmt.setTimestamp(1, Timestamp.valueOf(afterTime));
+        stmt.setTimestamp(2, Timestamp.valueOf(endTime));
+        stmt.setTimestamp(3, Timestamp.valueOf(afterTime));
+        stmt.setLong(4, afterKey);
+    }
+    
     public List<AccessPoint> getAccessPointsByHour(int hour) throws SQLException {
         LocalDateTime today = LocalDateTime.now().withHour(hour).withMinute(0).withSecond(0).withNano(0);
         LocalDateTime endTime = today.plusHours(1);
@@ -162,7 +443,229 @@ public class AccessPointRepository {
         return getAccessPointsByTime(startTime, endTime);
     }
     
+    // Resumo por BSSID em [startTime, endTime), lendo a granularidade mais grossa que
+    // cobre cada trecho: dias inteiros no resumo diário, horas inteiras no horário e
+    // apenas as pontas fora de hora cheia nas linhas brutas (reconstruídas minuto a
+    // minuto no modo "change-only", como em getAccessPointsByTime). O trecho anterior ao
+    // ponto já alcançado pelo backfill dos resumos também vem das linhas brutas
+    public List<AccessPointRollup> getRollupsByTime(LocalDateTime startTime, LocalDateTime endTime) throws SQLException {
+        Map<String, AccessPointRollup> byMac = new LinkedHashMap<>();
+        if (!startTime.isBefore(endTime)) {
+            return new ArrayList<>();
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            long backfillBefore = readState(conn, SchemaMigrator.ROLLUP_BACKFILL_STATE);
+            if (backfillBefore != 0) {
+                LocalDateTime rollupsFrom = ScanBatch.toLocalDateTime(backfillBefore);
+                if (startTime.isBefore(rollupsFrom)) {
+                    LocalDateTime rawEnd = endTime.isBefore(rollupsFrom) ? endTime : rollupsFrom;
+                    readEdgeRollups(conn, startTime, rawEnd, byMac);
+                    startTime = rawEnd;
+                }
+            }
+            if (startTime.isBefore(endTime)) {
+                readRollupsByGranularity(conn, startTime, endTime, byMac);
+            }
+        }
+        
+        List<AccessPointRollup> rollups = new ArrayList<>(byMac.values());
+        rollups.sort(Comparator.comparingDouble(AccessPointRollup::getAvgQuality).reversed());
+        return rollups;
+    }
+    
+    private void readRollupsByGranularity(Connection conn, LocalDateTime startTime, LocalDateTime endTime,
+                                          Map<String, AccessPointRollup> byMac) throws SQLException {
+        LocalDateTime firstHour = ceil(startTime, ChronoUnit.HOURS);
+        LocalDateTime lastHour = endTime.truncatedTo(ChronoUnit.HOURS);
+        
+        if (!firstHour.isBefore(lastHour)) {
+            readEdgeRollups(conn, startTime, endTime, byMac);
+            return;
+        }
+        readEdgeRollups(conn, startTime, firstHour, byMac);
+        
+        LocalDateTime firstDay = ceil(firstHour, ChronoUnit.DAYS);
+        LocalDateTime lastDay = lastHour.truncatedTo(ChronoUnit.DAYS);
+        if (firstDay.isBefore(lastDay)) {
+            readRollups(conn, storedRollupSql(RollupWriter.HOURLY_TABLE), firstHour, firstDay, byMac);
+            readRollups(conn, storedRollupSql(RollupWriter.DAILY_TABLE), firstDay, lastDay, byMac);
+            readRollups(conn, storedRollupSql(RollupWriter.HOURLY_TABLE), lastDay, lastHour, byMac);
+        } else {
+            readRollups(conn, storedRollupSql(RollupWriter.HOURLY_TABLE), firstHour, lastHour, byMac);
+        }
+        
+        readEdgeRollups(conn, lastHour, endTime, byMac);
+    }
+    
+    // Linhas antes da marca (ex.: lote antigo reenviado do spill) ficam para o backfill,
+    // que lê as linhas brutas: somá-las agora as contaria duas vezes. Só este processo
+    // recua a marca, então basta lê-la do banco uma vez
+    private long rollupBackfillBefore(Connection conn) throws SQLException {
+        if (rollupBackfillBefore < 0) {
+            rollupBackfillBefore = readState(conn, SchemaMigrator.ROLLUP_BACKFILL_STATE);
+        }
+        return rollupBackfillBefore;
+    }
+    
+    // Um passo do preenchimento dos resumos a partir do histórico bruto, do mais recente
+    // para o mais antigo: agrega o dia da última linha bruta anterior à marca e recua a
+    // marca para o início desse dia, na mesma transação (um passo interrompido é refeito
+    // inteiro). Retorna false quando não há mais histórico a preencher.
+    public boolean backfillRollupDay() throws SQLException {
+        if (rollupBackfillBefore == 0) {
+            return false;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            long before = readState(conn, SchemaMigrator.ROLLUP_BACKFILL_STATE);
+            rollupBackfillBefore = before;
+            if (before == 0) {
+                return false;
+            }
+            LocalDateTime end = ScanBatch.toLocalDateTime(before);
+            
+            LocalDateTime latest = null;
+            try (PreparedStatement stmt = conn.prepareStatement("""
+                    SELECT MAX(scan_time) FROM (
+                        SELECT MAX(scan_time) AS scan_time FROM access_points WHERE scan_time < ?
+                        UNION ALL
+                        SELECT MAX(scan_time) FROM ap_observations WHERE scan_time < ?
+                    ) latest
+                    """)) {
+                stmt.setTimestamp(1, Timestamp.valueOf(end));
+                stmt.setTimestamp(2, Timestamp.valueOf(end));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next() && rs.getTimestamp(1) != null) {
+                        latest = rs.getTimestamp(1).toLocalDateTime();
+                    }
+                }
+            }
+            
+            conn.setAutoCommit(false);
+            try {
+                long next = 0;
+                if (latest != null) {
+                    LocalDateTime start = latest.truncatedTo(ChronoUnit.DAYS);
+                    RollupWriter.backfill(conn, start, end);
+                    next = ScanBatch.toEpochSecond(start);
+                }
+                writeState(conn, SchemaMigrator.ROLLUP_BACKFILL_STATE, next);
+                conn.commit();
+                rollupBackfillBefore = next;
+                return next != 0;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    public List<AccessPointRollup> getRollupsByDay(LocalDate day) throws SQLException {
+        return getRollupsByTime(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+    
+    public List<AccessPointRollup> getRollupsByHour(int hour) throws SQLException {
+        LocalDateTime startTime = LocalDateTime.now().withHour(hour).withMinute(0).withSecond(0).withNano(0);
+        return getRollupsByTime(startTime, startTime.plusHours(1));
+    }
+    
+    // Agregação das linhas brutas por BSSID, com as mesmas colunas dos resumos gravados
+    protected String rawRollupSql() {
+        return """
+            SELECT CONV(REPLACE(mac_address, ':', ''), 16, 10) AS mac, MAX(ssid) AS ssid,
+                   MIN(signal_level) AS min_signal, MAX(signal_level) AS max_signal,
+                   SUM(signal_level) AS signal_sum, SUM(quality_link) AS quality_sum,
+                   COUNT(*) AS sample_count, GROUP_CONCAT(DISTINCT channel_number) AS channels,
+                   MIN(scan_time) AS first_seen, MAX(scan_time) AS last_seen
+            FROM access_points
+            WHERE scan_time >= ? AND scan_time < ? AND signal_level <> %d
+            GROUP BY mac_address
+            """.formatted(ScanBatch.TOMBSTONE_SIGNAL);
+    }
+    
+    // Trecho sem resumo gravado, em [from, to)
+    private void readEdgeRollups(Connection conn, LocalDateTime from, LocalDateTime to,
+                                 Map<String, AccessPointRollup> byMac) throws SQLException {
+        if (changeFilter == null) {
+            readRollups(conn, rawRollupSql(), from, to, byMac);
+            return;
+        }
+        if (!from.isBefore(to)) {
+            return;
+        }
+        int heartbeat = DatabaseConfig.CHANGE_HEARTBEAT_MINUTES;
+        List<AccessPoint> stored = queryAccessPointsByTime(from.minusMinutes(heartbeat - 1), to.minusSeconds(1));
+        CarryForward.rollup(stored, ScanBatch.toEpochSecond(from), ScanBatch.toEpochSecond(to), heartbeat, byMac);
+    }
+    
+    protected boolean isChangeOnly() {
+        return changeFilter != null;
+    }
+    
+    private static String storedRollupSql(String table) {
+        return """
+            SELECT mac, MAX(ssid) AS ssid, MIN(min_signal) AS min_signal, MAX(max_signal) AS max_signal,
+                   SUM(signal_sum) AS signal_sum, SUM(quality_sum) AS quality_sum,
+                   SUM(sample_count) AS sample_count, GROUP_CONCAT(DISTINCT channels) AS channels,
+                   MIN(first_seen) AS first_seen, MAX(last_seen) AS last_seen
+            FROM %s
+            WHERE bucket_start >= ? AND bucket_start < ?
+            GROUP BY mac
+            """.formatted(table);
+    }
+    
+    private static void readRollups(Connection conn, String sql, LocalDateTime from, LocalDateTime to,
+                                    Map<String, AccessPointRollup> byMac) throws SQLException {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    AccessPointRollup rollup = new AccessPointRollup(
+                            MacAddress.format(rs.getLong("mac")),
+                            rs.getString("ssid"),
+                            rs.getInt("min_signal"),
+                            rs.getInt("max_signal"),
+                            rs.getLong("signal_sum"),
+                            rs.getLong("quality_sum"),
+                            rs.getLong("sample_count"),
+                            rs.getString("channels"),
+                            rs.getTimestamp("first_seen").toLocalDateTime(),
+                            rs.getTimestamp("last_seen").toLocalDateTime());
+                    
+                    byMac.merge(rollup.getMacAddress(), rollup, (current, next) -> {
+                        current.merge(next);
+                        return current;
+                    });
+                }
+            }
+        }
+    }
+    
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+    
     public void cleanOldRecords(int daysToKeep) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (PartitionManager.isPartitioned(conn)) {
+                // Tabela particionada: descartar dias inteiros sem varrer linhas
+                int dropped = PartitionManager.dropPartitionsBefore(conn, LocalDate.now().minusDays(daysToKeep));
+                if (dropped > 0) {
+                    System.out.println("Removidas " + dropped + " particoes diarias antigas do banco de dados.");
+                }
+                return;
+            }
+        }
+        
         String sql = "DELETE FROM access_points WHERE scan_time < DATE_SUB(NOW(), INTERVAL ? DAY)";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -177,42 +680,93 @@ public class AccessPointRepository {
         }
     }
     
-    public void removeDuplicatesByMinute() throws SQLException {
+    // Mantém partições para os próximos dias. A conversão inicial só acontece com a tabela
+    // vazia ou quando pedida explicitamente (PARTITION_CONVERT_EXISTING), já que reescreve
+    // todas as linhas e bloqueia a tabela enquanto isso
+    public void maintainPartitions(int daysAhead) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (PartitionManager.isPartitioned(conn)) {
+                PartitionManager.ensureFuturePartitions(conn, daysAhead);
+            } else if (DatabaseConfig.PARTITION_CONVERT_EXISTING || PartitionManager.isEmpty(conn)) {
+                PartitionManager.partitionTable(conn, daysAhead);
+            } else if (!partitionConversionNoticeShown) {
+                partitionConversionNoticeShown = true;
+                System.out.println("access_points nao particionada; para converter (reescreve a tabela), "
+                        + "reinicie com -Dhotspot.partition.convert=true");
+            }
+        }
+    }
+    
+    // Remove as linhas com id em (afterId, upToId] que repetem (mac, minuto) de uma linha
+    // mais antiga. O intervalo de ids usa a chave primária e o minuto é comparado como
+    // faixa de scan_time, usando o índice (mac_address, scan_time) em vez de DATE_FORMAT.
+    public int removeDuplicatesInIdRange(long afterId, long upToId) throws SQLException {
         String sql = """
             DELETE ap1 FROM access_points ap1
-            INNER JOIN access_points ap2 
-            WHERE ap1.id > ap2.id 
-            AND ap1.mac_address = ap2.mac_address 
-            AND DATE_FORMAT(ap1.scan_time, '%Y-%m-%d %H:%i') = DATE_FORMAT(ap2.scan_time, '%Y-%m-%d %H:%i')
+            INNER JOIN access_points ap2
+                ON ap2.mac_address = ap1.mac_address
+                AND ap2.scan_time >= ap1.scan_time - INTERVAL SECOND(ap1.scan_time) SECOND
+                AND ap2.scan_time < ap1.scan_time - INTERVAL SECOND(ap1.scan_time) SECOND + INTERVAL 1 MINUTE
+                AND ap2.id < ap1.id
+            WHERE ap1.id > ? AND ap1.id <= ?
             """;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            int deletedRows = stmt.executeUpdate();
+            stmt.setLong(1, afterId);
+            stmt.setLong(2, upToId);
+            return stmt.executeUpdate();
+        }
+    }
+    
+    public long getMaxId() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM access_points");
+             ResultSet rs = stmt.executeQuery()) {
             
-            if (deletedRows > 0) {
-                System.out.println("Removidas " + deletedRows + " entradas duplicadas do banco de dados.");
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+    
+    public long getHighWaterMark(String name) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return readState(conn, name);
+        }
+    }
+    
+    public void saveHighWaterMark(String name, long value) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            writeState(conn, name, value);
+        }
+    }
+    
+    private static long readState(Connection conn, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT value FROM maintenance_state WHERE name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
             }
         }
     }
     
-    private boolean existsInCurrentMinute(Connection conn, String macAddress, LocalDateTime minuteTime) throws SQLException {
+    private static void writeState(Connection conn, String name, long value) throws SQLException {
         String sql = """
-            SELECT COUNT(*) FROM access_points 
-            WHERE mac_address = ? AND scan_time = ?
+            INSERT INTO maintenance_state (name, value) VALUES (?, ?)
+            ON DUPLICATE KEY UPDATE value = VALUES(value)
             """;
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, macAddress);
-            stmt.setTimestamp(2, Timestamp.valueOf(minuteTime));
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next() && rs.getInt(1) > 0;
-            }
+            stmt.setString(1, name);
+            stmt.setLong(2, value);
+            stmt.executeUpdate();
         }
     }
     
+    // Libera recursos próprios do modo de armazenamento (o pool é fechado à parte)
+    public void close() {
+    }
+    
     private List<AccessPoint> executeQuery(String sql) throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -226,22 +780,25 @@ public class AccessPointRepository {
         
         try (ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                AccessPoint ap = new AccessPoint();
-                ap.setSsid(rs.getString("ssid"));
-                ap.setMacAddress(rs.getString("mac_address"));
-                ap.setQualityLink(rs.getInt("quality_link"));
-                ap.setSignalLevel(rs.getInt("signal_level"));
-                ap.setChannel(rs.getInt("channel_number"));
-                ap.setFrequency(rs.getDouble("frequency"));
-                ap.setLastBeacon(rs.getLong("last_beacon"));
-                ap.setBeaconInterval(rs.getInt("beacon_interval"));
-                ap.setWifiSecurity(rs.getString("wifi_security"));
-                ap.setScanTime(rs.getTimestamp("scan_time").toLocalDateTime());
-                
-                accessPoints.add(ap);
+                accessPoints.add(mapRow(rs));
             }
         }
         
         return accessPoints;
     }
+    
+    protected AccessPoint mapRow(ResultSet rs) throws SQLException {
+        AccessPoint ap = new AccessPoint();
+        ap.setSsid(rs.getString("ssid"));
+        ap.setMacAddress(rs.getString("mac_address"));
+        ap.setQualityLink(rs.getInt("quality_link"));
+        ap.setSignalLevel(rs.getInt("signal_level"));
+        ap.setChannel(rs.getInt("channel_number"));
+        ap.setFrequency(rs.getDouble("frequency"));
+        ap.setLastBeacon(rs.getLong("last_beacon"));
+        ap.setBeaconInterval(rs.getInt("beacon_interval"));
+        ap.setWifiSecurity(rs.getString("wifi_security"));
+        ap.setScanTime(rs.getTimestamp("scan_time").toLocalDateTime());
+        return ap;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,119 @@
+package br.unitins.repository;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.AccessPointRollup;
+import br.unitins.model.ScanBatch;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reconstrói uma observação por BSSID por minuto a partir das linhas gravadas no modo
+// só de mudanças: cada linha vale do seu minuto até a próxima linha do mesmo BSSID,
+// limitada a heartbeatMinutes (sem linha nova nesse prazo, o AP não estava mais lá).
+// Um marcador de AP que sumiu (ScanBatch.TOMBSTONE_SIGNAL) encerra a linha anterior e
+// não aparece no resultado.
+final class CarryForward {
+
+    static final Comparator<AccessPoint> BY_TIME_DESC_QUALITY_DESC =
+            Comparator.comparing(AccessPoint::getScanTime).reversed()
+                    .thenComparing(Comparator.comparingInt(AccessPoint::getQualityLink).reversed());
+
+    private CarryForward() {}
+
+    // stored deve cobrir [início - (heartbeatMinutes - 1) min, fim] para que a linha que
+    // vale no início do intervalo esteja presente
+    static List<AccessPoint> expand(List<AccessPoint> stored, long startEpochSecond, long endEpochSecond,
+                                    int heartbeatMinutes) {
+        long from = AccessPointRepository.minuteOf(startEpochSecond + 59);
+        long to = AccessPointRepository.minuteOf(endEpochSecond);
+        long span = (heartbeatMinutes - 1) * 60L;
+        List<AccessPoint> result = new ArrayList<>(stored.size());
+
+        for (List<AccessPoint> rows : groupByMac(stored)) {
+            for (int k = 0; k < rows.size(); k++) {
+                AccessPoint row = rows.get(k);
+                if (isTombstone(row)) {
+                    continue;
+                }
+                long minute = ScanBatch.toEpochSecond(row.getScanTime());
+                long last = Math.min(lastMinute(rows, k, minute, span), to);
+
+                for (long m = Math.max(minute, from); m <= last; m += 60) {
+                    result.add(m == minute ? row : copyAt(row, m));
+                }
+            }
+        }
+
+        result.sort(BY_TIME_DESC_QUALITY_DESC);
+        return result;
+    }
+
+    // Mesma reconstrução de expand, mas agregada direto no resumo de cada BSSID em
+    // [início, fim): cada linha conta uma amostra por minuto em que vale, sem criar as
+    // cópias. Usado nas pontas fora de hora cheia, onde não há resumo gravado.
+    static void rollup(List<AccessPoint> stored, long startEpochSecond, long endEpochSecond,
+                       int heartbeatMinutes, Map<String, AccessPointRollup> byMac) {
+        long from = AccessPointRepository.minuteOf(startEpochSecond + 59);
+        long to = AccessPointRepository.minuteOf(endEpochSecond - 1);
+        long span = (heartbeatMinutes - 1) * 60L;
+
+        for (List<AccessPoint> rows : groupByMac(stored)) {
+            for (int k = 0; k < rows.size(); k++) {
+                AccessPoint row = rows.get(k);
+                if (isTombstone(row)) {
+                    continue;
+                }
+                long minute = ScanBatch.toEpochSecond(row.getScanTime());
+                long first = Math.max(minute, from);
+                long last = Math.min(lastMinute(rows, k, minute, span), to);
+                if (first > last) {
+                    continue;
+                }
+
+                long samples = (last - first) / 60 + 1;
+                int signal = row.getSignalLevel();
+                AccessPointRollup sample = new AccessPointRollup(row.getMacAddress(), row.getSsid(),
+                        signal, signal, signal * samples, row.getQualityLink() * samples, samples,
+                        String.valueOf(row.getChannel()), ScanBatch.toLocalDateTime(first),
+                        ScanBatch.toLocalDateTime(last));
+                byMac.merge(row.getMacAddress(), sample, (current, next) -> {
+                    current.merge(next);
+                    return current;
+                });
+            }
+        }
+    }
+
+    static boolean isTombstone(AccessPoint ap) {
+        return ap.getSignalLevel() == ScanBatch.TOMBSTONE_SIGNAL;
+    }
+
+    // Linhas de cada BSSID em ordem cronológica
+    private static Iterable<List<AccessPoint>> groupByMac(List<AccessPoint> stored) {
+        Map<String, List<AccessPoint>> byMac = new HashMap<>();
+        for (AccessPoint ap : stored) {
+            byMac.computeIfAbsent(ap.getMacAddress(), mac -> new ArrayList<>()).add(ap);
+        }
+        for (List<AccessPoint> rows : byMac.values()) {
+            rows.sort(Comparator.comparing(AccessPoint::getScanTime));
+        }
+        return byMac.values();
+    }
+
+    // Último minuto em que a linha k vale: antes da próxima linha do BSSID (inclusive um
+    // marcador de AP que sumiu) e dentro do heartbeat
+    private static long lastMinute(List<AccessPoint> rows, int k, long minute, long span) {
+        long next = k + 1 < rows.size() ? ScanBatch.toEpochSecond(rows.get(k + 1).getScanTime()) : Long.MAX_VALUE;
+        return Math.min(next - 60, minute + span);
+    }
+
+    private static AccessPoint copyAt(AccessPoint row, long epochSecond) {
+        AccessPoint copy = new AccessPoint(row.getSsid(), row.getMacAddress(), row.getQualityLink(),
+                row.getSignalLevel(), row.getChannel(), row.getFrequency(), row.getLastBeacon(),
+                row.getBeaconInterval(), row.getWifiSecurity());
+        copy.setScanTime(ScanBatch.toLocalDateTime(epochSecond));
+        return copy;
+    }
+}
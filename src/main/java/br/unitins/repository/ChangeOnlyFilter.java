@@ -0,0 +1,144 @@
+package br.unitins.repository;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.util.LongIntHashMap;
+import br.unitins.util.MacSlotIndex;
+import java.util.Arrays;
+
+// Persistência só de mudanças: uma observação vira linha quando é a primeira do BSSID,
+// quando sinal ou qualidade se afastam da última linha gravada além do limite, quando
+// canal ou segurança mudam, ou quando a última linha tem heartbeatMinutes ou mais.
+// Assim cada linha vale para no máximo heartbeatMinutes minutos na reconstrução.
+// Um marcador de AP que sumiu é sempre gravado e faz o filtro esquecer o BSSID: a
+// volta dele gera linha mesmo com os mesmos valores de antes. Uma observação mais
+// antiga que a última linha gravada do BSSID (lote atrasado) é sempre gravada e não
+// altera o estado, que só anda para frente.
+final class ChangeOnlyFilter {
+
+    private static final int MISSING = MacSlotIndex.MISSING;
+    private static final int FORGOTTEN = -2;
+
+    private final int signalDelta;
+    private final int qualityDelta;
+    private final long heartbeatSeconds;
+
+    // Última linha gravada de cada BSSID, em arrays paralelos
+    private final MacSlotIndex slots = new MacSlotIndex(this::grow);
+    private int[] slotSignal = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotQuality = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotChannel = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotSecurity = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private long[] slotMinute = new long[MacSlotIndex.INITIAL_CAPACITY];
+    private long lastSweepMinute;
+
+    ChangeOnlyFilter(int signalDelta, int qualityDelta, int heartbeatMinutes) {
+        this.signalDelta = signalDelta;
+        this.qualityDelta = qualityDelta;
+        this.heartbeatSeconds = heartbeatMinutes * 60L;
+    }
+
+    // Devolve os índices de pending (já sem repetições por minuto) que precisam ser
+    // gravados. Não altera o estado: isso só acontece em record, depois do commit. Um
+    // lote do write-behind pode ter o mesmo BSSID em minutos diferentes, então a
+    // referência de cada linha é a última selecionada antes dela no próprio lote.
+    synchronized int[] select(ScanBatch batch, int[] pending, int count) {
+        int[] rows = new int[count];
+        int selected = 0;
+        LongIntHashMap selectedInBatch = new LongIntHashMap(count, MISSING);
+
+        for (int k = 0; k < count; k++) {
+            int i = pending[k];
+            long mac = batch.getMac(i);
+            long minute = AccessPointRepository.minuteOf(batch.getScanEpochSecond(i));
+            boolean changed;
+
+            int previous = selectedInBatch.get(mac);
+            int slot = previous == MISSING ? slots.get(mac) : MISSING;
+            boolean late = false;
+            if (batch.isTombstone(i) || previous == FORGOTTEN) {
+                changed = true;
+            } else if (previous != MISSING) {
+                long previousMinute = AccessPointRepository.minuteOf(batch.getScanEpochSecond(previous));
+                late = minute < previousMinute;
+                changed = late || differs(batch, i, minute, batch.getSignalLevel(previous),
+                        batch.getQualityLink(previous), batch.getChannel(previous),
+                        batch.getSecurity(previous).ordinal(), previousMinute);
+            } else if (slot != MISSING) {
+                late = minute < slotMinute[slot];
+                changed = late || differs(batch, i, minute, slotSignal[slot], slotQuality[slot],
+                        slotChannel[slot], slotSecurity[slot], slotMinute[slot]);
+            } else {
+                changed = true;
+            }
+
+            if (changed) {
+                rows[selected++] = i;
+                // Uma linha atrasada não vira referência: a mais nova continua valendo
+                if (!late) {
+                    selectedInBatch.put(mac, batch.isTombstone(i) ? FORGOTTEN : i);
+                }
+            }
+        }
+        return Arrays.copyOf(rows, selected);
+    }
+
+    // Registra as linhas efetivamente gravadas, na ordem do lote
+    synchronized void record(ScanBatch batch, int[] rows) {
+        long newest = Long.MIN_VALUE;
+        for (int i : rows) {
+            long mac = batch.getMac(i);
+            int slot = slots.get(mac);
+            long minute = AccessPointRepository.minuteOf(batch.getScanEpochSecond(i));
+            if (slot != MISSING && minute < slotMinute[slot]) {
+                continue; // Linha atrasada: o estado já reflete uma linha mais nova
+            }
+            if (batch.isTombstone(i)) {
+                if (slot != MISSING) {
+                    slots.release(slot);
+                }
+                continue;
+            }
+            if (slot == MISSING) {
+                slot = slots.allocate(mac);
+            }
+            slotSignal[slot] = batch.getSignalLevel(i);
+            slotQuality[slot] = batch.getQualityLink(i);
+            slotChannel[slot] = batch.getChannel(i);
+            slotSecurity[slot] = batch.getSecurity(i).ordinal();
+            slotMinute[slot] = minute;
+            newest = Math.max(newest, minute);
+        }
+
+        // Um BSSID cuja última linha já passou do heartbeat seria gravado de novo de
+        // qualquer forma: o estado dele pode ser descartado
+        if (newest != Long.MIN_VALUE && newest - lastSweepMinute >= heartbeatSeconds) {
+            evictBefore(newest - heartbeatSeconds);
+            lastSweepMinute = newest;
+        }
+    }
+
+    private boolean differs(ScanBatch batch, int i, long minute, int signal, int quality,
+                            int channel, int security, long writtenMinute) {
+        return Math.abs(batch.getSignalLevel(i) - signal) >= signalDelta
+                || Math.abs(batch.getQualityLink(i) - quality) >= qualityDelta
+                || batch.getChannel(i) != channel
+                || batch.getSecurity(i).ordinal() != security
+                || minute - writtenMinute >= heartbeatSeconds;
+    }
+
+    private void evictBefore(long minute) {
+        for (int slot = 0; slot < slots.slotCount(); slot++) {
+            if (slots.isActive(slot) && slotMinute[slot] < minute) {
+                slots.release(slot);
+            }
+        }
+    }
+
+    private void grow(int capacity) {
+        slotSignal = Arrays.copyOf(slotSignal, capacity);
+        slotQuality = Arrays.copyOf(slotQuality, capacity);
+        slotChannel = Arrays.copyOf(slotChannel, capacity);
+        slotSecurity = Arrays.copyOf(slotSecurity, capacity);
+        slotMinute = Arrays.copyOf(slotMinute, capacity);
+    }
+}
@@ -0,0 +1,35 @@
+package br.unitins.repository;
+
+import br.unitins.util.LongIntHashMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// IDs das tabelas de dimensão (bssid e ssid) já conhecidos neste processo. Os IDs
+// nunca mudam depois de criados, então o cache só cresce e não precisa invalidação.
+class DimensionCache {
+    
+    static final int MISSING = 0;
+    
+    private final LongIntHashMap bssidIds = new LongIntHashMap(1024, MISSING);
+    private final Map<String, Integer> ssidIds = new HashMap<>();
+    
+    synchronized int bssidId(long mac) {
+        return bssidIds.get(mac);
+    }
+    
+    synchronized void putBssid(long mac, int id) {
+        bssidIds.put(mac, id);
+    }
+    
+    synchronized int ssidId(String ssid) {
+        return ssidIds.getOrDefault(ssid, MISSING);
+    }
+    
+    synchronized void putSsid(String ssid, int id) {
+        ssidIds.put(ssid, id);
+    }
+    
+    synchronized int size() {
+        return bssidIds.size() + ssidIds.size();
+    }
+}
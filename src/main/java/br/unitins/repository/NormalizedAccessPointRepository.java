@@ -0,0 +1,330 @@
+package br.unitins.repository;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import br.unitins.util.DatabaseConnection;
+import br.unitins.util.MacAddress;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Armazenamento normalizado: MAC e SSID ficam uma única vez nas tabelas bssid e ssid,
+// e cada observação em ap_observations guarda só IDs e campos numéricos pequenos
+// (cerca de 26 bytes contra mais de 100 na tabela access_points). Os IDs são
+// resolvidos por um cache em memória; só valores nunca vistos vão ao banco.
+public class NormalizedAccessPointRepository extends AccessPointRepository {
+
+    private static final String FACT_INSERT_PREFIX = """
+        INSERT INTO ap_observations
+        (scan_time, bssid_id, ssid_id, signal_level, quality_link, channel_number,
+         frequency_mhz, last_beacon, beacon_interval, wifi_security)
+        VALUES""";
+
+    private static final String FACT_ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FACT_UPSERT_SUFFIX = """
+
+        ON DUPLICATE KEY UPDATE
+        ssid_id = VALUES(ssid_id),
+        signal_level = VALUES(signal_level),
+        quality_link = VALUES(quality_link),
+        channel_number = VALUES(channel_number),
+        frequency_mhz = VALUES(frequency_mhz),
+        last_beacon = VALUES(last_beacon),
+        beacon_interval = VALUES(beacon_interval),
+        wifi_security = VALUES(wifi_security)
+        """;
+
+    private static final String SELECT_OBSERVATIONS = """
+        SELECT b.mac, s.name AS ssid, o.scan_time, o.signal_level, o.quality_link,
+               o.channel_number, o.frequency_mhz, o.last_beacon, o.beacon_interval, o.wifi_security
+        FROM ap_observations o
+        JOIN bssid b ON b.id = o.bssid_id
+        LEFT JOIN ssid s ON s.id = o.ssid_id
+        """;
+
+    private static final String FULL_FACT_CHUNK_SQL = buildFactUpsertSql(DatabaseConfig.INSERT_CHUNK_SIZE);
+
+    private final DimensionCache dimensions = new DimensionCache();
+
+    @Override
+    protected void prepareWrite(Connection conn, ScanBatch batch, int[] rows) throws SQLException {
+        resolveDimensions(conn, batch, rows, rows.length);
+    }
+
+    @Override
+    protected String chunkSql(int rows) {
+        return rows == DatabaseConfig.INSERT_CHUNK_SIZE ? FULL_FACT_CHUNK_SQL : buildFactUpsertSql(rows);
+    }
+
+    // Cria (INSERT IGNORE) e carrega no cache os MACs e SSIDs do lote ainda sem ID.
+    // Fora da transação dos fatos: uma dimensão criada nunca precisa ser desfeita.
+    private void resolveDimensions(Connection conn, ScanBatch batch, int[] pending, int count) throws SQLException {
+        Set<Long> newMacs = new LinkedHashSet<>();
+        Set<String> newSsids = new LinkedHashSet<>();
+        for (int k = 0; k < count; k++) {
+            int i = pending[k];
+            if (dimensions.bssidId(batch.getMac(i)) == DimensionCache.MISSING) {
+                newMacs.add(batch.getMac(i));
+            }
+            String ssid = batch.getSsid(i);
+            if (ssid != null && dimensions.ssidId(ssid) == DimensionCache.MISSING) {
+                newSsids.add(ssid);
+            }
+        }
+
+        List<Long> macs = new ArrayList<>(newMacs);
+        for (int from = 0; from < macs.size(); from += DatabaseConfig.INSERT_CHUNK_SIZE) {
+            List<Long> chunk = macs.subList(from, Math.min(macs.size(), from + DatabaseConfig.INSERT_CHUNK_SIZE));
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT IGNORE INTO bssid (mac) VALUES " + placeholders("(?)", chunk.size()))) {
+                for (int p = 0; p < chunk.size(); p++) {
+                    stmt.setLong(p + 1, chunk.get(p));
+                }
+                stmt.executeUpdate();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT id, mac FROM bssid WHERE mac IN (" + placeholders("?", chunk.size()) + ")")) {
+                for (int p = 0; p < chunk.size(); p++) {
+                    stmt.setLong(p + 1, chunk.get(p));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        dimensions.putBssid(rs.getLong("mac"), rs.getInt("id"));
+                    }
+                }
+            }
+        }
+
+        List<String> ssids = new ArrayList<>(newSsids);
+        for (int from = 0; from < ssids.size(); from += DatabaseConfig.INSERT_CHUNK_SIZE) {
+            List<String> chunk = ssids.subList(from, Math.min(ssids.size(), from + DatabaseConfig.INSERT_CHUNK_SIZE));
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT IGNORE INTO ssid (name) VALUES " + placeholders("(?)", chunk.size()))) {
+                for (int p = 0; p < chunk.size(); p++) {
+                    stmt.setString(p + 1, chunk.get(p));
+                }
+                stmt.executeUpdate();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT id, name FROM ssid WHERE name IN (" + placeholders("?", chunk.size()) + ")")) {
+                for (int p = 0; p < chunk.size(); p++) {
+                    stmt.setString(p + 1, chunk.get(p));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        dimensions.putSsid(rs.getString("name"), rs.getInt("id"));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void bindChunk(PreparedStatement stmt, ScanBatch batch, int[] pending,
+                             int offset, int rows) throws SQLException {
+        int p = 1;
+        for (int k = offset; k < offset + rows; k++) {
+            int i = pending[k];
+            String ssid = batch.getSsid(i);
+
+            stmt.setTimestamp(p++, new Timestamp(minuteOf(batch.getScanEpochSecond(i)) * 1000));
+            stmt.setInt(p++, requireBssidId(batch.getMac(i)));
+            if (ssid == null) {
+                stmt.setNull(p++, Types.INTEGER);
+            } else {
+                stmt.setInt(p++, requireSsidId(ssid));
+            }
+            stmt.setInt(p++, batch.getSignalLevel(i));
+            stmt.setInt(p++, batch.getQualityLink(i));
+            stmt.setInt(p++, batch.getChannel(i));
+            stmt.setInt(p++, batch.getFrequencyMhz(i));
+            stmt.setLong(p++, batch.getLastBeacon(i));
+            stmt.setInt(p++, batch.getBeaconInterval(i));
+            stmt.setInt(p++, batch.getSecurity(i).ordinal());
+        }
+    }
+
+    // Um ID ausente aqui gravaria o fato apontando para a dimensão 0 (inexistente):
+    // melhor falhar o lote, que o write-behind trata como erro permanente
+    private int requireBssidId(long mac) throws SQLException {
+        int id = dimensions.bssidId(mac);
+        if (id == DimensionCache.MISSING) {
+            throw new SQLException("BSSID " + MacAddress.format(mac) + " sem id na tabela bssid");
+        }
+        return id;
+    }
+
+    private int requireSsidId(String ssid) throws SQLException {
+        int id = dimensions.ssidId(ssid);
+        if (id == DimensionCache.MISSING) {
+            throw new SQLException("SSID '" + ssid + "' sem id na tabela ssid");
+        }
+        return id;
+    }
+
+    private static String buildFactUpsertSql(int rows) {
+        return FACT_INSERT_PREFIX + " " + placeholders(FACT_ROW_PLACEHOLDERS, rows) + FACT_UPSERT_SUFFIX;
+    }
+
+    private static String placeholders(String group, int count) {
+        StringBuilder sb = new StringBuilder(count * (group.length() + 2));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(group);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public List<AccessPoint> getLatestAccessPoints() throws SQLException {
+        String sql = SELECT_OBSERVATIONS + """
+            JOIN (
+                SELECT bssid_id, MAX(scan_time) AS scan_time
+                FROM ap_observations
+                GROUP BY bssid_id
+            ) latest ON latest.bssid_id = o.bssid_id AND latest.scan_time = o.scan_time
+            WHERE o.signal_level <> %d
+            ORDER BY o.quality_link DESC
+            """.formatted(ScanBatch.TOMBSTONE_SIGNAL);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            return readObservations(stmt);
+        }
+    }
+
+    @Override
+    protected List<AccessPoint> queryAccessPointsByTime(LocalDateTime startTime, LocalDateTime endTime)
+            throws SQLException {
+        String sql = SELECT_OBSERVATIONS + """
+            WHERE o.scan_time BETWEEN ? AND ?
+            ORDER BY o.scan_time DESC, o.quality_link DESC
+            """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(startTime));
+            stmt.setTimestamp(2, Timestamp.valueOf(endTime));
+
+            return readObservations(stmt);
+        }
+    }
+
+    // A chave de desempate da paginação é bssid_id, parte da chave primária (scan_time, bssid_id)
+    @Override
+    protected String keysetSql() {
+        return """
+            SELECT o.bssid_id AS row_key, b.mac, s.name AS ssid, o.scan_time, o.signal_level,
+                   o.quality_link, o.channel_number, o.frequency_mhz, o.last_beacon,
+                   o.beacon_interval, o.wifi_security
+            FROM ap_observations o
+            JOIN bssid b ON b.id = o.bssid_id
+            LEFT JOIN ssid s ON s.id = o.ssid_id
+            WHERE o.scan_time >= ? AND o.scan_time <= ?
+            AND (o.scan_time > ? OR o.bssid_id > ?)
+            AND o.signal_level <> %d
+            ORDER BY o.scan_time, o.bssid_id
+            """.formatted(ScanBatch.TOMBSTONE_SIGNAL);
+    }
+
+    @Override
+    protected AccessPoint mapRow(ResultSet rs) throws SQLException {
+        AccessPoint ap = new AccessPoint();
+        ap.setSsid(rs.getString("ssid"));
+        ap.setMacAddress(MacAddress.format(rs.getLong("mac")));
+        ap.setQualityLink(rs.getInt("quality_link"));
+        ap.setSignalLevel(rs.getInt("signal_level"));
+        ap.setChannel(rs.getInt("channel_number"));
+        ap.setFrequency(rs.getInt("frequency_mhz") / 1000.0);
+        ap.setLastBeacon(rs.getLong("last_beacon"));
+        ap.setBeaconInterval(rs.getInt("beacon_interval"));
+        ap.setWifiSecurity(WifiSecurity.fromOrdinal(rs.getInt("wifi_security")).getLabel());
+        ap.setScanTime(rs.getTimestamp("scan_time").toLocalDateTime());
+        return ap;
+    }
+
+    @Override
+    protected String rawRollupSql() {
+        return """
+            SELECT b.mac, MAX(s.name) AS ssid,
+                   MIN(o.signal_level) AS min_signal, MAX(o.signal_level) AS max_signal,
+                   SUM(o.signal_level) AS signal_sum, SUM(o.quality_link) AS quality_sum,
+                   COUNT(*) AS sample_count, GROUP_CONCAT(DISTINCT o.channel_number) AS channels,
+                   MIN(o.scan_time) AS first_seen, MAX(o.scan_time) AS last_seen
+            FROM ap_observations o
+            JOIN bssid b ON b.id = o.bssid_id
+            LEFT JOIN ssid s ON s.id = o.ssid_id
+            WHERE o.scan_time >= ? AND o.scan_time < ? AND o.signal_level <> %d
+            GROUP BY b.mac
+            """.formatted(ScanBatch.TOMBSTONE_SIGNAL);
+    }
+
+    // Dimensões não são apagadas: ficam pequenas e os IDs continuam válidos no cache
+    @Override
+    public void cleanOldRecords(int daysToKeep) throws SQLException {
+        String sql = "DELETE FROM ap_observations WHERE scan_time < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDate.now().minusDays(daysToKeep).atStartOfDay()));
+            int deletedRows = stmt.executeUpdate();
+
+            if (deletedRows > 0) {
+                System.out.println("Removidos " + deletedRows + " registros antigos do banco de dados.");
+            }
+        }
+    }
+
+    // O particionamento por dia se aplica apenas à tabela access_points
+    @Override
+    public void maintainPartitions(int daysAhead) {
+    }
+
+    // A chave primária (scan_time, bssid_id) já impede duplicatas por minuto
+    @Override
+    public int removeDuplicatesInIdRange(long afterId, long upToId) {
+        return 0;
+    }
+
+    @Override
+    public long getMaxId() {
+        return 0;
+    }
+
+    private static List<AccessPoint> readObservations(PreparedStatement stmt) throws SQLException {
+        ScanBatch batch = new ScanBatch();
+
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                batch.add(rs.getLong("mac"),
+                        rs.getString("ssid"),
+                        ScanBatch.toEpochSecond(rs.getTimestamp("scan_time").toLocalDateTime()),
+                        rs.getInt("signal_level"),
+                        rs.getInt("quality_link"),
+                        rs.getInt("channel_number"),
+                        rs.getInt("frequency_mhz"),
+                        rs.getInt("last_beacon"),
+                        rs.getInt("beacon_interval"),
+                        WifiSecurity.fromOrdinal(rs.getInt("wifi_security")));
+            }
+        }
+
+        return batch.toAccessPoints();
+    }
+}
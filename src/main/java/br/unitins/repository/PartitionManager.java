@@ -0,0 +1,147 @@
+package br.unitins.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Particionamento RANGE por dia da tabela access_points. Cada partição pNNNNNNNN
+// guarda um dia [00:00, 00:00 do dia seguinte); p_future (MAXVALUE) recebe o que
+// estiver além da última partição diária. A retenção remove partições inteiras.
+public class PartitionManager {
+
+    private static final String TABLE = "access_points";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    public static boolean isPartitioned(Connection conn) throws SQLException {
+        return !listDailyPartitions(conn).isEmpty();
+    }
+
+    public static boolean isEmpty(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM " + TABLE + " LIMIT 1")) {
+            return !rs.next();
+        }
+    }
+
+    // A chave primária precisa conter scan_time para particionar; a migração 2 só a troca
+    // com a tabela vazia
+    public static boolean hasTimePrimaryKey(Connection conn) throws SQLException {
+        String sql = """
+            SELECT 1 FROM information_schema.STATISTICS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'access_points'
+            AND INDEX_NAME = 'PRIMARY' AND COLUMN_NAME = 'scan_time'
+            """;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next();
+        }
+    }
+
+    // Converte a tabela (operação única, reescreve os dados) criando um dia por partição
+    // desde o registro mais antigo até daysAhead dias no futuro. A troca da chave
+    // primária, se ainda pendente, vai no mesmo ALTER: uma só reescrita
+    public static void partitionTable(Connection conn, int daysAhead) throws SQLException {
+        LocalDate today = LocalDate.now();
+        LocalDate first = today;
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT DATE(MIN(scan_time)) FROM " + TABLE)) {
+            if (rs.next() && rs.getDate(1) != null) {
+                LocalDate oldest = rs.getDate(1).toLocalDate();
+                first = oldest.isBefore(today) ? oldest : today;
+            }
+        }
+
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate day = first; !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            definitions.add(definition(day));
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+
+        String primaryKey = hasTimePrimaryKey(conn) ? "" : " DROP PRIMARY KEY, ADD PRIMARY KEY (id, scan_time)";
+
+        System.out.println("Particionando " + TABLE + " por dia (" + (definitions.size() - 1) + " particoes)...");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + TABLE + primaryKey
+                    + " PARTITION BY RANGE (UNIX_TIMESTAMP(scan_time)) (" + String.join(", ", definitions) + ")");
+        }
+    }
+
+    // Garante partições diárias até hoje + daysAhead, dividindo a p_future (vazia na prática)
+    public static int ensureFuturePartitions(Connection conn, int daysAhead) throws SQLException {
+        List<LocalDate> days = listDailyPartitions(conn);
+        if (days.isEmpty()) {
+            return 0;
+        }
+
+        LocalDate last = days.get(days.size() - 1);
+        LocalDate target = LocalDate.now().plusDays(daysAhead);
+        if (!last.isBefore(target)) {
+            return 0;
+        }
+
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate day = last.plusDays(1); !day.isAfter(target); day = day.plusDays(1)) {
+            definitions.add(definition(day));
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION
+                    + " INTO (" + String.join(", ", definitions) + ")");
+        }
+        return definitions.size() - 1;
+    }
+
+    // Remove as partições de dias anteriores a firstDayToKeep; custo constante por partição
+    public static int dropPartitionsBefore(Connection conn, LocalDate firstDayToKeep) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (LocalDate day : listDailyPartitions(conn)) {
+            if (day.isBefore(firstDayToKeep)) {
+                names.add(day.format(NAME_FORMAT));
+            }
+        }
+
+        if (names.isEmpty()) {
+            return 0;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", names));
+        }
+        return names.size();
+    }
+
+    // Dias das partições diárias existentes, em ordem crescente
+    public static List<LocalDate> listDailyPartitions(Connection conn) throws SQLException {
+        String sql = """
+            SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'access_points'
+            AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """;
+
+        List<LocalDate> days = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (!FUTURE_PARTITION.equals(name)) {
+                    days.add(LocalDate.parse(name, NAME_FORMAT));
+                }
+            }
+        }
+        return days;
+    }
+
+    private static String definition(LocalDate day) {
+        return "PARTITION " + day.format(NAME_FORMAT)
+                + " VALUES LESS THAN (UNIX_TIMESTAMP('" + day.plusDays(1) + " 00:00:00'))";
+    }
+}
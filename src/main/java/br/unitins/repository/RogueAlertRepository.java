@@ -0,0 +1,81 @@
+package br.unitins.repository;
+
+import br.unitins.model.RogueAlert;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import br.unitins.util.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Alertas de AP suspeito (tabela rogue_alerts). Os alertas são raros, então cada
+// gravação é um único INSERT de várias linhas.
+public class RogueAlertRepository {
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?)";
+
+    public void saveAlerts(List<RogueAlert> alerts) throws SQLException {
+        if (alerts.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO rogue_alerts (detected_at, alert_type, ssid, mac, wifi_security, details) VALUES ");
+        for (int i = 0; i < alerts.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int p = 1;
+            for (RogueAlert alert : alerts) {
+                stmt.setTimestamp(p++, Timestamp.valueOf(alert.getDetectedAt()));
+                stmt.setString(p++, alert.getType().name());
+                stmt.setString(p++, alert.getSsid());
+                stmt.setLong(p++, alert.getMac());
+                stmt.setInt(p++, alert.getSecurity().ordinal());
+                stmt.setString(p++, alert.getDetails());
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    public List<RogueAlert> getAlertsByTime(LocalDateTime startTime, LocalDateTime endTime) throws SQLException {
+        String sql = """
+            SELECT detected_at, alert_type, ssid, mac, wifi_security, details
+            FROM rogue_alerts
+            WHERE detected_at BETWEEN ? AND ?
+            ORDER BY detected_at DESC, id DESC
+            """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(startTime));
+            stmt.setTimestamp(2, Timestamp.valueOf(endTime));
+
+            List<RogueAlert> alerts = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    alerts.add(new RogueAlert(
+                            RogueAlert.Type.valueOf(rs.getString("alert_type")),
+                            rs.getString("ssid"),
+                            rs.getLong("mac"),
+                            WifiSecurity.fromOrdinal(rs.getInt("wifi_security")),
+                            ScanBatch.toEpochSecond(rs.getTimestamp("detected_at").toLocalDateTime()),
+                            rs.getString("details")));
+                }
+            }
+            return alerts;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package br.unitins.repository;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.ScanBatch;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Atualiza os resumos por hora e por dia com as linhas recém-gravadas de um lote,
+// dentro da mesma transação da gravação: o resumo nunca conta uma linha desfeita.
+// O lote é agregado em memória antes, então cada (BSSID, hora) vira uma única linha
+// no upsert, não importa quantas observações o lote tenha.
+//
+// Cada linha por hora guarda em minute_mask os minutos já somados (bit N = minuto N).
+// Antes de somar, os masks das linhas tocadas são lidos com FOR UPDATE, e minutos já
+// presentes são ignorados: regravar um lote (reenvio do spill, reinício do processo)
+// não conta a mesma observação duas vezes, nem na hora nem no dia. Marcadores de AP
+// que sumiu (modo "change-only") não são observações e ficam fora dos resumos.
+//
+// O histórico gravado antes dos resumos existirem é agregado por backfill, um trecho
+// por vez, com o mesmo upsert aditivo: os trechos não se sobrepõem às gravações ao vivo.
+final class RollupWriter {
+
+    static final String HOURLY_TABLE = "ap_rollup_hourly";
+    static final String DAILY_TABLE = "ap_rollup_daily";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String HOURLY_ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // A ordem importa: ssid é decidido antes de last_seen ser atualizado, e os canais
+    // chegam um por linha agregada, então FIND_IN_SET basta para evitar repetição. As
+    // colunas levam o nome da tabela: no backfill (INSERT ... SELECT) a tabela bruta
+    // também tem ssid. minute_mask por último: as condições acima não dependem dele
+    private static final String UPSERT_SUFFIX = """
+
+        ON DUPLICATE KEY UPDATE
+        %1$s.ssid = IF(VALUES(last_seen) >= %1$s.last_seen, VALUES(ssid), %1$s.ssid),
+        %1$s.min_signal = LEAST(%1$s.min_signal, VALUES(min_signal)),
+        %1$s.max_signal = GREATEST(%1$s.max_signal, VALUES(max_signal)),
+        %1$s.signal_sum = %1$s.signal_sum + VALUES(signal_sum),
+        %1$s.quality_sum = %1$s.quality_sum + VALUES(quality_sum),
+        %1$s.sample_count = %1$s.sample_count + VALUES(sample_count),
+        %1$s.channels = IF(FIND_IN_SET(VALUES(channels), %1$s.channels), %1$s.channels,
+                           CONCAT(%1$s.channels, ',', VALUES(channels))),
+        %1$s.first_seen = LEAST(%1$s.first_seen, VALUES(first_seen)),
+        %1$s.last_seen = GREATEST(%1$s.last_seen, VALUES(last_seen))
+        """;
+
+    private static final String MASK_UPSERT = """
+        ,
+        %1$s.minute_mask = %1$s.minute_mask | VALUES(minute_mask)
+        """;
+
+    private static final String COLUMNS = "(bucket_start, mac, ssid, min_signal, max_signal, signal_sum, quality_sum,"
+            + " sample_count, channels, first_seen, last_seen";
+
+    // Agregação das linhas brutas de [início, fim) por (intervalo, BSSID), nos dois
+    // modos de armazenamento em banco (a tabela do modo não usado fica vazia)
+    private static final String[] BACKFILL_SELECTS = {
+        """
+        SELECT %s, CONV(REPLACE(mac_address, ':', ''), 16, 10),
+               MAX(ssid), MIN(signal_level), MAX(signal_level), SUM(signal_level), SUM(quality_link),
+               COUNT(*), GROUP_CONCAT(DISTINCT channel_number), MIN(scan_time), MAX(scan_time)%s
+        FROM access_points
+        WHERE scan_time >= ? AND scan_time < ? AND signal_level <> %d
+        GROUP BY 1, 2
+        """,
+        """
+        SELECT %s, b.mac,
+               MAX(s.name), MIN(o.signal_level), MAX(o.signal_level), SUM(o.signal_level), SUM(o.quality_link),
+               COUNT(*), GROUP_CONCAT(DISTINCT o.channel_number), MIN(o.scan_time), MAX(o.scan_time)%s
+        FROM ap_observations o
+        JOIN bssid b ON b.id = o.bssid_id
+        LEFT JOIN ssid s ON s.id = o.ssid_id
+        WHERE o.scan_time >= ? AND o.scan_time < ? AND o.signal_level <> %d
+        GROUP BY 1, 2
+        """
+    };
+
+    private RollupWriter() {}
+
+    // Observações anteriores a backfillBefore (epoch; 0 = nenhuma) ficam para o backfill
+    static void apply(Connection conn, ScanBatch batch, int[] pending, int count, long backfillBefore)
+            throws SQLException {
+        Map<HourKey, Long> masks = readMinuteMasks(conn, batch, pending, count, backfillBefore);
+        Map<Key, Aggregate> hourly = new LinkedHashMap<>();
+        Map<Key, Aggregate> daily = new LinkedHashMap<>();
+
+        // Um lote costuma ter um único instante de varredura: converter só quando muda
+        long cachedMinute = Long.MIN_VALUE;
+        LocalDateTime minuteTime = null;
+        LocalDateTime hour = null;
+        LocalDateTime day = null;
+        long minuteBit = 0;
+
+        for (int k = 0; k < count; k++) {
+            int i = pending[k];
+            long minute = AccessPointRepository.minuteOf(batch.getScanEpochSecond(i));
+            if (batch.isTombstone(i) || minute < backfillBefore) {
+                continue;
+            }
+            if (minute != cachedMinute) {
+                cachedMinute = minute;
+                minuteTime = ScanBatch.toLocalDateTime(minute);
+                hour = minuteTime.truncatedTo(ChronoUnit.HOURS);
+                day = minuteTime.truncatedTo(ChronoUnit.DAYS);
+                minuteBit = 1L << minuteTime.getMinute();
+            }
+
+            long mac = batch.getMac(i);
+            HourKey hourKey = new HourKey(hour, mac);
+            long mask = masks.getOrDefault(hourKey, 0L);
+            if ((mask & minuteBit) != 0) {
+                continue; // Minuto já somado por uma gravação anterior
+            }
+            masks.put(hourKey, mask | minuteBit);
+
+            int channel = batch.getChannel(i);
+            hourly.computeIfAbsent(new Key(hour, mac, channel), key -> new Aggregate())
+                    .add(batch, i, minuteTime, minuteBit);
+            daily.computeIfAbsent(new Key(day, mac, channel), key -> new Aggregate())
+                    .add(batch, i, minuteTime, minuteBit);
+        }
+
+        upsert(conn, HOURLY_TABLE, hourly, true);
+        upsert(conn, DAILY_TABLE, daily, false);
+    }
+
+    // Soma aos resumos as linhas brutas de [from, to). O chamador garante que o trecho
+    // ainda não foi somado e que nenhuma gravação ao vivo cai nele
+    static void backfill(Connection conn, LocalDateTime from, LocalDateTime to) throws SQLException {
+        String[] timeColumns = {"scan_time", "o.scan_time"};
+        for (int k = 0; k < BACKFILL_SELECTS.length; k++) {
+            String time = timeColumns[k];
+            String hourly = BACKFILL_SELECTS[k].formatted("DATE_FORMAT(" + time + ", '%Y-%m-%d %H:00:00')",
+                    ", BIT_OR(1 << MINUTE(" + time + "))", ScanBatch.TOMBSTONE_SIGNAL);
+            String daily = BACKFILL_SELECTS[k].formatted("DATE(" + time + ")", "", ScanBatch.TOMBSTONE_SIGNAL);
+
+            executeBackfill(conn, "INSERT INTO " + HOURLY_TABLE + " " + COLUMNS + ", minute_mask) "
+                    + hourly + upsertSuffix(HOURLY_TABLE, true), from, to);
+            executeBackfill(conn, "INSERT INTO " + DAILY_TABLE + " " + COLUMNS + ") "
+                    + daily + upsertSuffix(DAILY_TABLE, false), from, to);
+        }
+    }
+
+    private static void executeBackfill(Connection conn, String sql, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            stmt.executeUpdate();
+        }
+    }
+
+    // Masks atuais das linhas (hora, BSSID) tocadas pelo lote, travadas até o commit
+    private static Map<HourKey, Long> readMinuteMasks(Connection conn, ScanBatch batch, int[] pending, int count,
+                                                      long backfillBefore) throws SQLException {
+        Map<LocalDateTime, Set<Long>> macsByHour = new LinkedHashMap<>();
+        long cachedMinute = Long.MIN_VALUE;
+        Set<Long> macs = null;
+        for (int k = 0; k < count; k++) {
+            int i = pending[k];
+            long minute = AccessPointRepository.minuteOf(batch.getScanEpochSecond(i));
+            if (batch.isTombstone(i) || minute < backfillBefore) {
+                continue;
+            }
+            if (minute != cachedMinute) {
+                cachedMinute = minute;
+                LocalDateTime hour = ScanBatch.toLocalDateTime(minute).truncatedTo(ChronoUnit.HOURS);
+                macs = macsByHour.computeIfAbsent(hour, h -> new LinkedHashSet<>());
+            }
+            macs.add(batch.getMac(i));
+        }
+
+        Map<HourKey, Long> masks = new HashMap<>();
+        int chunkSize = DatabaseConfig.INSERT_CHUNK_SIZE;
+        for (Map.Entry<LocalDateTime, Set<Long>> entry : macsByHour.entrySet()) {
+            List<Long> hourMacs = new ArrayList<>(entry.getValue());
+            for (int from = 0; from < hourMacs.size(); from += chunkSize) {
+                List<Long> chunk = hourMacs.subList(from, Math.min(hourMacs.size(), from + chunkSize));
+                String sql = "SELECT mac, minute_mask FROM " + HOURLY_TABLE + " WHERE bucket_start = ? AND mac IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") FOR UPDATE";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setTimestamp(1, Timestamp.valueOf(entry.getKey()));
+                    for (int p = 0; p < chunk.size(); p++) {
+                        stmt.setLong(p + 2, chunk.get(p));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            masks.put(new HourKey(entry.getKey(), rs.getLong("mac")), rs.getLong("minute_mask"));
+                        }
+                    }
+                }
+            }
+        }
+        return masks;
+    }
+
+    private static void upsert(Connection conn, String table, Map<Key, Aggregate> rows, boolean withMask)
+            throws SQLException {
+        List<Map.Entry<Key, Aggregate>> entries = new ArrayList<>(rows.entrySet());
+        int chunkSize = DatabaseConfig.INSERT_CHUNK_SIZE;
+
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            List<Map.Entry<Key, Aggregate>> chunk = entries.subList(from, Math.min(entries.size(), from + chunkSize));
+
+            try (PreparedStatement stmt = conn.prepareStatement(buildUpsertSql(table, chunk.size(), withMask))) {
+                int p = 1;
+                for (Map.Entry<Key, Aggregate> entry : chunk) {
+                    Key key = entry.getKey();
+                    Aggregate agg = entry.getValue();
+
+                    stmt.setTimestamp(p++, Timestamp.valueOf(key.bucket()));
+                    stmt.setLong(p++, key.mac());
+                    stmt.setString(p++, agg.ssid);
+                    stmt.setInt(p++, agg.minSignal);
+                    stmt.setInt(p++, agg.maxSignal);
+                    stmt.setLong(p++, agg.signalSum);
+                    stmt.setLong(p++, agg.qualitySum);
+                    stmt.setInt(p++, agg.sampleCount);
+                    stmt.setString(p++, String.valueOf(key.channel()));
+                    stmt.setTimestamp(p++, Timestamp.valueOf(agg.firstSeen));
+                    stmt.setTimestamp(p++, Timestamp.valueOf(agg.lastSeen));
+                    if (withMask) {
+                        stmt.setLong(p++, agg.minuteMask);
+                    }
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    private static String upsertSuffix(String table, boolean withMask) {
+        String suffix = withMask ? UPSERT_SUFFIX.stripTrailing() + MASK_UPSERT : UPSERT_SUFFIX;
+        return suffix.formatted(table);
+    }
+
+    private static String buildUpsertSql(String table, int rows, boolean withMask) {
+        String placeholders = withMask ? HOURLY_ROW_PLACEHOLDERS : ROW_PLACEHOLDERS;
+        String suffix = upsertSuffix(table, withMask);
+        StringBuilder sql = new StringBuilder(200 + rows * (placeholders.length() + 2) + suffix.length());
+        sql.append("INSERT INTO ").append(table).append(' ').append(COLUMNS)
+           .append(withMask ? ", minute_mask) VALUES " : ") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        return sql.append(suffix).toString();
+    }
+
+    private record Key(LocalDateTime bucket, long mac, int channel) {}
+
+    private record HourKey(LocalDateTime hour, long mac) {}
+
+    private static final class Aggregate {
+        private String ssid;
+        private int minSignal = Integer.MAX_VALUE;
+        private int maxSignal = Integer.MIN_VALUE;
+        private long signalSum;
+        private long qualitySum;
+        private int sampleCount;
+        private LocalDateTime firstSeen;
+        private LocalDateTime lastSeen;
+        private long minuteMask;
+
+        private void add(ScanBatch batch, int i, LocalDateTime time, long minuteBit) {
+            int signal = batch.getSignalLevel(i);
+            minSignal = Math.min(minSignal, signal);
+            maxSignal = Math.max(maxSignal, signal);
+            signalSum += signal;
+            qualitySum += batch.getQualityLink(i);
+            sampleCount++;
+            minuteMask |= minuteBit;
+            if (firstSeen == null || time.isBefore(firstSeen)) {
+                firstSeen = time;
+            }
+            if (lastSeen == null || !time.isBefore(lastSeen)) {
+                lastSeen = time;
+                ssid = batch.getSsid(i);
+            }
+        }
+    }
+}
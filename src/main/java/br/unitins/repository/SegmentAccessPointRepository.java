@@ -0,0 +1,300 @@
+package br.unitins.repository;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.AccessPoint;
+import br.unitins.model.AccessPointPage;
+import br.unitins.model.AccessPointRollup;
+import br.unitins.model.ScanBatch;
+import br.unitins.repository.segment.SegmentStore;
+import br.unitins.util.LongHashSet;
+import br.unitins.util.MacAddress;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Backend sem banco externo: as observações vão para o SegmentStore local. Os erros de
+// E/S são repassados como SQLException para manter o contrato do repositório, de modo
+// que o write-behind e o serviço tratam falhas igual aos outros modos.
+public class SegmentAccessPointRepository extends AccessPointRepository {
+
+    private static final Comparator<AccessPoint> BY_TIME_DESC_QUALITY_DESC =
+            Comparator.comparing(AccessPoint::getScanTime).reversed()
+                    .thenComparing(Comparator.comparingInt(AccessPoint::getQualityLink).reversed());
+
+    private final SegmentStore store;
+
+    // Minutos depois do último gravado antes desta execução: para eles o cache de
+    // (mac, minuto) do processo é completo. Minutos anteriores (reinício no meio do
+    // minuto, reenvio de lote antigo do spill) ou fora da janela do cache são
+    // conferidos nos próprios segmentos antes de anexar.
+    private final long firstUntouchedMinute;
+    private long lastWrittenMinute = Long.MIN_VALUE;
+
+    public SegmentAccessPointRepository() {
+        this(Path.of(DatabaseConfig.SEGMENT_DIR));
+    }
+
+    public SegmentAccessPointRepository(Path directory) {
+        try {
+            this.store = new SegmentStore(directory, DatabaseConfig.SEGMENT_SIZE_MB * 1024 * 1024,
+                    DatabaseConfig.SEGMENT_FORCE_WRITES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir segmentos em " + directory, e);
+        }
+        long maxStored = store.getMaxMinuteEpochSecond();
+        this.firstUntouchedMinute = maxStored == Long.MIN_VALUE ? Long.MIN_VALUE : maxStored + 60;
+    }
+
+    @Override
+    protected void writeBatch(ScanBatch batch, boolean live) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int[] pending = new int[batch.size()];
+        int count = selectUnwritten(batch, pending);
+        count = dropAlreadyStored(batch, pending, count);
+        if (count == 0) {
+            return;
+        }
+
+        int[] rows = live ? selectChanged(batch, pending, count) : Arrays.copyOf(pending, count);
+
+        // Mesmo truncamento ao minuto dos outros modos
+        long[] scanMinutes = new long[rows.length];
+        for (int k = 0; k < rows.length; k++) {
+            scanMinutes[k] = minuteOf(batch.getScanEpochSecond(rows[k]));
+        }
+
+        try {
+            store.append(batch, rows, scanMinutes, rows.length);
+        } catch (IOException e) {
+            throw new SQLException("Erro ao gravar segmento: " + e.getMessage(), e);
+        }
+
+        markWritten(batch, pending, count, rows, live);
+        for (int k = 0; k < count; k++) {
+            lastWrittenMinute = Math.max(lastWrittenMinute, minuteOf(batch.getScanEpochSecond(pending[k])));
+        }
+    }
+
+    // Remove de pending os (mac, minuto) que já estão nos segmentos, para os minutos que
+    // o cache em memória não cobre. O índice por minuto limita a leitura a esse trecho.
+    private int dropAlreadyStored(ScanBatch batch, int[] pending, int count) {
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (int k = 0; k < count; k++) {
+            long minute = minuteOf(batch.getScanEpochSecond(pending[k]));
+            if (needsStoreCheck(minute)) {
+                from = Math.min(from, minute);
+                to = Math.max(to, minute);
+            }
+        }
+        if (from > to) {
+            return count;
+        }
+
+        Map<Long, LongHashSet> stored = new HashMap<>();
+        store.scan(from, to + 59, Long.MIN_VALUE, record -> {
+            stored.computeIfAbsent(record.getScanEpochSecond(), minute -> new LongHashSet(256)).add(record.getMac());
+            return true;
+        });
+
+        int kept = 0;
+        for (int k = 0; k < count; k++) {
+            int i = pending[k];
+            LongHashSet macs = stored.get(minuteOf(batch.getScanEpochSecond(i)));
+            if (macs == null || !macs.contains(batch.getMac(i))) {
+                pending[kept++] = i;
+            }
+        }
+        return kept;
+    }
+
+    // O cache guarda só o minuto corrente e o anterior do que este processo gravou
+    private boolean needsStoreCheck(long minute) {
+        return minute < firstUntouchedMinute
+                || (lastWrittenMinute != Long.MIN_VALUE && minute < lastWrittenMinute - 60);
+    }
+
+    // Sem uma tabela de estado, a última observação vem só do período recente. Um AP
+    // cuja última linha é o marcador de que sumiu fica de fora
+    @Override
+    public List<AccessPoint> getLatestAccessPoints() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, AccessPoint> latest = new HashMap<>();
+
+        store.scan(ScanBatch.toEpochSecond(now.minusHours(DatabaseConfig.SEGMENT_LATEST_LOOKBACK_HOURS)),
+                ScanBatch.toEpochSecond(now), Long.MIN_VALUE, record -> {
+                    AccessPoint current = latest.get(record.getMac());
+                    if (current == null || !record.getScanTime().isBefore(current.getScanTime())) {
+                        latest.put(record.getMac(), record.toAccessPoint());
+                    }
+                    return true;
+                });
+
+        List<AccessPoint> accessPoints = new ArrayList<>(latest.size());
+        for (AccessPoint ap : latest.values()) {
+            if (!CarryForward.isTombstone(ap)) {
+                accessPoints.add(ap);
+            }
+        }
+        accessPoints.sort(Comparator.comparingInt(AccessPoint::getQualityLink).reversed());
+        return accessPoints;
+    }
+
+    // Inclui os marcadores de AP que sumiu, usados na reconstrução
+    @Override
+    protected List<AccessPoint> queryAccessPointsByTime(LocalDateTime startTime, LocalDateTime endTime) {
+        List<AccessPoint> accessPoints = new ArrayList<>();
+        store.scan(ScanBatch.toEpochSecond(startTime), ScanBatch.toEpochSecond(endTime), Long.MIN_VALUE, record -> {
+            accessPoints.add(record.toAccessPoint());
+            return true;
+        });
+        accessPoints.sort(BY_TIME_DESC_QUALITY_DESC);
+        return accessPoints;
+    }
+
+    // Ordem de gravação, que na prática é a ordem de scan_time; sem os marcadores
+    @Override
+    public void forEachAccessPointByTime(LocalDateTime startTime, LocalDateTime endTime,
+                                         Consumer<AccessPoint> consumer) {
+        store.scan(ScanBatch.toEpochSecond(startTime), ScanBatch.toEpochSecond(endTime), Long.MIN_VALUE, record -> {
+            if (record.getSignalLevel() != ScanBatch.TOMBSTONE_SIGNAL) {
+                consumer.accept(record.toAccessPoint());
+            }
+            return true;
+        });
+    }
+
+    // A chave da página é a posição do registro no armazenamento, não (scan_time, id)
+    @Override
+    public AccessPointPage getAccessPointsPage(LocalDateTime startTime, LocalDateTime endTime,
+                                               AccessPointPage previous, int limit) {
+        long after = previous != null ? previous.getLastKey() : Long.MIN_VALUE;
+        if (previous != null && !previous.hasMore()) {
+            return new AccessPointPage(List.of(), previous.getLastScanTime(), after, false);
+        }
+
+        List<AccessPoint> items = new ArrayList<>(limit);
+        long[] last = {after};
+        boolean[] hasMore = {false};
+
+        store.scan(ScanBatch.toEpochSecond(startTime), ScanBatch.toEpochSecond(endTime), after, record -> {
+            if (items.size() == limit) {
+                hasMore[0] = true;
+                return false;
+            }
+            if (record.getSignalLevel() != ScanBatch.TOMBSTONE_SIGNAL) {
+                items.add(record.toAccessPoint());
+            }
+            last[0] = record.getPosition();
+            return true;
+        });
+
+        LocalDateTime lastTime = items.isEmpty() ? startTime : items.get(items.size() - 1).getScanTime();
+        return new AccessPointPage(items, lastTime, last[0], hasMore[0]);
+    }
+
+    // Sem tabelas de resumo, nada a preencher
+    @Override
+    public boolean backfillRollupDay() {
+        return false;
+    }
+    
+    // Sem tabelas de resumo: agrega direto dos segmentos, que já são lidos sem cópia. No
+    // modo "change-only" as linhas são reconstruídas minuto a minuto antes de agregar
+    @Override
+    public List<AccessPointRollup> getRollupsByTime(LocalDateTime startTime, LocalDateTime endTime) {
+        if (isChangeOnly()) {
+            return changeOnlyRollups(startTime, endTime);
+        }
+        Map<Long, AccessPointRollup> byMac = new LinkedHashMap<>();
+        // Resumos usam intervalo semiaberto [início, fim)
+        store.scan(ScanBatch.toEpochSecond(startTime), ScanBatch.toEpochSecond(endTime) - 1, Long.MIN_VALUE, record -> {
+            int signal = record.getSignalLevel();
+            if (signal == ScanBatch.TOMBSTONE_SIGNAL) {
+                return true;
+            }
+            LocalDateTime time = record.getScanTime();
+            AccessPointRollup sample = new AccessPointRollup(MacAddress.format(record.getMac()), record.getSsid(),
+                    signal, signal, signal, record.getQualityLink(), 1,
+                    String.valueOf(record.getChannel()), time, time);
+            byMac.merge(record.getMac(), sample, (current, next) -> {
+                current.merge(next);
+                return current;
+            });
+            return true;
+        });
+
+        List<AccessPointRollup> rollups = new ArrayList<>(byMac.values());
+        rollups.sort(Comparator.comparingDouble(AccessPointRollup::getAvgQuality).reversed());
+        return rollups;
+    }
+
+    private List<AccessPointRollup> changeOnlyRollups(LocalDateTime startTime, LocalDateTime endTime) {
+        Map<String, AccessPointRollup> byMac = new LinkedHashMap<>();
+        if (startTime.isBefore(endTime)) {
+            int heartbeat = DatabaseConfig.CHANGE_HEARTBEAT_MINUTES;
+            List<AccessPoint> stored = queryAccessPointsByTime(startTime.minusMinutes(heartbeat - 1),
+                    endTime.minusSeconds(1));
+            CarryForward.rollup(stored, ScanBatch.toEpochSecond(startTime), ScanBatch.toEpochSecond(endTime),
+                    heartbeat, byMac);
+        }
+
+        List<AccessPointRollup> rollups = new ArrayList<>(byMac.values());
+        rollups.sort(Comparator.comparingDouble(AccessPointRollup::getAvgQuality).reversed());
+        return rollups;
+    }
+
+    // Retenção por segmento inteiro
+    @Override
+    public void cleanOldRecords(int daysToKeep) {
+        int deleted = store.deleteSegmentsBefore(ScanBatch.toEpochSecond(LocalDate.now().minusDays(daysToKeep).atStartOfDay()));
+        if (deleted > 0) {
+            System.out.println("Removidos " + deleted + " segmentos antigos.");
+        }
+    }
+
+    @Override
+    public void maintainPartitions(int daysAhead) {
+    }
+
+    // A gravação já filtra (mac, minuto) repetidos: pelo cache do processo e, para minutos
+    // anteriores a esta execução ou fora da janela do cache, pelos próprios segmentos
+    @Override
+    public int removeDuplicatesInIdRange(long afterId, long upToId) {
+        return 0;
+    }
+
+    @Override
+    public long getMaxId() {
+        return 0;
+    }
+
+    @Override
+    public long getHighWaterMark(String name) {
+        return 0;
+    }
+
+    @Override
+    public void saveHighWaterMark(String name, long value) {
+    }
+
+    @Override
+    public void close() {
+        System.out.println(store);
+        store.close();
+    }
+}
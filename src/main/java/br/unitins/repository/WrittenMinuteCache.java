@@ -0,0 +1,57 @@
+package br.unitins.repository;
+
+import br.unitins.util.LongHashSet;
+
+// Chaves (mac, minuto) já gravadas. Como o tempo só avança, bastam dois conjuntos:
+// o minuto corrente e o anterior (varreduras que terminam logo após a virada).
+class WrittenMinuteCache {
+    
+    private long currentMinute = Long.MIN_VALUE;
+    private LongHashSet current = new LongHashSet(256);
+    private LongHashSet previous = new LongHashSet(256);
+    
+    synchronized boolean contains(long mac, long minuteEpochSecond) {
+        LongHashSet set = setFor(minuteEpochSecond / 60);
+        return set != null && set.contains(mac);
+    }
+    
+    synchronized void add(long mac, long minuteEpochSecond) {
+        long minute = minuteEpochSecond / 60;
+        if (minute > currentMinute) {
+            advanceTo(minute);
+        }
+        LongHashSet set = setFor(minute);
+        if (set != null) {
+            set.add(mac);
+        }
+    }
+    
+    synchronized void clear() {
+        current.clear();
+        previous.clear();
+    }
+    
+    private LongHashSet setFor(long minute) {
+        if (minute == currentMinute) {
+            return current;
+        }
+        if (minute == currentMinute - 1) {
+            return previous;
+        }
+        return null;
+    }
+    
+    private void advanceTo(long minute) {
+        if (minute == currentMinute + 1) {
+            // O conjunto do minuto anterior é reaproveitado como o novo corrente
+            LongHashSet recycled = previous;
+            recycled.clear();
+            previous = current;
+            current = recycled;
+        } else {
+            previous.clear();
+            current.clear();
+        }
+        currentMinute = minute;
+    }
+}
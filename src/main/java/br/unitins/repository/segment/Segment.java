@@ -0,0 +1,157 @@
+package br.unitins.repository.segment;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Arquivo de segmento de tamanho fixo, mapeado em memória. Cabeçalho de 64 bytes
+// (magic, versão, fim confirmado) seguido de registros só-de-anexação. O fim
+// confirmado é gravado depois dos registros: após uma queda, um registro pela metade
+// fica além dele e é ignorado na reabertura.
+final class Segment {
+
+    static final int MAGIC = 0x48535347; // "HSSG"
+    // Versão 2: frequência com 4 bytes (60 GHz não cabe em short)
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    private static final int END_OFFSET = 8;
+
+    final long id;
+    final Path file;
+    private final FileChannel channel;
+    final MappedByteBuffer buffer;
+    final int capacity;
+
+    // Fim dos registros visíveis aos leitores; publicado depois da escrita dos bytes
+    private volatile int end;
+
+    // Índice esparso por minuto: indexOffsets[k] é o primeiro registro em que o maior
+    // minuto visto até ali chegou a indexMinutes[k]. Registros com minuto >= m nunca
+    // aparecem antes do offset da primeira entrada com minuto >= m.
+    private long[] indexMinutes = new long[64];
+    private int[] indexOffsets = new int[64];
+    private int indexSize;
+    private long minMinute = Long.MAX_VALUE;
+    private long maxMinute = Long.MIN_VALUE;
+    // false se algum registro chegou com minuto anterior a outro já gravado (ex.: reprocessamento)
+    private boolean ordered = true;
+
+    private Segment(long id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+    }
+
+    static Segment create(long id, Path file, int size) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(END_OFFSET, HEADER_SIZE);
+        buffer.force();
+
+        Segment segment = new Segment(id, file, channel, buffer);
+        segment.end = HEADER_SIZE;
+        return segment;
+    }
+
+    // Reabre um segmento existente e reconstrói o índice percorrendo os registros confirmados
+    static Segment open(long id, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Files.size(file));
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Segmento invalido: " + file);
+        }
+
+        Segment segment = new Segment(id, file, channel, buffer);
+        int committed = (int) Math.min(buffer.getLong(END_OFFSET), buffer.capacity());
+        int offset = HEADER_SIZE;
+        while (offset < committed) {
+            int length = SegmentRecord.length(buffer, offset);
+            if (length < SegmentRecord.FIXED_SIZE || offset + length > committed) {
+                break;
+            }
+            segment.indexRecord(SegmentRecord.epochSecond(buffer, offset) / 60, offset);
+            offset += length;
+        }
+        segment.end = offset;
+        return segment;
+    }
+
+    int end() {
+        return end;
+    }
+
+    int remaining() {
+        return capacity - end;
+    }
+
+    // Chamado pelo único escritor depois de gravar os bytes dos registros em [end, newEnd)
+    void publish(int newEnd, long[] minutes, int[] offsets, int count, boolean force) {
+        synchronized (this) {
+            for (int k = 0; k < count; k++) {
+                indexRecord(minutes[k], offsets[k]);
+            }
+        }
+        buffer.putLong(END_OFFSET, newEnd);
+        if (force) {
+            buffer.force();
+        }
+        end = newEnd;
+    }
+
+    synchronized boolean overlaps(long fromMinute, long toMinute) {
+        return indexSize > 0 && maxMinute >= fromMinute && minMinute <= toMinute;
+    }
+
+    synchronized long maxMinute() {
+        return maxMinute;
+    }
+
+    synchronized boolean isOrdered() {
+        return ordered;
+    }
+
+    // Offset do primeiro registro que pode ter minuto >= fromMinute
+    synchronized int startOffset(long fromMinute) {
+        int pos = Arrays.binarySearch(indexMinutes, 0, indexSize, fromMinute);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return pos < indexSize ? indexOffsets[pos] : end;
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Canal já fechado
+        }
+    }
+
+    private void indexRecord(long minute, int offset) {
+        if (minute < minMinute) {
+            minMinute = minute;
+        }
+        if (minute > maxMinute) {
+            if (indexSize == indexMinutes.length) {
+                indexMinutes = Arrays.copyOf(indexMinutes, indexSize * 2);
+                indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+            }
+            indexMinutes[indexSize] = minute;
+            indexOffsets[indexSize] = offset;
+            indexSize++;
+            maxMinute = minute;
+        } else if (minute < maxMinute) {
+            ordered = false;
+        }
+    }
+}
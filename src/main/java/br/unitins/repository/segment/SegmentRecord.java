@@ -0,0 +1,115 @@
+package br.unitins.repository.segment;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import br.unitins.util.MacAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// Visão sobre um registro dentro do segmento mapeado: os campos são lidos direto do
+// buffer, sem cópia. A mesma instância é reposicionada a cada registro durante a
+// leitura, então não deve ser guardada pelo visitante.
+//
+// Layout: tamanho(4) epochSecond(8) mac(8) sinal(2) qualidade(1) segurança(1)
+// canal(2) frequênciaMHz(4) lastBeacon(4) beaconInterval(2) tamanhoSsid(2, -1 = oculta) ssid(UTF-8)
+public final class SegmentRecord {
+
+    static final int FIXED_SIZE = 38;
+
+    private ByteBuffer buffer;
+    private int offset;
+    private long position;
+
+    void moveTo(ByteBuffer buffer, int offset, long position) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.position = position;
+    }
+
+    // Posição global (id do segmento nos 32 bits altos, offset nos baixos), crescente na ordem de leitura
+    public long getPosition() { return position; }
+
+    public long getScanEpochSecond() { return buffer.getLong(offset + 4); }
+
+    public LocalDateTime getScanTime() { return ScanBatch.toLocalDateTime(getScanEpochSecond()); }
+
+    public long getMac() { return buffer.getLong(offset + 12); }
+
+    public int getSignalLevel() { return buffer.getShort(offset + 20); }
+
+    public int getQualityLink() { return buffer.get(offset + 22); }
+
+    public WifiSecurity getSecurity() { return WifiSecurity.fromOrdinal(buffer.get(offset + 23)); }
+
+    public int getChannel() { return buffer.getShort(offset + 24); }
+
+    public int getFrequencyMhz() { return buffer.getInt(offset + 26); }
+
+    public int getLastBeacon() { return buffer.getInt(offset + 30); }
+
+    public int getBeaconInterval() { return buffer.getShort(offset + 34); }
+
+    // Único campo que exige cópia (decodificação UTF-8)
+    public String getSsid() {
+        int length = buffer.getShort(offset + 36);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + FIXED_SIZE, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void addTo(ScanBatch batch) {
+        batch.add(getMac(), getSsid(), getScanEpochSecond(), getSignalLevel(), getQualityLink(),
+                getChannel(), getFrequencyMhz(), getLastBeacon(), getBeaconInterval(), getSecurity());
+    }
+
+    public AccessPoint toAccessPoint() {
+        AccessPoint ap = new AccessPoint();
+        ap.setSsid(getSsid());
+        ap.setMacAddress(MacAddress.format(getMac()));
+        ap.setQualityLink(getQualityLink());
+        ap.setSignalLevel(getSignalLevel());
+        ap.setChannel(getChannel());
+        ap.setFrequency(getFrequencyMhz() / 1000.0);
+        ap.setLastBeacon(getLastBeacon());
+        ap.setBeaconInterval(getBeaconInterval());
+        ap.setWifiSecurity(getSecurity().getLabel());
+        ap.setScanTime(getScanTime());
+        return ap;
+    }
+
+    static int length(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset);
+    }
+
+    static long epochSecond(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 4);
+    }
+
+    static int encodedSize(byte[] ssid) {
+        return FIXED_SIZE + (ssid != null ? ssid.length : 0);
+    }
+
+    static void write(ByteBuffer buffer, int offset, ScanBatch batch, int i, long scanEpochSecond, byte[] ssid) {
+        buffer.putInt(offset, encodedSize(ssid));
+        buffer.putLong(offset + 4, scanEpochSecond);
+        buffer.putLong(offset + 12, batch.getMac(i));
+        buffer.putShort(offset + 20, (short) batch.getSignalLevel(i));
+        buffer.put(offset + 22, (byte) batch.getQualityLink(i));
+        buffer.put(offset + 23, (byte) batch.getSecurity(i).ordinal());
+        buffer.putShort(offset + 24, (short) batch.getChannel(i));
+        buffer.putInt(offset + 26, batch.getFrequencyMhz(i));
+        buffer.putInt(offset + 30, (int) batch.getLastBeacon(i));
+        buffer.putShort(offset + 34, (short) batch.getBeaconInterval(i));
+        if (ssid == null) {
+            buffer.putShort(offset + 36, (short) -1);
+        } else {
+            buffer.putShort(offset + 36, (short) ssid.length);
+            buffer.put(offset + FIXED_SIZE, ssid);
+        }
+    }
+}
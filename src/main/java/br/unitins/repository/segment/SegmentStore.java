@@ -0,0 +1,210 @@
+package br.unitins.repository.segment;
+
+import br.unitins.model.ScanBatch;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Armazenamento local só-de-anexação em segmentos de tamanho fixo mapeados em memória.
+// Um único escritor anexa no segmento ativo; leitores percorrem os segmentos sem
+// bloquear a escrita, lendo direto do mapeamento. Cada segmento tem um índice esparso
+// por minuto, e a retenção apaga segmentos inteiros.
+public class SegmentStore implements AutoCloseable {
+
+    public interface RecordVisitor {
+        // Retorna false para interromper a leitura
+        boolean visit(SegmentRecord record);
+    }
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceWrites;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private Segment active;
+
+    public SegmentStore(Path directory, int segmentSize, boolean forceWrites) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceWrites = forceWrites;
+
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(path -> path.getFileName().toString()));
+
+        for (Path file : files) {
+            try {
+                segments.add(Segment.open(idOf(file), file));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignorando segmento ilegivel " + file + ": " + e.getMessage());
+            }
+        }
+        active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    // Anexa as linhas rows[0..count) do lote; scanEpochSeconds traz o instante já
+    // normalizado de cada linha (ex.: truncado ao minuto)
+    public synchronized void append(ScanBatch batch, int[] rows, long[] scanEpochSeconds, int count) throws IOException {
+        int k = 0;
+        while (k < count) {
+            if (active == null) {
+                roll();
+            }
+
+            int offset = active.end();
+            long[] minutes = new long[count - k];
+            int[] offsets = new int[count - k];
+            int written = 0;
+
+            while (k < count) {
+                int i = rows[k];
+                String ssid = batch.getSsid(i);
+                byte[] ssidBytes = ssid != null ? ssid.getBytes(StandardCharsets.UTF_8) : null;
+                int size = SegmentRecord.encodedSize(ssidBytes);
+                if (offset + size > active.capacity) {
+                    break;
+                }
+
+                SegmentRecord.write(active.buffer, offset, batch, i, scanEpochSeconds[k], ssidBytes);
+                minutes[written] = scanEpochSeconds[k] / 60;
+                offsets[written] = offset;
+                written++;
+                offset += size;
+                k++;
+            }
+
+            if (written > 0) {
+                active.publish(offset, minutes, offsets, written, forceWrites);
+            }
+            if (k < count) {
+                // Segmento cheio: continuar no próximo
+                roll();
+            }
+        }
+    }
+
+    // Percorre os registros com instante em [fromEpochSecond, toEpochSecond] na ordem de
+    // gravação, começando depois de afterPosition (Long.MIN_VALUE para o início)
+    public void scan(long fromEpochSecond, long toEpochSecond, long afterPosition, RecordVisitor visitor) {
+        long fromMinute = Math.floorDiv(fromEpochSecond, 60);
+        long toMinute = Math.floorDiv(toEpochSecond, 60);
+        SegmentRecord record = new SegmentRecord();
+
+        for (Segment segment : segments) {
+            if (afterPosition != Long.MIN_VALUE && segment.id < (afterPosition >>> 32)) {
+                continue;
+            }
+            // O fim é lido antes do índice: tudo até ele já está indexado
+            int end = segment.end();
+            if (!segment.overlaps(fromMinute, toMinute)) {
+                continue;
+            }
+            boolean ordered = segment.isOrdered();
+
+            int offset = segment.startOffset(fromMinute);
+            if (afterPosition != Long.MIN_VALUE && segment.id == (afterPosition >>> 32)) {
+                offset = Math.max(offset, (int) afterPosition);
+            }
+
+            while (offset < end) {
+                int length = SegmentRecord.length(segment.buffer, offset);
+                long epochSecond = SegmentRecord.epochSecond(segment.buffer, offset);
+                long position = segment.id << 32 | offset;
+
+                if (epochSecond > toEpochSecond && ordered) {
+                    break;
+                }
+                if (position > afterPosition && epochSecond >= fromEpochSecond && epochSecond <= toEpochSecond) {
+                    record.moveTo(segment.buffer, offset, position);
+                    if (!visitor.visit(record)) {
+                        return;
+                    }
+                }
+                offset += length;
+            }
+        }
+    }
+
+    // Apaga os segmentos cujos registros são todos anteriores a beforeEpochSecond.
+    // O segmento ativo nunca é apagado.
+    public synchronized int deleteSegmentsBefore(long beforeEpochSecond) {
+        long beforeMinute = Math.floorDiv(beforeEpochSecond, 60);
+        int deleted = 0;
+
+        for (Segment segment : segments) {
+            if (segment == active || segment.maxMinute() >= beforeMinute) {
+                continue;
+            }
+            segments.remove(segment);
+            segment.close();
+            try {
+                // Leitores em andamento mantêm o mapeamento válido até terminarem
+                Files.deleteIfExists(segment.file);
+                deleted++;
+            } catch (IOException e) {
+                System.err.println("Nao foi possivel apagar " + segment.file + ": " + e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    // Maior minuto gravado (em segundos desde a época), ou Long.MIN_VALUE sem registros
+    public long getMaxMinuteEpochSecond() {
+        long max = Long.MIN_VALUE;
+        for (Segment segment : segments) {
+            max = Math.max(max, segment.maxMinute());
+        }
+        return max == Long.MIN_VALUE ? max : max * 60;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getUsedBytes() {
+        long used = 0;
+        for (Segment segment : segments) {
+            used += segment.end();
+        }
+        return used;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            if (forceWrites) {
+                segment.buffer.force();
+            }
+            segment.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Segmentos: %d arquivos em %s, %.1f MB usados",
+                getSegmentCount(), directory, getUsedBytes() / (1024.0 * 1024.0));
+    }
+
+    private void roll() throws IOException {
+        long id = active == null ? 1 : active.id + 1;
+        Path file = directory.resolve(String.format("%s%08d%s", PREFIX, id, SUFFIX));
+        active = Segment.create(id, file, segmentSize);
+        segments.add(active);
+    }
+
+    private static long idOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,227 @@
+package br.unitins.service;
+
+import br.unitins.model.Anomaly;
+import br.unitins.model.ScanBatch;
+import br.unitins.util.MacSlotIndex;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Detector em fluxo com estado de tamanho fixo por BSSID, em arrays primitivos: média e
+// variância móveis exponenciais (EWMA) do RSSI, último intervalo de beacon, ausências
+// seguidas e uma pontuação de oscilação que decai a cada varredura. Cada varredura
+// custa O(APs rastreados), sem histórico. O estado pode ser salvo e restaurado, então
+// um reinício não precisa reprocessar o histórico para reaprender as médias.
+public class AnomalyDetector {
+
+    private static final int SNAPSHOT_MAGIC = 0x48534144; // "HSAD"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // Desvio mínimo considerado: evita z-scores enormes em APs com sinal muito estável
+    private static final double MIN_STDDEV_DB = 2.0;
+
+    private final double alpha;
+    private final double zThreshold;
+    private final int minDropDb;
+    private final int warmupSamples;
+    private final double flapThreshold;
+    private final double flapDecay;
+    private final int forgetAfterMisses;
+
+    private final MacSlotIndex slots = new MacSlotIndex(this::grow);
+    private double[] slotMean = new double[MacSlotIndex.INITIAL_CAPACITY];
+    private double[] slotVariance = new double[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotSamples = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotBeaconInterval = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotMisses = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private double[] slotFlapScore = new double[MacSlotIndex.INITIAL_CAPACITY];
+    private boolean[] slotFlapAlerted = new boolean[MacSlotIndex.INITIAL_CAPACITY];
+    private long[] slotLastScan = new long[MacSlotIndex.INITIAL_CAPACITY];
+    private long scanNumber;
+
+    public AnomalyDetector(double alpha, double zThreshold, int minDropDb, int warmupSamples,
+                           double flapThreshold, double flapDecay, int forgetAfterMisses) {
+        this.alpha = alpha;
+        this.zThreshold = zThreshold;
+        this.minDropDb = minDropDb;
+        this.warmupSamples = warmupSamples;
+        this.flapThreshold = flapThreshold;
+        this.flapDecay = flapDecay;
+        this.forgetAfterMisses = forgetAfterMisses;
+    }
+
+    // Cada lote é uma varredura completa: quem não está nele conta uma ausência
+    public synchronized List<Anomaly> ingest(ScanBatch batch) {
+        List<Anomaly> anomalies = new ArrayList<>();
+        long scan = ++scanNumber;
+
+        for (int i = 0; i < batch.size(); i++) {
+            long mac = batch.getMac(i);
+            int signal = batch.getSignalLevel(i);
+            int beaconInterval = batch.getBeaconInterval(i);
+            long seen = batch.getScanEpochSecond(i);
+
+            int slot = slots.get(mac);
+            if (slot == MacSlotIndex.MISSING) {
+                slot = allocateSlot(mac);
+                slotMean[slot] = signal;
+                slotBeaconInterval[slot] = beaconInterval;
+                slotSamples[slot] = 1;
+                slotLastScan[slot] = scan;
+                continue;
+            }
+            if (slotLastScan[slot] == scan) {
+                continue; // Mesmo BSSID duas vezes no lote
+            }
+
+            // Voltou depois de sumir: conta uma oscilação
+            if (slotMisses[slot] > 0) {
+                slotFlapScore[slot] += 1.0;
+                slotMisses[slot] = 0;
+                if (slotFlapScore[slot] >= flapThreshold && !slotFlapAlerted[slot]) {
+                    slotFlapAlerted[slot] = true;
+                    anomalies.add(new Anomaly(Anomaly.Type.FLAPPING, mac, batch.getSsid(i), seen,
+                            severity(slotFlapScore[slot], flapThreshold),
+                            String.format("pontuacao de oscilacao %.1f", slotFlapScore[slot])));
+                }
+            }
+
+            double mean = slotMean[slot];
+            double stddev = Math.max(MIN_STDDEV_DB, Math.sqrt(slotVariance[slot]));
+            double z = (signal - mean) / stddev;
+            if (slotSamples[slot] >= warmupSamples && z <= -zThreshold && mean - signal >= minDropDb) {
+                anomalies.add(new Anomaly(Anomaly.Type.RSSI_DROP, mac, batch.getSsid(i), seen,
+                        severity(-z, zThreshold),
+                        String.format("%d dBm, media %.1f dBm (z = %.1f)", signal, mean, z)));
+            }
+
+            // Atualização incremental da média e da variância exponenciais
+            double diff = signal - mean;
+            slotMean[slot] = mean + alpha * diff;
+            slotVariance[slot] = (1 - alpha) * (slotVariance[slot] + alpha * diff * diff);
+            slotSamples[slot]++;
+
+            int previousInterval = slotBeaconInterval[slot];
+            if (beaconInterval > 0 && previousInterval > 0 && beaconInterval != previousInterval) {
+                anomalies.add(new Anomaly(Anomaly.Type.BEACON_INTERVAL_CHANGED, mac, batch.getSsid(i), seen,
+                        Math.min(1.0, Math.abs(beaconInterval - previousInterval) / (double) previousInterval),
+                        "intervalo " + previousInterval + " -> " + beaconInterval));
+            }
+            if (beaconInterval > 0) {
+                slotBeaconInterval[slot] = beaconInterval;
+            }
+            slotLastScan[slot] = scan;
+        }
+
+        for (int slot = 0; slot < slots.slotCount(); slot++) {
+            if (!slots.isActive(slot)) {
+                continue;
+            }
+            slotFlapScore[slot] *= flapDecay;
+            // Rearma o alerta quando a oscilação cai abaixo da metade do limiar
+            if (slotFlapAlerted[slot] && slotFlapScore[slot] < flapThreshold / 2) {
+                slotFlapAlerted[slot] = false;
+            }
+            if (slotLastScan[slot] != scan && ++slotMisses[slot] > forgetAfterMisses) {
+                slots.release(slot);
+            }
+        }
+        return anomalies;
+    }
+
+    public synchronized int getTrackedCount() {
+        return slots.size();
+    }
+
+    // Grava em um arquivo temporário e troca de nome: um snapshot pela metade nunca
+    // substitui o anterior
+    public synchronized void snapshot(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(slots.size());
+            for (int slot = 0; slot < slots.slotCount(); slot++) {
+                if (!slots.isActive(slot)) {
+                    continue;
+                }
+                out.writeLong(slots.mac(slot));
+                out.writeDouble(slotMean[slot]);
+                out.writeDouble(slotVariance[slot]);
+                out.writeInt(slotSamples[slot]);
+                out.writeInt(slotBeaconInterval[slot]);
+                out.writeInt(slotMisses[slot]);
+                out.writeDouble(slotFlapScore[slot]);
+                out.writeBoolean(slotFlapAlerted[slot]);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Retorna o número de BSSIDs restaurados; estado já rastreado do mesmo BSSID é substituído
+    public synchronized int restore(Path file) throws IOException {
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Snapshot de anomalias invalido: " + file);
+            }
+            int count = in.readInt();
+            for (int k = 0; k < count; k++) {
+                long mac = in.readLong();
+                int slot = slots.get(mac);
+                if (slot == MacSlotIndex.MISSING) {
+                    slot = allocateSlot(mac);
+                }
+                slotMean[slot] = in.readDouble();
+                slotVariance[slot] = in.readDouble();
+                slotSamples[slot] = in.readInt();
+                slotBeaconInterval[slot] = in.readInt();
+                slotMisses[slot] = in.readInt();
+                slotFlapScore[slot] = in.readDouble();
+                slotFlapAlerted[slot] = in.readBoolean();
+                slotLastScan[slot] = scanNumber;
+            }
+            return count;
+        }
+    }
+
+    // 0 no limiar, 1 com o dobro do limiar ou mais
+    private static double severity(double value, double threshold) {
+        return Math.max(0, Math.min(1.0, (value - threshold) / threshold));
+    }
+
+    // Posição reaproveitada começa zerada
+    private int allocateSlot(long mac) {
+        int slot = slots.allocate(mac);
+        slotMean[slot] = 0;
+        slotVariance[slot] = 0;
+        slotSamples[slot] = 0;
+        slotBeaconInterval[slot] = 0;
+        slotMisses[slot] = 0;
+        slotFlapScore[slot] = 0;
+        slotFlapAlerted[slot] = false;
+        return slot;
+    }
+
+    private void grow(int capacity) {
+        slotMean = Arrays.copyOf(slotMean, capacity);
+        slotVariance = Arrays.copyOf(slotVariance, capacity);
+        slotSamples = Arrays.copyOf(slotSamples, capacity);
+        slotBeaconInterval = Arrays.copyOf(slotBeaconInterval, capacity);
+        slotMisses = Arrays.copyOf(slotMisses, capacity);
+        slotFlapScore = Arrays.copyOf(slotFlapScore, capacity);
+        slotFlapAlerted = Arrays.copyOf(slotFlapAlerted, capacity);
+        slotLastScan = Arrays.copyOf(slotLastScan, capacity);
+    }
+}
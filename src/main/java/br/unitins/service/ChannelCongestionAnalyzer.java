@@ -0,0 +1,240 @@
+package br.unitins.service;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.util.MacSlotIndex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Carga por canal mantida de forma incremental: cada BSSID guarda a contribuição que
+// deu na última varredura (canal e peso pelo RSSI), que é retirada e recolocada quando
+// ele aparece de novo. Uma varredura custa O(APs do lote) mais uma passada pelas
+// posições ativas para expirar quem sumiu, sem reler histórico.
+public class ChannelCongestionAnalyzer {
+
+    public enum Band {
+        GHZ_2_4("2.4 GHz"),
+        GHZ_5("5 GHz"),
+        GHZ_6("6 GHz");
+
+        private final String label;
+
+        Band(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        static Band fromFrequencyMhz(int frequencyMhz) {
+            if (frequencyMhz >= 2400 && frequencyMhz < 2500) {
+                return GHZ_2_4;
+            }
+            if (frequencyMhz >= 4900 && frequencyMhz < 5900) {
+                return GHZ_5;
+            }
+            if (frequencyMhz >= 5925 && frequencyMhz <= 7125) {
+                return GHZ_6;
+            }
+            return null;
+        }
+    }
+
+    // Situação de um canal: APs no canal, ocupação (soma dos pesos por RSSI, 0 a 1 por AP)
+    // e sobreposição vinda de canais vizinhos (só em 2.4 GHz). Menor pontuação é melhor.
+    public record ChannelLoad(Band band, int channel, int apCount, double occupancy, double adjacentOverlap) {
+        public double score() {
+            return occupancy + adjacentOverlap;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-7s | canal %3d | %5d APs | ocupacao %8.2f | vizinhos %8.2f | pontuacao %8.2f",
+                    band.getLabel(), channel, apCount, occupancy, adjacentOverlap, score());
+        }
+    }
+
+    // Canais candidatos à recomendação: em 2.4 GHz só os três sem sobreposição entre si
+    private static final int[] CANDIDATES_2_4 = {1, 6, 11};
+    private static final int[] CANDIDATES_5 = {36, 40, 44, 48, 52, 56, 60, 64, 100, 104, 108, 112, 116, 120,
+            124, 128, 132, 136, 140, 144, 149, 153, 157, 161, 165};
+    private static final int[] CANDIDATES_6 = rangeStep(1, 233, 4);
+
+    // Canais de 20 MHz em 2.4 GHz, espaçados de 5 MHz, se sobrepõem até 4 canais de distância
+    private static final int OVERLAP_SPAN_2_4 = 5;
+
+    private static final int MAX_CHANNEL = 256;
+    // Posição recém-alocada, ainda sem contribuição em nenhum canal
+    private static final int NO_CHANNEL = -1;
+
+    private final int staleSeconds;
+    private final int minSignal;
+    private final int maxSignal;
+
+    // Estado por canal, indexado por banda * MAX_CHANNEL + canal
+    private final int[] apCount = new int[Band.values().length * MAX_CHANNEL];
+    private final double[] occupancy = new double[Band.values().length * MAX_CHANNEL];
+
+    // Estado por BSSID em arrays paralelos; o índice leva o MAC à posição
+    private final MacSlotIndex slots = new MacSlotIndex(this::grow);
+    private int[] slotChannelKey = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private double[] slotWeight = new double[MacSlotIndex.INITIAL_CAPACITY];
+    private long[] slotLastSeen = new long[MacSlotIndex.INITIAL_CAPACITY];
+
+    public ChannelCongestionAnalyzer(int staleSeconds, int minSignal, int maxSignal) {
+        this.staleSeconds = staleSeconds;
+        this.minSignal = minSignal;
+        this.maxSignal = maxSignal;
+    }
+
+    public synchronized void ingest(ScanBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long now = Long.MIN_VALUE;
+        for (int i = 0; i < batch.size(); i++) {
+            Band band = Band.fromFrequencyMhz(batch.getFrequencyMhz(i));
+            int channel = batch.getChannel(i);
+            if (band == null || channel <= 0 || channel >= MAX_CHANNEL) {
+                continue;
+            }
+
+            long seen = batch.getScanEpochSecond(i);
+            now = Math.max(now, seen);
+            update(batch.getMac(i), band.ordinal() * MAX_CHANNEL + channel, weightOf(batch.getSignalLevel(i)), seen);
+        }
+
+        if (now != Long.MIN_VALUE) {
+            expireBefore(now - staleSeconds);
+        }
+    }
+
+    public synchronized List<ChannelLoad> getChannelLoads(Band band) {
+        List<ChannelLoad> loads = new ArrayList<>();
+        for (int channel : candidatesOf(band)) {
+            loads.add(loadOf(band, channel));
+        }
+        // Canais ocupados fora da lista de candidatos (ex.: 2.4 GHz canal 3) também aparecem
+        for (int channel = 1; channel < MAX_CHANNEL; channel++) {
+            if (apCount[band.ordinal() * MAX_CHANNEL + channel] > 0 && !isCandidate(band, channel)) {
+                loads.add(loadOf(band, channel));
+            }
+        }
+        loads.sort((a, b) -> Integer.compare(a.channel(), b.channel()));
+        return loads;
+    }
+
+    // Canal candidato de menor pontuação na banda; empate fica com o de menos APs
+    public synchronized ChannelLoad recommend(Band band) {
+        ChannelLoad best = null;
+        for (int channel : candidatesOf(band)) {
+            ChannelLoad load = loadOf(band, channel);
+            if (best == null || load.score() < best.score()
+                    || (load.score() == best.score() && load.apCount() < best.apCount())) {
+                best = load;
+            }
+        }
+        return best;
+    }
+
+    public synchronized int getTrackedCount() {
+        return slots.size();
+    }
+
+    private void update(long mac, int channelKey, double weight, long seen) {
+        int slot = slots.get(mac);
+        if (slot == MacSlotIndex.MISSING) {
+            slot = allocateSlot(mac);
+        } else if (slotLastSeen[slot] > seen) {
+            return; // Observação mais antiga que a já contada
+        }
+
+        if (slotChannelKey[slot] != NO_CHANNEL) {
+            removeContribution(slot);
+        }
+
+        apCount[channelKey]++;
+        occupancy[channelKey] += weight;
+        slotChannelKey[slot] = channelKey;
+        slotWeight[slot] = weight;
+        slotLastSeen[slot] = seen;
+    }
+
+    private void expireBefore(long cutoff) {
+        for (int slot = 0; slot < slots.slotCount(); slot++) {
+            if (slots.isActive(slot) && slotLastSeen[slot] < cutoff) {
+                removeContribution(slot);
+                slots.release(slot);
+            }
+        }
+    }
+
+    private void removeContribution(int slot) {
+        int key = slotChannelKey[slot];
+        apCount[key]--;
+        // Subtrações repetidas de double deixam resíduos; canal vazio volta a zero
+        occupancy[key] = apCount[key] == 0 ? 0 : occupancy[key] - slotWeight[slot];
+    }
+
+    private int allocateSlot(long mac) {
+        int slot = slots.allocate(mac);
+        slotChannelKey[slot] = NO_CHANNEL;
+        return slot;
+    }
+
+    private void grow(int capacity) {
+        slotChannelKey = Arrays.copyOf(slotChannelKey, capacity);
+        slotWeight = Arrays.copyOf(slotWeight, capacity);
+        slotLastSeen = Arrays.copyOf(slotLastSeen, capacity);
+    }
+
+    private ChannelLoad loadOf(Band band, int channel) {
+        int base = band.ordinal() * MAX_CHANNEL;
+        double overlap = 0;
+        if (band == Band.GHZ_2_4) {
+            for (int d = 1; d < OVERLAP_SPAN_2_4; d++) {
+                double factor = 1.0 - (double) d / OVERLAP_SPAN_2_4;
+                if (channel - d > 0) {
+                    overlap += factor * occupancy[base + channel - d];
+                }
+                if (channel + d <= 14) {
+                    overlap += factor * occupancy[base + channel + d];
+                }
+            }
+        }
+        return new ChannelLoad(band, channel, apCount[base + channel], occupancy[base + channel], overlap);
+    }
+
+    // Peso linear do RSSI entre minSignal (0) e maxSignal (1)
+    private double weightOf(int signalLevel) {
+        double weight = (double) (signalLevel - minSignal) / (maxSignal - minSignal);
+        return Math.max(0, Math.min(1, weight));
+    }
+
+    private static int[] candidatesOf(Band band) {
+        return switch (band) {
+            case GHZ_2_4 -> CANDIDATES_2_4;
+            case GHZ_5 -> CANDIDATES_5;
+            case GHZ_6 -> CANDIDATES_6;
+        };
+    }
+
+    private static boolean isCandidate(Band band, int channel) {
+        for (int candidate : candidatesOf(band)) {
+            if (candidate == channel) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] rangeStep(int from, int to, int step) {
+        int[] values = new int[(to - from) / step + 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i * step;
+        }
+        return values;
+    }
+}
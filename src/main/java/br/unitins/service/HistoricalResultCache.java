@@ -0,0 +1,116 @@
+package br.unitins.service;
+
+import br.unitins.model.AccessPoint;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache LRU de resultados de consultas históricas por intervalo de tempo fechado.
+// O limite é em bytes estimados, não em número de entradas: uma hora com milhares de
+// APs pesa muito mais que um minuto vazio. Quem decide se o intervalo já está fechado
+// (e portanto imutável) é o chamador.
+public class HistoricalResultCache {
+
+    // Cabeçalho do objeto, campos primitivos, referências e a entrada na lista
+    private static final int ACCESS_POINT_OVERHEAD = 96;
+    // LocalDateTime com LocalDate e LocalTime
+    private static final int SCAN_TIME_BYTES = 72;
+    private static final int ENTRY_OVERHEAD = 128;
+
+    public record Bucket(LocalDateTime start, LocalDateTime end) {}
+
+    private final long maxBytes;
+    private final LinkedHashMap<Bucket, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    // Métricas
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public HistoricalResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized List<AccessPoint> get(Bucket bucket) {
+        Entry entry = entries.get(bucket);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.accessPoints;
+    }
+
+    public synchronized void put(Bucket bucket, List<AccessPoint> accessPoints) {
+        long bytes = estimateBytes(accessPoints);
+        if (bytes > maxBytes) {
+            return;
+        }
+
+        Entry previous = entries.put(bucket, new Entry(List.copyOf(accessPoints), bytes));
+        if (previous != null) {
+            usedBytes -= previous.bytes;
+        }
+        usedBytes += bytes;
+
+        // Remover os menos usados recentemente até caber no limite
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Usado quando os dados já gravados mudam (retenção, remoção de duplicatas)
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized int getEntryCount() { return entries.size(); }
+
+    public synchronized long getUsedBytes() { return usedBytes; }
+
+    public long getMaxBytes() { return maxBytes; }
+
+    public long getHits() { return hits.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    public long getEvictions() { return evictions.get(); }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : hits.get() / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache historico: %d entradas, %.1f/%.1f MB | acertos=%d, falhas=%d (%.0f%%), removidas=%d",
+                getEntryCount(), getUsedBytes() / (1024.0 * 1024.0), maxBytes / (1024.0 * 1024.0),
+                getHits(), getMisses(), getHitRatio() * 100, getEvictions());
+    }
+
+    static long estimateBytes(List<AccessPoint> accessPoints) {
+        long bytes = ENTRY_OVERHEAD;
+        for (AccessPoint ap : accessPoints) {
+            bytes += ACCESS_POINT_OVERHEAD + SCAN_TIME_BYTES
+                    + stringBytes(ap.getSsid())
+                    + stringBytes(ap.getMacAddress())
+                    + stringBytes(ap.getWifiSecurity());
+        }
+        return bytes;
+    }
+
+    // String compacta (Latin-1) com o array de bytes; SSIDs não Latin-1 usam o dobro
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private record Entry(List<AccessPoint> accessPoints, long bytes) {}
+}
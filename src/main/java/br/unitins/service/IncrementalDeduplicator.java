@@ -0,0 +1,47 @@
+package br.unitins.service;
+
+import br.unitins.repository.AccessPointRepository;
+import java.sql.SQLException;
+
+// Remoção de duplicatas (mesmo MAC no mesmo minuto) só nas linhas novas. A marca
+// d'água é o maior id já verificado, persistida em maintenance_state; cada rodada
+// avança em faixas de chunkRows ids até o MAX(id) do início da rodada, então o custo
+// depende do que foi gravado desde a última vez, não do tamanho da tabela.
+public class IncrementalDeduplicator {
+
+    private static final String HIGH_WATER_MARK = "dedup_last_id";
+
+    private final AccessPointRepository repository;
+    private final int chunkRows;
+    private long lastCheckedId = -1;
+
+    public IncrementalDeduplicator(AccessPointRepository repository, int chunkRows) {
+        this.repository = repository;
+        this.chunkRows = chunkRows;
+    }
+
+    public synchronized int runOnce() throws SQLException {
+        if (lastCheckedId < 0) {
+            lastCheckedId = repository.getHighWaterMark(HIGH_WATER_MARK);
+        }
+
+        long maxId = repository.getMaxId();
+        int removed = 0;
+
+        while (lastCheckedId < maxId) {
+            long upToId = Math.min(maxId, lastCheckedId + chunkRows);
+            removed += repository.removeDuplicatesInIdRange(lastCheckedId, upToId);
+            repository.saveHighWaterMark(HIGH_WATER_MARK, upToId);
+            lastCheckedId = upToId;
+        }
+
+        if (removed > 0) {
+            System.out.println("Removidas " + removed + " entradas duplicadas do banco de dados.");
+        }
+        return removed;
+    }
+
+    public synchronized long getLastCheckedId() {
+        return lastCheckedId;
+    }
+}
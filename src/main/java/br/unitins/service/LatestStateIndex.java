@@ -0,0 +1,185 @@
+package br.unitins.service;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import br.unitins.util.MacAddress;
+import br.unitins.util.MacSlotIndex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Última observação de cada BSSID, em arrays primitivos indexados por MAC: a ingestão
+// só sobrescreve colunas, sem criar objetos por AP. As listas ordenadas por qualidade e
+// por sinal são montadas na leitura, e só quando algo mudou desde a última montagem.
+// BSSIDs sem observação há mais de ttlSeconds (no relógio das varreduras) são removidos.
+public class LatestStateIndex {
+
+    private static final Comparator<AccessPoint> BY_QUALITY =
+            Comparator.comparingInt(AccessPoint::getQualityLink).reversed()
+                    .thenComparing(Comparator.comparingInt(AccessPoint::getSignalLevel).reversed());
+
+    private static final Comparator<AccessPoint> BY_SIGNAL =
+            Comparator.comparingInt(AccessPoint::getSignalLevel).reversed()
+                    .thenComparing(Comparator.comparingInt(AccessPoint::getQualityLink).reversed());
+
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    private final long ttlSeconds;
+
+    private final MacSlotIndex slots = new MacSlotIndex(this::grow);
+    private String[] slotSsid = new String[MacSlotIndex.INITIAL_CAPACITY];
+    private long[] slotSeen = new long[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotSignal = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotQuality = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotChannel = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotFrequency = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotLastBeacon = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotBeaconInterval = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotSecurity = new int[MacSlotIndex.INITIAL_CAPACITY];
+
+    private long newestSeen = Long.MIN_VALUE;
+    private long lastSweep = Long.MIN_VALUE;
+
+    // Incrementado a cada mudança; as listas valem enquanto viewsVersion == version
+    private long version;
+    private long viewsVersion = -1;
+    private List<AccessPoint> byQuality = List.of();
+    private List<AccessPoint> bySignal = List.of();
+
+    public LatestStateIndex(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public synchronized void ingest(ScanBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            put(batch.getMac(i), batch.getSsid(i), batch.getScanEpochSecond(i), batch.getSignalLevel(i),
+                    batch.getQualityLink(i), batch.getChannel(i), batch.getFrequencyMhz(i),
+                    (int) batch.getLastBeacon(i), batch.getBeaconInterval(i), batch.getSecurity(i).ordinal());
+        }
+        sweepIfDue();
+    }
+
+    // Carga inicial (ex.: a partir do banco); observações mais novas já ingeridas prevalecem
+    public synchronized void warm(List<AccessPoint> accessPoints) {
+        for (AccessPoint ap : accessPoints) {
+            long mac = MacAddress.parse(ap.getMacAddress());
+            if (mac == MacAddress.INVALID || ap.getScanTime() == null) {
+                continue;
+            }
+            put(mac, ap.getSsid(), ScanBatch.toEpochSecond(ap.getScanTime()), ap.getSignalLevel(),
+                    ap.getQualityLink(), ap.getChannel(), (int) Math.round(ap.getFrequency() * 1000),
+                    (int) Math.min(ap.getLastBeacon(), Integer.MAX_VALUE), ap.getBeaconInterval(),
+                    WifiSecurity.fromLabel(ap.getWifiSecurity()).ordinal());
+        }
+        sweepIfDue();
+    }
+
+    public synchronized List<AccessPoint> getByQuality() {
+        rebuildViewsIfStale();
+        return byQuality;
+    }
+
+    public synchronized List<AccessPoint> getBySignal() {
+        rebuildViewsIfStale();
+        return bySignal;
+    }
+
+    public synchronized AccessPoint get(long mac) {
+        int slot = slots.get(mac);
+        return slot == MacSlotIndex.MISSING ? null : toAccessPoint(slot);
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    private void put(long mac, String ssid, long seen, int signal, int quality, int channel, int frequency,
+                     int lastBeacon, int beaconInterval, int security) {
+        int slot = slots.get(mac);
+        if (slot == MacSlotIndex.MISSING) {
+            slot = slots.allocate(mac);
+        } else if (seen < slotSeen[slot]) {
+            return; // Observação mais antiga que a guardada
+        }
+
+        slotSsid[slot] = ssid;
+        slotSeen[slot] = seen;
+        slotSignal[slot] = signal;
+        slotQuality[slot] = quality;
+        slotChannel[slot] = channel;
+        slotFrequency[slot] = frequency;
+        slotLastBeacon[slot] = lastBeacon;
+        slotBeaconInterval[slot] = beaconInterval;
+        slotSecurity[slot] = security;
+        newestSeen = Math.max(newestSeen, seen);
+        version++;
+    }
+
+    // Passada pelas posições no máximo uma vez por minuto de varredura
+    private void sweepIfDue() {
+        if (newestSeen == Long.MIN_VALUE || (lastSweep != Long.MIN_VALUE
+                && newestSeen - lastSweep < SWEEP_INTERVAL_SECONDS)) {
+            return;
+        }
+        lastSweep = newestSeen;
+        long cutoff = newestSeen - ttlSeconds;
+        for (int slot = 0; slot < slots.slotCount(); slot++) {
+            if (slots.isActive(slot) && slotSeen[slot] < cutoff) {
+                slots.release(slot);
+                slotSsid[slot] = null;
+                version++;
+            }
+        }
+    }
+
+    private void rebuildViewsIfStale() {
+        if (viewsVersion == version) {
+            return;
+        }
+        List<AccessPoint> quality = new ArrayList<>(slots.size());
+        for (int slot = 0; slot < slots.slotCount(); slot++) {
+            if (slots.isActive(slot)) {
+                quality.add(toAccessPoint(slot));
+            }
+        }
+        List<AccessPoint> signal = new ArrayList<>(quality);
+        quality.sort(BY_QUALITY);
+        signal.sort(BY_SIGNAL);
+        byQuality = Collections.unmodifiableList(quality);
+        bySignal = Collections.unmodifiableList(signal);
+        viewsVersion = version;
+    }
+
+    private AccessPoint toAccessPoint(int slot) {
+        AccessPoint ap = new AccessPoint();
+        ap.setSsid(slotSsid[slot]);
+        ap.setMacAddress(MacAddress.format(slots.mac(slot)));
+        ap.setQualityLink(slotQuality[slot]);
+        ap.setSignalLevel(slotSignal[slot]);
+        ap.setChannel(slotChannel[slot]);
+        ap.setFrequency(slotFrequency[slot] / 1000.0);
+        ap.setLastBeacon(slotLastBeacon[slot]);
+        ap.setBeaconInterval(slotBeaconInterval[slot]);
+        ap.setWifiSecurity(WifiSecurity.fromOrdinal(slotSecurity[slot]).getLabel());
+        ap.setScanTime(ScanBatch.toLocalDateTime(slotSeen[slot]));
+        return ap;
+    }
+
+    private void grow(int capacity) {
+        slotSsid = Arrays.copyOf(slotSsid, capacity);
+        slotSeen = Arrays.copyOf(slotSeen, capacity);
+        slotSignal = Arrays.copyOf(slotSignal, capacity);
+        slotQuality = Arrays.copyOf(slotQuality, capacity);
+        slotChannel = Arrays.copyOf(slotChannel, capacity);
+        slotFrequency = Arrays.copyOf(slotFrequency, capacity);
+        slotLastBeacon = Arrays.copyOf(slotLastBeacon, capacity);
+        slotBeaconInterval = Arrays.copyOf(slotBeaconInterval, capacity);
+        slotSecurity = Arrays.copyOf(slotSecurity, capacity);
+    }
+}
@@ -1,20 +1,32 @@
 package br.unitins.service;
 
 import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanEvent;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class MenuService {
+    private static final int MAX_EVENTS_SHOWN = 50;
+
     private final WifiScannerService wifiService;
     private final Scanner scanner;
     private boolean running = true;
 
     public MenuService() {
-        this.wifiService = new WifiScannerService();
+        this(new WifiScannerService());
+    }
+
+    public MenuService(WifiScannerService wifiService) {
+        this.wifiService = wifiService;
         this.scanner = new Scanner(System.in);
         
         // Configurar codificação UTF-8 para o console
@@ -46,7 +58,8 @@ public class MenuService {
         System.out.println("=".repeat(60));
         System.out.println("1 - Monitoramento em tempo real");
         System.out.println("2 - Consultar horario especifico");
-        System.out.println("3 - Sair");
+        System.out.println("3 - Analise de canais");
+        System.out.println("4 - Sair");
         System.out.println("=".repeat(60));
         System.out.print("Escolha uma opcao: ");
     }
@@ -63,7 +76,8 @@ public class MenuService {
         switch (option) {
             case 1 -> handleRealTimeMonitoring();
             case 2 -> handleHistoricalQuery();
-            case 3 -> {
+            case 3 -> handleChannelAnalysis();
+            case 4 -> {
                 System.out.println("Encerrando aplicacao...");
                 running = false;
             }
@@ -78,25 +92,44 @@ public class MenuService {
         System.out.println("Pressione ENTER para atualizar manualmente ou digite 'voltar' para retornar");
         System.out.println();
 
+        // Depois da primeira tabela, só as mudanças entre atualizações são mostradas
+        Queue<ScanEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+        ScanDiffEngine.Listener listener = pendingEvents::addAll;
+        wifiService.subscribeScanEvents(listener);
+
         wifiService.startRealTimeMonitoring();
+        displayAccessPoints(wifiService.getLatestAccessPoints());
+        pendingEvents.clear();
 
         while (true) {
-            displayAccessPoints(wifiService.getLatestAccessPoints());
-            
             System.out.println("\nPróxima atualização automática em 60 segundos...");
-            System.out.print("Pressione ENTER para atualizar agora ou digite 'voltar': ");
+            System.out.print("Pressione ENTER para atualizar agora, 'tabela' para a tabela completa ou 'voltar': ");
             
             String input = scanner.nextLine().trim().toLowerCase();
             
             if ("voltar".equals(input)) {
                 wifiService.stopRealTimeMonitoring();
+                wifiService.unsubscribeScanEvents(listener);
                 break;
             }
+
+            if ("tabela".equals(input)) {
+                displayAccessPoints(wifiService.getLatestAccessPoints());
+                pendingEvents.clear();
+                continue;
+            }
             
             if (input.isEmpty()) {
                 // Força uma nova varredura
                 wifiService.scanAndSaveAccessPoints();
             }
+
+            List<ScanEvent> events = new ArrayList<>();
+            ScanEvent event;
+            while ((event = pendingEvents.poll()) != null) {
+                events.add(event);
+            }
+            displayScanEvents(events);
         }
     }
 
@@ -141,6 +174,58 @@ public class MenuService {
         }
     }
 
+    private void handleChannelAnalysis() {
+        System.out.println("\n" + "=".repeat(100));
+        System.out.println("ANALISE DE CANAIS");
+        System.out.println("=".repeat(100));
+
+        // A análise é alimentada pelas varreduras; sem monitoramento ativo, faz uma agora
+        if (!wifiService.isMonitoring()) {
+            wifiService.scanAndSaveAccessPoints();
+        }
+
+        for (ChannelCongestionAnalyzer.Band band : ChannelCongestionAnalyzer.Band.values()) {
+            List<ChannelCongestionAnalyzer.ChannelLoad> loads = wifiService.getChannelLoads(band);
+            if (loads.stream().noneMatch(load -> load.apCount() > 0)) {
+                continue;
+            }
+
+            System.out.println("\nBanda " + band.getLabel() + ":");
+            for (ChannelCongestionAnalyzer.ChannelLoad load : loads) {
+                if (load.apCount() > 0 || band == ChannelCongestionAnalyzer.Band.GHZ_2_4) {
+                    System.out.println(load);
+                }
+            }
+            System.out.println("Canal recomendado: " + wifiService.recommendChannel(band).channel());
+        }
+
+        System.out.println("\nPressione ENTER para continuar...");
+        scanner.nextLine();
+    }
+
+    private void displayScanEvents(List<ScanEvent> events) {
+        if (events.isEmpty()) {
+            System.out.println("\nNenhuma mudanca desde a ultima atualizacao.");
+            return;
+        }
+
+        Map<ScanEvent.Type, Integer> counts = new EnumMap<>(ScanEvent.Type.class);
+        for (ScanEvent event : events) {
+            counts.merge(event.getType(), 1, Integer::sum);
+        }
+
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("MUDANCAS DESDE A ULTIMA ATUALIZACAO " + counts);
+        System.out.println("=".repeat(80));
+        int shown = Math.min(events.size(), MAX_EVENTS_SHOWN);
+        for (int i = 0; i < shown; i++) {
+            System.out.println(events.get(i));
+        }
+        if (events.size() > shown) {
+            System.out.println("... e mais " + (events.size() - shown) + " mudancas (digite 'tabela' para ver tudo)");
+        }
+    }
+
     private void displayAccessPoints(List<AccessPoint> accessPoints) {
         if (accessPoints.isEmpty()) {
             System.out.println("\nNenhuma rede Wi-Fi encontrada.");
@@ -0,0 +1,278 @@
+package br.unitins.service;
+
+import br.unitins.model.RogueAlert;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import br.unitins.util.LongHashSet;
+import br.unitins.util.MacAddress;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Índice SSID -> perfil (BSSIDs, fabricantes e a segurança mais forte já vista). Os
+// perfis são imutáveis e trocados por cópia com replace atômico, então a verificação
+// de uma observação é só leitura: busca do SSID, contains no conjunto de BSSIDs e uma
+// comparação de segurança, sem lock. Cópias só acontecem quando algo muda no SSID.
+// Durante learningSeconds após o primeiro avistamento, um SSID só aprende, sem alertar.
+// Os perfis podem ser salvos e restaurados, então um reinício não reabre o período de
+// aprendizado de SSIDs já conhecidos.
+public class RogueApDetector {
+
+    private static final int UNRANKED = -1;
+    private static final long NO_VENDOR = -1;
+    private static final int SNAPSHOT_MAGIC = 0x48535247; // "HSRG"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final long learningSeconds;
+    private final Map<String, SsidProfile> profiles = new ConcurrentHashMap<>();
+    private volatile LongHashSet whitelist;
+
+    public RogueApDetector(int learningMinutes, Collection<String> whitelistedMacs) {
+        this.learningSeconds = learningMinutes * 60L;
+        LongHashSet initial = new LongHashSet();
+        for (String mac : whitelistedMacs) {
+            long parsed = MacAddress.parse(mac.trim());
+            if (parsed != MacAddress.INVALID) {
+                initial.add(parsed);
+            }
+        }
+        this.whitelist = initial;
+    }
+
+    // BSSID confiável: entra nos perfis sem gerar alerta
+    public synchronized void addToWhitelist(long mac) {
+        LongHashSet updated = whitelist.copy();
+        updated.add(mac);
+        whitelist = updated;
+    }
+
+    public List<RogueAlert> ingest(ScanBatch batch) {
+        List<RogueAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String ssid = batch.getSsid(i);
+            if (ssid == null || ssid.isEmpty()) {
+                continue; // Redes ocultas não têm identidade para comparar
+            }
+
+            long mac = batch.getMac(i);
+            WifiSecurity security = batch.getSecurity(i);
+            int rank = rankOf(security);
+            long seen = batch.getScanEpochSecond(i);
+
+            SsidProfile profile = profiles.get(ssid);
+            if (profile != null && profile.bssids.contains(mac)
+                    && (rank == UNRANKED || rank == profile.strongestRank || profile.downgraded.contains(mac))) {
+                continue; // Caminho comum: nada mudou
+            }
+            check(ssid, mac, security, rank, seen, alerts);
+        }
+        return alerts;
+    }
+
+    public int getSsidCount() {
+        return profiles.size();
+    }
+
+    // Os perfis são imutáveis: basta uma cópia das entradas para um snapshot coerente
+    // por SSID. Grava em arquivo temporário e troca de nome, como no detector de anomalias
+    public void snapshot(Path file) throws IOException {
+        List<Map.Entry<String, SsidProfile>> entries = new ArrayList<>(profiles.entrySet());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, SsidProfile> entry : entries) {
+                SsidProfile profile = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(profile.firstSeen);
+                out.writeInt(profile.strongestRank);
+                writeSet(out, profile.bssids);
+                writeSet(out, profile.vendors);
+                writeSet(out, profile.downgraded);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Retorna o número de SSIDs restaurados; um perfil já aprendido nesta execução é
+    // substituído pelo salvo
+    public int restore(Path file) throws IOException {
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Snapshot de perfis de SSID invalido: " + file);
+            }
+            int count = in.readInt();
+            for (int k = 0; k < count; k++) {
+                String ssid = in.readUTF();
+                long firstSeen = in.readLong();
+                int strongestRank = in.readInt();
+                LongHashSet bssids = readSet(in);
+                LongHashSet vendors = readSet(in);
+                LongHashSet downgraded = readSet(in);
+                profiles.put(ssid, new SsidProfile(firstSeen, bssids, vendors, downgraded, strongestRank));
+            }
+            return count;
+        }
+    }
+
+    private static void writeSet(DataOutputStream out, LongHashSet set) throws IOException {
+        long[] keys = set.toArray();
+        out.writeInt(keys.length);
+        for (long key : keys) {
+            out.writeLong(key);
+        }
+    }
+
+    private static LongHashSet readSet(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        LongHashSet set = new LongHashSet(Math.max(4, size));
+        for (int k = 0; k < size; k++) {
+            set.add(in.readLong());
+        }
+        return set;
+    }
+
+    private void check(String ssid, long mac, WifiSecurity security, int rank, long seen, List<RogueAlert> alerts) {
+        while (true) {
+            SsidProfile current = profiles.get(ssid);
+            if (current == null) {
+                if (profiles.putIfAbsent(ssid, SsidProfile.first(seen, mac, rank)) == null) {
+                    return;
+                }
+                continue;
+            }
+
+            boolean learning = seen - current.firstSeen < learningSeconds;
+            boolean trusted = learning || whitelist.contains(mac);
+            RogueAlert alert = null;
+            SsidProfile updated = current;
+
+            if (!current.bssids.contains(mac)) {
+                long vendor = vendorOf(mac);
+                boolean newVendor = vendor != NO_VENDOR && !current.vendors.contains(vendor);
+                updated = updated.withBssid(mac, vendor);
+                if (!trusted) {
+                    alert = newVendor
+                            ? new RogueAlert(RogueAlert.Type.NEW_VENDOR, ssid, mac, security, seen,
+                                    "fabricante " + String.format("%06X", vendor) + " nunca visto neste SSID")
+                            : new RogueAlert(RogueAlert.Type.UNEXPECTED_BSSID, ssid, mac, security, seen,
+                                    current.bssids.size() + " BSSIDs conhecidos");
+                }
+            }
+
+            if (rank != UNRANKED && rank > current.strongestRank) {
+                updated = updated.withStrongestRank(rank);
+            } else if (rank != UNRANKED && rank < current.strongestRank && !current.downgraded.contains(mac)) {
+                updated = updated.withDowngraded(mac);
+                // Um BSSID novo e mais fraco gera um único alerta, o de rebaixamento
+                if (!trusted) {
+                    alert = new RogueAlert(RogueAlert.Type.SECURITY_DOWNGRADE, ssid, mac, security, seen,
+                            "esperado " + labelOf(current.strongestRank));
+                }
+            }
+
+            if (updated == current || profiles.replace(ssid, current, updated)) {
+                if (alert != null) {
+                    alerts.add(alert);
+                }
+                return;
+            }
+            // Outra varredura atualizou o perfil ao mesmo tempo: refazer com o perfil novo
+        }
+    }
+
+    // OUI (3 primeiros octetos); endereços administrados localmente (BSSIDs virtuais,
+    // aleatórios) não identificam fabricante
+    private static long vendorOf(long mac) {
+        long firstOctet = (mac >>> 40) & 0xFF;
+        if ((firstOctet & 0x02) != 0) {
+            return NO_VENDOR;
+        }
+        return mac >>> 24;
+    }
+
+    private static int rankOf(WifiSecurity security) {
+        return switch (security) {
+            case OPEN -> 0;
+            case WEP -> 1;
+            case WPA -> 2;
+            case WPA2 -> 3;
+            case WPA3 -> 4;
+            default -> UNRANKED;
+        };
+    }
+
+    private static String labelOf(int rank) {
+        for (WifiSecurity security : WifiSecurity.values()) {
+            if (rankOf(security) == rank) {
+                return security.getLabel();
+            }
+        }
+        return WifiSecurity.UNKNOWN.getLabel();
+    }
+
+    // Nunca alterado depois de publicado no mapa
+    private static final class SsidProfile {
+        private final long firstSeen;
+        private final LongHashSet bssids;
+        private final LongHashSet vendors;
+        private final LongHashSet downgraded;
+        private final int strongestRank;
+
+        private SsidProfile(long firstSeen, LongHashSet bssids, LongHashSet vendors, LongHashSet downgraded,
+                            int strongestRank) {
+            this.firstSeen = firstSeen;
+            this.bssids = bssids;
+            this.vendors = vendors;
+            this.downgraded = downgraded;
+            this.strongestRank = strongestRank;
+        }
+
+        static SsidProfile first(long seen, long mac, int rank) {
+            LongHashSet bssids = new LongHashSet(4);
+            bssids.add(mac);
+            LongHashSet vendors = new LongHashSet(4);
+            long vendor = vendorOf(mac);
+            if (vendor != NO_VENDOR) {
+                vendors.add(vendor);
+            }
+            return new SsidProfile(seen, bssids, vendors, new LongHashSet(4), rank);
+        }
+
+        SsidProfile withBssid(long mac, long vendor) {
+            LongHashSet newBssids = bssids.copy();
+            newBssids.add(mac);
+            LongHashSet newVendors = vendors;
+            if (vendor != NO_VENDOR && !vendors.contains(vendor)) {
+                newVendors = vendors.copy();
+                newVendors.add(vendor);
+            }
+            return new SsidProfile(firstSeen, newBssids, newVendors, downgraded, strongestRank);
+        }
+
+        SsidProfile withStrongestRank(int rank) {
+            return new SsidProfile(firstSeen, bssids, vendors, downgraded, rank);
+        }
+
+        SsidProfile withDowngraded(long mac) {
+            LongHashSet newDowngraded = downgraded.copy();
+            newDowngraded.add(mac);
+            return new SsidProfile(firstSeen, bssids, vendors, newDowngraded, strongestRank);
+        }
+    }
+}
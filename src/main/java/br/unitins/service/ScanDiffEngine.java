@@ -0,0 +1,138 @@
+package br.unitins.service;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.model.ScanEvent;
+import br.unitins.util.MacSlotIndex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Compara cada varredura com o estado anterior de cada BSSID (índice MAC -> posição em
+// arrays primitivos) e entrega aos assinantes só o que mudou. O sinal é comparado com o
+// último valor reportado, não com o da varredura anterior, para que uma deriva lenta
+// também gere evento ao passar do limiar.
+public class ScanDiffEngine {
+
+    public interface Listener {
+        void onEvents(List<ScanEvent> events);
+    }
+
+    private final int goneAfterMisses;
+    private final int signalThreshold;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final MacSlotIndex slots = new MacSlotIndex(this::grow);
+    private String[] slotSsid = new String[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotReportedSignal = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotLastSignal = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotChannel = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotSecurity = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private long[] slotLastSeen = new long[MacSlotIndex.INITIAL_CAPACITY];
+    private long[] slotLastScan = new long[MacSlotIndex.INITIAL_CAPACITY];
+    private int[] slotMisses = new int[MacSlotIndex.INITIAL_CAPACITY];
+    private long scanNumber;
+
+    public ScanDiffEngine(int goneAfterMisses, int signalThreshold) {
+        this.goneAfterMisses = goneAfterMisses;
+        this.signalThreshold = signalThreshold;
+    }
+
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Cada lote é tratado como uma varredura completa: quem não está nele conta uma ausência
+    public void ingest(ScanBatch batch) {
+        List<ScanEvent> events;
+        synchronized (this) {
+            events = diff(batch);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // Falha de um assinante não interrompe a varredura nem os demais assinantes
+        for (Listener listener : listeners) {
+            try {
+                listener.onEvents(events);
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao processar eventos de varredura: " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized int getTrackedCount() {
+        return slots.size();
+    }
+
+    private List<ScanEvent> diff(ScanBatch batch) {
+        List<ScanEvent> events = new ArrayList<>();
+        long scan = ++scanNumber;
+
+        for (int i = 0; i < batch.size(); i++) {
+            long mac = batch.getMac(i);
+            int signal = batch.getSignalLevel(i);
+            int channel = batch.getChannel(i);
+            int security = batch.getSecurity(i).ordinal();
+            long seen = batch.getScanEpochSecond(i);
+            String ssid = batch.getSsid(i);
+
+            int slot = slots.get(mac);
+            if (slot == MacSlotIndex.MISSING) {
+                slot = slots.allocate(mac);
+                events.add(new ScanEvent(ScanEvent.Type.APPEARED, mac, ssid, seen, signal, signal));
+                slotReportedSignal[slot] = signal;
+            } else {
+                if (Math.abs(signal - slotReportedSignal[slot]) >= signalThreshold) {
+                    events.add(new ScanEvent(ScanEvent.Type.SIGNAL_CHANGED, mac, ssid, seen,
+                            slotReportedSignal[slot], signal));
+                    slotReportedSignal[slot] = signal;
+                }
+                if (channel != slotChannel[slot]) {
+                    events.add(new ScanEvent(ScanEvent.Type.CHANNEL_CHANGED, mac, ssid, seen, slotChannel[slot], channel));
+                }
+                if (security != slotSecurity[slot]) {
+                    events.add(new ScanEvent(ScanEvent.Type.SECURITY_CHANGED, mac, ssid, seen,
+                            slotSecurity[slot], security));
+                }
+            }
+
+            slotSsid[slot] = ssid;
+            slotLastSignal[slot] = signal;
+            slotChannel[slot] = channel;
+            slotSecurity[slot] = security;
+            slotLastSeen[slot] = seen;
+            slotLastScan[slot] = scan;
+            slotMisses[slot] = 0;
+        }
+
+        for (int slot = 0; slot < slots.slotCount(); slot++) {
+            if (!slots.isActive(slot) || slotLastScan[slot] == scan) {
+                continue;
+            }
+            if (++slotMisses[slot] >= goneAfterMisses) {
+                events.add(new ScanEvent(ScanEvent.Type.GONE, slots.mac(slot), slotSsid[slot], slotLastSeen[slot],
+                        slotLastSignal[slot], slotLastSignal[slot]));
+                slots.release(slot);
+                slotSsid[slot] = null;
+            }
+        }
+        return events;
+    }
+
+    private void grow(int capacity) {
+        slotSsid = Arrays.copyOf(slotSsid, capacity);
+        slotReportedSignal = Arrays.copyOf(slotReportedSignal, capacity);
+        slotLastSignal = Arrays.copyOf(slotLastSignal, capacity);
+        slotChannel = Arrays.copyOf(slotChannel, capacity);
+        slotSecurity = Arrays.copyOf(slotSecurity, capacity);
+        slotLastSeen = Arrays.copyOf(slotLastSeen, capacity);
+        slotLastScan = Arrays.copyOf(slotLastScan, capacity);
+        slotMisses = Arrays.copyOf(slotMisses, capacity);
+    }
+}
@@ -0,0 +1,361 @@
+package br.unitins.service;
+
+import br.unitins.model.ScanBatch;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Histórico recente de sinal e qualidade por BSSID, comprimido no estilo Gorilla em
+// blocos de tamanho fixo. Os instantes são guardados em minutos (a mesma resolução do
+// banco) com delta-de-delta, então varreduras a cada minuto custam 1 bit; sinal e
+// qualidade usam delta zig-zag com prefixo curto (valor repetido custa 1 bit).
+// Com poucos bits por ponto, 24h por minuto de um AP cabem em alguns blocos.
+// Há no máximo um ponto por minuto: outra varredura no mesmo minuto substitui o último.
+public class SignalHistoryStore {
+
+    public interface PointVisitor {
+        void visit(long epochSecond, int signalLevel, int qualityLink);
+    }
+
+    // Agregado de um intervalo de downsampling
+    public record Bucket(long startEpochSecond, int count, int minSignal, int maxSignal,
+                         double avgSignal, double avgQuality) {}
+
+    // Pior caso de um ponto: 4+32 bits de instante e 2+8 de sinal e de qualidade
+    private static final int MAX_POINT_BITS = 56;
+    // Cabeçalho de objeto, campos do bloco e do array
+    private static final int BLOCK_OVERHEAD_BYTES = 80;
+
+    private final int blockBytes;
+    private final Map<Long, Series> series = new ConcurrentHashMap<>();
+
+    public SignalHistoryStore(int blockBytes) {
+        this.blockBytes = Math.max(16, blockBytes);
+    }
+
+    // Criar a série e anexar acontecem dentro do mesmo compute: a remoção de uma série
+    // vazia pelo evictOlderThan não pode descartar um ponto recém-anexado
+    public void ingest(ScanBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            long minute = Math.floorDiv(batch.getScanEpochSecond(i), 60);
+            int signal = batch.getSignalLevel(i);
+            int quality = batch.getQualityLink(i);
+            series.compute(batch.getMac(i), (mac, s) -> {
+                Series target = s != null ? s : new Series();
+                target.append(minute, signal, quality);
+                return target;
+            });
+        }
+    }
+
+    // Pontos do BSSID com instante em [fromEpochSecond, toEpochSecond], em ordem de chegada;
+    // o instante entregue é o início do minuto da varredura
+    public void forEach(long mac, long fromEpochSecond, long toEpochSecond, PointVisitor visitor) {
+        Series s = series.get(mac);
+        if (s != null) {
+            s.forEach(Math.floorDiv(fromEpochSecond + 59, 60), Math.floorDiv(toEpochSecond, 60), visitor);
+        }
+    }
+
+    // Agrega os pontos em intervalos de bucketSeconds alinhados à época Unix
+    public List<Bucket> downsample(long mac, long fromEpochSecond, long toEpochSecond, int bucketSeconds) {
+        List<Bucket> buckets = new ArrayList<>();
+        long[] current = {Long.MIN_VALUE};
+        long[] acc = new long[5]; // count, min, max, soma sinal, soma qualidade
+
+        forEach(mac, fromEpochSecond, toEpochSecond, (epochSecond, signal, quality) -> {
+            long start = epochSecond - Math.floorMod(epochSecond, bucketSeconds);
+            if (start != current[0]) {
+                if (acc[0] > 0) {
+                    buckets.add(toBucket(current[0], acc));
+                }
+                current[0] = start;
+                acc[0] = 0;
+                acc[1] = Integer.MAX_VALUE;
+                acc[2] = Integer.MIN_VALUE;
+                acc[3] = 0;
+                acc[4] = 0;
+            }
+            acc[0]++;
+            acc[1] = Math.min(acc[1], signal);
+            acc[2] = Math.max(acc[2], signal);
+            acc[3] += signal;
+            acc[4] += quality;
+        });
+        if (acc[0] > 0) {
+            buckets.add(toBucket(current[0], acc));
+        }
+        return buckets;
+    }
+
+    // Descarta blocos inteiros cujo último ponto é anterior a beforeEpochSecond
+    public void evictOlderThan(long beforeEpochSecond) {
+        long beforeMinute = Math.floorDiv(beforeEpochSecond, 60);
+        for (Long mac : series.keySet()) {
+            series.computeIfPresent(mac, (key, s) -> s.evictOlderThan(beforeMinute) ? null : s);
+        }
+    }
+
+    public int getSeriesCount() {
+        return series.size();
+    }
+
+    public long getPointCount() {
+        long points = 0;
+        for (Series s : series.values()) {
+            points += s.pointCount();
+        }
+        return points;
+    }
+
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (Series s : series.values()) {
+            bytes += s.blockCount() * (long) (blockBytes + BLOCK_OVERHEAD_BYTES);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        long points = getPointCount();
+        long bytes = getMemoryBytes();
+        return String.format("Historico de sinal: %d BSSIDs, %d pontos, %.1f MB (%.1f bytes/ponto)",
+                getSeriesCount(), points, bytes / (1024.0 * 1024.0), points == 0 ? 0 : bytes / (double) points);
+    }
+
+    private static Bucket toBucket(long start, long[] acc) {
+        return new Bucket(start, (int) acc[0], (int) acc[1], (int) acc[2],
+                acc[3] / (double) acc[0], acc[4] / (double) acc[0]);
+    }
+
+    private final class Series {
+        private final ArrayDeque<Block> blocks = new ArrayDeque<>();
+
+        synchronized void append(long minute, int signal, int quality) {
+            Block block = blocks.peekLast();
+            if (block != null && block.count > 0 && block.prevMinute == minute) {
+                block.replaceLast(signal, quality);
+                return;
+            }
+            if (block == null || !block.hasRoom()) {
+                block = new Block(minute, blockBytes);
+                blocks.addLast(block);
+            }
+            block.append(minute, signal, quality);
+        }
+
+        synchronized void forEach(long from, long to, PointVisitor visitor) {
+            for (Block block : blocks) {
+                if (block.maxMinute >= from && block.minMinute <= to) {
+                    block.forEach(from, to, visitor);
+                }
+            }
+        }
+
+        // Retorna true se a série ficou vazia
+        synchronized boolean evictOlderThan(long before) {
+            Iterator<Block> it = blocks.iterator();
+            while (it.hasNext()) {
+                if (it.next().maxMinute < before) {
+                    it.remove();
+                }
+            }
+            return blocks.isEmpty();
+        }
+
+        synchronized long pointCount() {
+            long points = 0;
+            for (Block block : blocks) {
+                points += block.count;
+            }
+            return points;
+        }
+
+        synchronized int blockCount() {
+            return blocks.size();
+        }
+    }
+
+    private static final class Block {
+        private final long firstMinute;
+        private final byte[] data;
+        private int bitPos;
+        private int count;
+        private long minMinute;
+        private long maxMinute;
+
+        // Estado do codificador (último ponto gravado)
+        private long prevMinute;
+        private long prevDelta;
+        private int prevSignal;
+        private int prevQuality;
+
+        // Início do último ponto e estado do codificador antes dele, para substituí-lo
+        private int lastPointBit;
+        private long lastPrevMinute;
+        private long lastPrevDelta;
+        private int lastPrevSignal;
+        private int lastPrevQuality;
+
+        Block(long firstMinute, int bytes) {
+            this.firstMinute = firstMinute;
+            this.data = new byte[bytes];
+            this.minMinute = firstMinute;
+            this.maxMinute = firstMinute;
+        }
+
+        boolean hasRoom() {
+            return data.length * 8 - bitPos >= MAX_POINT_BITS;
+        }
+
+        void append(long minute, int signal, int quality) {
+            lastPointBit = bitPos;
+            lastPrevMinute = prevMinute;
+            lastPrevDelta = prevDelta;
+            lastPrevSignal = prevSignal;
+            lastPrevQuality = prevQuality;
+
+            if (count == 0) {
+                // Primeiro ponto: instante no cabeçalho, valores completos
+                writeBits(signal & 0xFF, 8);
+                writeBits(quality & 0xFF, 8);
+            } else {
+                long delta = minute - prevMinute;
+                writeTimestamp(delta - prevDelta);
+                writeValue(signal - prevSignal, signal);
+                writeValue(quality - prevQuality, quality);
+                prevDelta = delta;
+            }
+            prevMinute = minute;
+            prevSignal = signal;
+            prevQuality = quality;
+            minMinute = Math.min(minMinute, minute);
+            maxMinute = Math.max(maxMinute, minute);
+            count++;
+        }
+
+        // Regrava o último ponto com novos valores no mesmo minuto. Cabe sempre: hasRoom()
+        // garantiu MAX_POINT_BITS livres a partir do início dele.
+        void replaceLast(int signal, int quality) {
+            long minute = prevMinute;
+            for (int bit = lastPointBit; bit < bitPos; bit++) {
+                data[bit >>> 3] &= (byte) ~(0x80 >>> (bit & 7));
+            }
+            bitPos = lastPointBit;
+            prevMinute = lastPrevMinute;
+            prevDelta = lastPrevDelta;
+            prevSignal = lastPrevSignal;
+            prevQuality = lastPrevQuality;
+            count--;
+            append(minute, signal, quality);
+        }
+
+        void forEach(long from, long to, PointVisitor visitor) {
+            int[] pos = {0};
+            long minute = firstMinute;
+            long delta = 0;
+            int signal = (byte) readBits(pos, 8);
+            int quality = (byte) readBits(pos, 8);
+
+            for (int k = 0; k < count; k++) {
+                if (k > 0) {
+                    delta += readTimestamp(pos);
+                    minute += delta;
+                    signal = readValue(pos, signal);
+                    quality = readValue(pos, quality);
+                }
+                if (minute >= from && minute <= to) {
+                    visitor.visit(minute * 60, signal, quality);
+                }
+            }
+        }
+
+        // Delta-de-delta: 0 -> '0'; faixas crescentes com prefixos '10', '110', '1110', '1111'
+        private void writeTimestamp(long dod) {
+            long zz = (dod << 1) ^ (dod >> 63);
+            if (dod == 0) {
+                writeBits(0, 1);
+            } else if (zz < (1 << 7)) {
+                writeBits(0b10, 2);
+                writeBits(zz, 7);
+            } else if (zz < (1 << 9)) {
+                writeBits(0b110, 3);
+                writeBits(zz, 9);
+            } else if (zz < (1 << 12)) {
+                writeBits(0b1110, 4);
+                writeBits(zz, 12);
+            } else {
+                writeBits(0b1111, 4);
+                writeBits(dod, 32);
+            }
+        }
+
+        private long readTimestamp(int[] pos) {
+            if (readBits(pos, 1) == 0) {
+                return 0;
+            }
+            if (readBits(pos, 1) == 0) {
+                return unZigZag(readBits(pos, 7));
+            }
+            if (readBits(pos, 1) == 0) {
+                return unZigZag(readBits(pos, 9));
+            }
+            if (readBits(pos, 1) == 0) {
+                return unZigZag(readBits(pos, 12));
+            }
+            return (int) readBits(pos, 32);
+        }
+
+        // Variação: 0 -> '0'; delta pequeno -> '10' + 4 bits zig-zag; senão '11' + valor em 8 bits
+        private void writeValue(int delta, int value) {
+            int zz = (delta << 1) ^ (delta >> 31);
+            if (delta == 0) {
+                writeBits(0, 1);
+            } else if (zz < 16) {
+                writeBits(0b10, 2);
+                writeBits(zz, 4);
+            } else {
+                writeBits(0b11, 2);
+                writeBits(value & 0xFF, 8);
+            }
+        }
+
+        private int readValue(int[] pos, int previous) {
+            if (readBits(pos, 1) == 0) {
+                return previous;
+            }
+            if (readBits(pos, 1) == 0) {
+                return previous + (int) unZigZag(readBits(pos, 4));
+            }
+            return (byte) readBits(pos, 8);
+        }
+
+        private void writeBits(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                if (((value >>> i) & 1) != 0) {
+                    data[bitPos >>> 3] |= (byte) (0x80 >>> (bitPos & 7));
+                }
+                bitPos++;
+            }
+        }
+
+        private long readBits(int[] pos, int bits) {
+            long value = 0;
+            int p = pos[0];
+            for (int i = 0; i < bits; i++) {
+                value = (value << 1) | ((data[p >>> 3] >>> (7 - (p & 7))) & 1);
+                p++;
+            }
+            pos[0] = p;
+            return value;
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -1,62 +1,290 @@
 package br.unitins.service;
 
+import br.unitins.config.DatabaseConfig;
 import br.unitins.model.AccessPoint;
+import br.unitins.model.AccessPointRollup;
+import br.unitins.model.Anomaly;
+import br.unitins.model.RogueAlert;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.ScanEvent;
 import br.unitins.repository.AccessPointRepository;
+import br.unitins.repository.RogueAlertRepository;
+import br.unitins.util.MacAddress;
 import br.unitins.util.WifiScannerFactory;
+import br.unitins.util.export.ColumnarExportReader;
+import br.unitins.util.export.ColumnarExportWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class WifiScannerService {
     private final AccessPointRepository repository;
     private final ScheduledExecutorService scheduler;
+    private final WriteBehindWriter writer;
+    private final IncrementalDeduplicator deduplicator;
+    private final LatestStateIndex latestState = new LatestStateIndex(
+            DatabaseConfig.LATEST_STATE_TTL_MINUTES * 60L);
+    private final HistoricalResultCache resultCache = new HistoricalResultCache(DatabaseConfig.RESULT_CACHE_MAX_BYTES);
+    private final SignalHistoryStore signalHistory = new SignalHistoryStore(DatabaseConfig.SIGNAL_HISTORY_BLOCK_BYTES);
+    private final ChannelCongestionAnalyzer channelAnalyzer = new ChannelCongestionAnalyzer(
+            DatabaseConfig.CHANNEL_STALE_SECONDS, DatabaseConfig.CHANNEL_MIN_SIGNAL, DatabaseConfig.CHANNEL_MAX_SIGNAL);
+    private final ScanDiffEngine diffEngine = new ScanDiffEngine(
+            DatabaseConfig.SCAN_DIFF_GONE_AFTER_MISSES, DatabaseConfig.SCAN_DIFF_SIGNAL_THRESHOLD_DB);
+    private final RogueApDetector rogueDetector = new RogueApDetector(
+            DatabaseConfig.ROGUE_LEARNING_MINUTES, DatabaseConfig.ROGUE_WHITELIST);
+    private final RogueAlertRepository alertRepository;
+    private final AnomalyDetector anomalyDetector = new AnomalyDetector(
+            DatabaseConfig.ANOMALY_EWMA_ALPHA, DatabaseConfig.ANOMALY_Z_THRESHOLD, DatabaseConfig.ANOMALY_MIN_DROP_DB,
+            DatabaseConfig.ANOMALY_WARMUP_SAMPLES, DatabaseConfig.ANOMALY_FLAP_THRESHOLD,
+            DatabaseConfig.ANOMALY_FLAP_DECAY, DatabaseConfig.ANOMALY_FORGET_AFTER_MISSES);
+    private volatile boolean latestStateWarmed = false;
     private boolean isScanning = false;
 
     public WifiScannerService() {
-        this.repository = new AccessPointRepository();
-        this.scheduler = Executors.newScheduledThreadPool(1);
+        this.repository = AccessPointRepository.forStorageMode(DatabaseConfig.STORAGE_MODE);
+        // Sem banco (modo "segment"), os alertas só são exibidos
+        this.alertRepository = AccessPointRepository.requiresDatabase(DatabaseConfig.STORAGE_MODE)
+                ? new RogueAlertRepository() : null;
+        // Duas threads: a manutenção em segundo plano não atrasa o monitoramento
+        this.scheduler = Executors.newScheduledThreadPool(2);
+        this.writer = new WriteBehindWriter(
+                repository,
+                DatabaseConfig.WRITE_BEHIND_QUEUE_CAPACITY,
+                DatabaseConfig.WRITE_BEHIND_FLUSH_ROWS,
+                DatabaseConfig.WRITE_BEHIND_FLUSH_MILLIS,
+                WriteBehindWriter.BackpressurePolicy.fromConfig(DatabaseConfig.WRITE_BEHIND_POLICY),
+                Path.of(DatabaseConfig.WRITE_BEHIND_SPILL_DIR),
+                DatabaseConfig.WRITE_BEHIND_MAX_ATTEMPTS);
+        this.deduplicator = new IncrementalDeduplicator(repository, DatabaseConfig.DEDUP_CHUNK_ROWS);
+        restoreAnomalyState();
+        restoreRogueState();
+        
+        // No modo "change-only" a última linha de um AP valeria até o heartbeat; o
+        // marcador gravado quando ele some encerra a reconstrução no minuto certo
+        if ("change-only".equals(DatabaseConfig.PERSISTENCE_MODE)) {
+            diffEngine.subscribe(this::writeTombstones);
+        }
+        
+        // Remoção de duplicatas só das linhas novas, fora da inicialização
+        this.scheduler.scheduleWithFixedDelay(this::removeDuplicatesByMinute,
+                0, DatabaseConfig.DEDUP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        
+        // Criação de partições futuras e retenção em segundo plano, logo após a
+        // inicialização e depois a cada hora
+        this.scheduler.scheduleAtFixedRate(this::maintainStorage, 0, 1, TimeUnit.HOURS);
+        
+        // Resumos do histórico anterior à migração 5, um dia por rodada, do mais recente
+        // para o mais antigo; até lá as leituras desses dias vêm das linhas brutas
+        if (DatabaseConfig.ROLLUPS_ENABLED && AccessPointRepository.requiresDatabase(DatabaseConfig.STORAGE_MODE)) {
+            this.scheduler.scheduleWithFixedDelay(this::backfillRollups, 0, 5, TimeUnit.SECONDS);
+        }
+        
+        // Descarte dos blocos do histórico de sinal que saíram da janela
+        this.scheduler.scheduleAtFixedRate(this::evictSignalHistory, 10, 10, TimeUnit.MINUTES);
+        
+        // Snapshot periódico do detector de anomalias (também salvo no encerramento)
+        this.scheduler.scheduleAtFixedRate(this::saveAnomalyState, 10, 10, TimeUnit.MINUTES);
+        
+        // Perfis de SSID do detector de AP falso, no mesmo ritmo
+        this.scheduler.scheduleAtFixedRate(this::saveRogueState, 10, 10, TimeUnit.MINUTES);
     }
 
     public List<AccessPoint> scanAndSaveAccessPoints() {
-        try {
-            System.out.println("Escaneando redes Wi-Fi...");
-            List<AccessPoint> accessPoints = WifiScannerFactory.scanWifiNetworks();
-            
-            if (!accessPoints.isEmpty()) {
-                repository.saveAccessPoints(accessPoints);
-                System.out.println("Encontradas " + accessPoints.size() + " redes Wi-Fi");
-            } else {
-                System.out.println("Nenhuma rede Wi-Fi encontrada no escaneamento");
+        return scanAndSaveAccessPointsAsync().join();
+    }
+
+    // A varredura roda fora da thread chamadora (com prazo máximo) e a gravação
+    // acontece quando o resultado chega, permitindo sobrepor varredura e persistência
+    public CompletableFuture<List<AccessPoint>> scanAndSaveAccessPointsAsync() {
+        return scanAndSaveBatchAsync().thenApply(ScanBatch::toAccessPoints);
+    }
+
+    // Caminho de ingestão em colunas primitivas; os AccessPoint só são criados para a interface
+    public CompletableFuture<ScanBatch> scanAndSaveBatchAsync() {
+        System.out.println("Escaneando redes Wi-Fi...");
+        return WifiScannerFactory.scanBatchAsync().thenApply(this::saveScan);
+    }
+
+    // A gravação é feita em segundo plano pelo WriteBehindWriter; a varredura seguinte
+    // não espera o banco
+    private ScanBatch saveScan(ScanBatch batch) {
+        if (!batch.isEmpty()) {
+            latestState.ingest(batch);
+            signalHistory.ingest(batch);
+            channelAnalyzer.ingest(batch);
+            diffEngine.ingest(batch);
+            reportRogueAlerts(rogueDetector.ingest(batch));
+            for (Anomaly anomaly : anomalyDetector.ingest(batch)) {
+                System.out.println("ANOMALIA: " + anomaly);
             }
-            
-            return accessPoints;
-            
-        } catch (SQLException e) {
-            System.err.println("Erro ao salvar dados no banco: " + e.getMessage());
-            // Retorna lista vazia se houver erro no banco
-            return new ArrayList<>();
+            writer.submit(batch);
+            System.out.println("Encontradas " + batch.size() + " redes Wi-Fi");
+        } else {
+            System.out.println("Nenhuma rede Wi-Fi encontrada no escaneamento");
         }
+        
+        return batch;
     }
 
-    public List<AccessPoint> getLatestAccessPoints() {
+    // Marcador no minuto seguinte à última observação de cada AP que sumiu
+    private void writeTombstones(List<ScanEvent> events) {
+        ScanBatch tombstones = null;
+        for (ScanEvent event : events) {
+            if (event.getType() != ScanEvent.Type.GONE) {
+                continue;
+            }
+            if (tombstones == null) {
+                tombstones = new ScanBatch();
+            }
+            long epochSecond = event.getEpochSecond();
+            tombstones.addTombstone(event.getMac(), epochSecond - Math.floorMod(epochSecond, 60) + 60);
+        }
+        if (tombstones != null) {
+            writer.submit(tombstones);
+        }
+    }
+
+    // Os alertas são raros; a gravação vai para o agendador para não atrasar a varredura
+    private void reportRogueAlerts(List<RogueAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        for (RogueAlert alert : alerts) {
+            System.out.println("ALERTA: " + alert);
+        }
+        if (alertRepository != null) {
+            scheduler.execute(() -> {
+                try {
+                    alertRepository.saveAlerts(alerts);
+                } catch (SQLException e) {
+                    System.err.println("Erro ao salvar alertas: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    public List<RogueAlert> getRogueAlerts(LocalDateTime startTime, LocalDateTime endTime) {
+        if (alertRepository == null) {
+            return List.of();
+        }
         try {
-            return repository.getLatestAccessPoints();
+            return alertRepository.getAlertsByTime(startTime, endTime);
         } catch (SQLException e) {
-            System.err.println("Erro ao buscar dados do banco: " + e.getMessage());
+            System.err.println("Erro ao buscar alertas: " + e.getMessage());
             return List.of();
         }
     }
 
+    private void restoreAnomalyState() {
+        Path file = Path.of(DatabaseConfig.ANOMALY_STATE_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            int restored = anomalyDetector.restore(file);
+            System.out.println("Estado do detector de anomalias restaurado: " + restored + " BSSIDs");
+        } catch (IOException e) {
+            System.err.println("Erro ao restaurar estado de anomalias: " + e.getMessage());
+        }
+    }
+
+    private void saveAnomalyState() {
+        try {
+            anomalyDetector.snapshot(Path.of(DatabaseConfig.ANOMALY_STATE_FILE));
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar estado de anomalias: " + e.getMessage());
+        }
+    }
+
+    private void restoreRogueState() {
+        Path file = Path.of(DatabaseConfig.ROGUE_STATE_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            int restored = rogueDetector.restore(file);
+            System.out.println("Perfis de SSID restaurados: " + restored);
+        } catch (IOException e) {
+            System.err.println("Erro ao restaurar perfis de SSID: " + e.getMessage());
+        }
+    }
+
+    private void saveRogueState() {
+        try {
+            rogueDetector.snapshot(Path.of(DatabaseConfig.ROGUE_STATE_FILE));
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar perfis de SSID: " + e.getMessage());
+        }
+    }
+
+    public void addToRogueWhitelist(String macAddress) {
+        long mac = MacAddress.parse(macAddress);
+        if (mac == MacAddress.INVALID) {
+            throw new IllegalArgumentException("MAC invalido: " + macAddress);
+        }
+        rogueDetector.addToWhitelist(mac);
+    }
+
+    // Eventos de mudança (AP apareceu/sumiu, sinal, canal, segurança) de cada varredura,
+    // entregues na thread da varredura
+    public void subscribeScanEvents(ScanDiffEngine.Listener listener) {
+        diffEngine.subscribe(listener);
+    }
+
+    public void unsubscribeScanEvents(ScanDiffEngine.Listener listener) {
+        diffEngine.unsubscribe(listener);
+    }
+
+    public WriteBehindWriter getWriter() {
+        return writer;
+    }
+
+    // Servido pelo índice em memória; o banco só é consultado uma vez, para aquecê-lo
+    public List<AccessPoint> getLatestAccessPoints() {
+        warmLatestState();
+        return latestState.getByQuality();
+    }
+
+    public List<AccessPoint> getLatestAccessPointsBySignal() {
+        warmLatestState();
+        return latestState.getBySignal();
+    }
+
+    public void warmLatestState() {
+        if (latestStateWarmed) {
+            return;
+        }
+        synchronized (latestState) {
+            if (latestStateWarmed) {
+                return;
+            }
+            try {
+                latestState.warm(repository.getLatestAccessPoints());
+                latestStateWarmed = true;
+            } catch (SQLException e) {
+                System.err.println("Erro ao buscar dados do banco: " + e.getMessage());
+            }
+        }
+    }
+
     public List<AccessPoint> getAccessPointsByHour(int hour) {
         try {
             if (hour < 0 || hour > 23) {
                 throw new IllegalArgumentException("Hora deve estar entre 0 e 23");
             }
-            return repository.getAccessPointsByHour(hour);
+            LocalDateTime startTime = LocalDateTime.now().withHour(hour).withMinute(0).withSecond(0).withNano(0);
+            return getCachedAccessPointsByTime(startTime, startTime.plusHours(1));
         } catch (SQLException e) {
             System.err.println("Erro ao buscar dados por horario: " + e.getMessage());
             return List.of();
@@ -71,13 +299,72 @@ public class WifiScannerService {
             if (minute < 0 || minute > 59) {
                 throw new IllegalArgumentException("Minutos devem estar entre 0 e 59");
             }
-            return repository.getAccessPointsByHourAndMinute(hour, minute);
+            LocalDateTime startTime = LocalDateTime.now().withHour(hour).withMinute(minute).withSecond(0).withNano(0);
+            return getCachedAccessPointsByTime(startTime, startTime.plusMinutes(1));
         } catch (SQLException e) {
             System.err.println("Erro ao buscar dados por horario e minuto: " + e.getMessage());
             return List.of();
         }
     }
 
+    // Intervalos já fechados não mudam mais e são servidos da memória. O intervalo é
+    // fechado quando as linhas do minuto final (gravadas com scan_time = fim) também
+    // foram escritas e a fila do write-behind não tem nada pendente.
+    private List<AccessPoint> getCachedAccessPointsByTime(LocalDateTime startTime, LocalDateTime endTime)
+            throws SQLException {
+        if (!isClosedBucket(endTime)) {
+            return repository.getAccessPointsByTime(startTime, endTime);
+        }
+
+        HistoricalResultCache.Bucket bucket = new HistoricalResultCache.Bucket(startTime, endTime);
+        List<AccessPoint> cached = resultCache.get(bucket);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<AccessPoint> accessPoints = repository.getAccessPointsByTime(startTime, endTime);
+        resultCache.put(bucket, accessPoints);
+        return accessPoints;
+    }
+
+    private boolean isClosedBucket(LocalDateTime endTime) {
+        LocalDateTime settled = endTime.plusMinutes(1).plusSeconds(DatabaseConfig.RESULT_CACHE_SETTLE_SECONDS);
+        return settled.isBefore(LocalDateTime.now()) && writer.isDrained();
+    }
+
+    // Tendência de sinal de um BSSID nas últimas horas, em intervalos de bucketMinutes,
+    // servida do histórico comprimido em memória (sem consultar o banco)
+    public List<SignalHistoryStore.Bucket> getSignalTrend(String macAddress, int hours, int bucketMinutes) {
+        long mac = MacAddress.parse(macAddress);
+        if (mac == MacAddress.INVALID) {
+            throw new IllegalArgumentException("MAC invalido: " + macAddress);
+        }
+        long now = ScanBatch.toEpochSecond(LocalDateTime.now());
+        return signalHistory.downsample(mac, now - hours * 3600L, now, bucketMinutes * 60);
+    }
+
+    // Carga por canal de uma banda e o canal recomendado, mantidos a cada varredura
+    public List<ChannelCongestionAnalyzer.ChannelLoad> getChannelLoads(ChannelCongestionAnalyzer.Band band) {
+        return channelAnalyzer.getChannelLoads(band);
+    }
+
+    public ChannelCongestionAnalyzer.ChannelLoad recommendChannel(ChannelCongestionAnalyzer.Band band) {
+        return channelAnalyzer.recommend(band);
+    }
+
+    public SignalHistoryStore getSignalHistory() {
+        return signalHistory;
+    }
+
+    private void evictSignalHistory() {
+        long now = ScanBatch.toEpochSecond(LocalDateTime.now());
+        signalHistory.evictOlderThan(now - DatabaseConfig.SIGNAL_HISTORY_HOURS * 3600L);
+    }
+
+    public HistoricalResultCache getResultCache() {
+        return resultCache;
+    }
+
     public List<AccessPoint> getAccessPointsByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
         try {
             return repository.getAccessPointsByTime(startTime, endTime);
@@ -87,6 +374,79 @@ public class WifiScannerService {
         }
     }
 
+    // Histórico em fluxo para intervalos grandes: o Stream deve ser consumido
+    // sequencialmente e lê o banco em páginas por chave (scan_time, id)
+    public Stream<AccessPoint> streamAccessPointsByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        return repository.streamAccessPointsByTime(startTime, endTime);
+    }
+
+    public void forEachAccessPointByTimeRange(LocalDateTime startTime, LocalDateTime endTime,
+                                              Consumer<AccessPoint> consumer) {
+        try {
+            repository.forEachAccessPointByTime(startTime, endTime, consumer);
+        } catch (SQLException e) {
+            System.err.println("Erro ao percorrer dados por periodo: " + e.getMessage());
+        }
+    }
+
+    // Exporta o intervalo para um arquivo colunar comprimido, lendo o banco em fluxo
+    // (memória constante). Retorna o número de linhas exportadas, ou -1 em caso de erro.
+    public long exportAccessPoints(LocalDateTime startTime, LocalDateTime endTime, Path file) {
+        try (ColumnarExportWriter exportWriter = new ColumnarExportWriter(file)) {
+            repository.forEachAccessPointByTime(startTime, endTime, ap -> {
+                try {
+                    exportWriter.write(ap);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return exportWriter.getRowCount();
+        } catch (SQLException | IOException e) {
+            System.err.println("Erro ao exportar dados: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            System.err.println("Erro ao exportar dados: " + e.getCause().getMessage());
+        }
+        return -1;
+    }
+
+    // Reimporta uma exportação colunar, bloco a bloco, pelo caminho de importação do
+    // repositório: sem filtro de mudanças e sem intercalar com o flusher do write-behind.
+    // Linhas e resumos são idempotentes por (mac, minuto), então reimportar não duplica.
+    public long importAccessPoints(Path file) {
+        long rows = 0;
+        try (ColumnarExportReader reader = new ColumnarExportReader(file)) {
+            ScanBatch batch;
+            while ((batch = reader.readBlock()) != null) {
+                repository.importScanBatch(batch);
+                rows += batch.size();
+            }
+            resultCache.clear();
+            return rows;
+        } catch (SQLException | IOException e) {
+            System.err.println("Erro ao importar dados (" + rows + " linhas gravadas): " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Resumo por BSSID (sinal mín/máx/médio, qualidade média, amostras, canais) no período
+    public List<AccessPointRollup> getRollupsByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        try {
+            return repository.getRollupsByTime(startTime, endTime);
+        } catch (SQLException e) {
+            System.err.println("Erro ao buscar resumo por periodo: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    public List<AccessPointRollup> getRollupsByDay(LocalDate day) {
+        try {
+            return repository.getRollupsByDay(day);
+        } catch (SQLException e) {
+            System.err.println("Erro ao buscar resumo do dia: " + e.getMessage());
+            return List.of();
+        }
+    }
+
     public void startRealTimeMonitoring() {
         if (isScanning) {
             System.out.println("Monitoramento ja esta ativo!");
@@ -97,12 +457,12 @@ public class WifiScannerService {
         System.out.println("Iniciando monitoramento em tempo real...");
         
         // Primeira execução imediata
-        scanAndSaveAccessPoints();
+        scanAndSaveBatchAsync().join();
         
         // Agendar execuções periódicas a cada 60 segundos
         scheduler.scheduleAtFixedRate(() -> {
             if (isScanning) {
-                scanAndSaveAccessPoints();
+                scanAndSaveBatchAsync().join();
             }
         }, 60, 60, TimeUnit.SECONDS);
     }
@@ -116,6 +476,20 @@ public class WifiScannerService {
         return isScanning;
     }
 
+    public void maintainStorage() {
+        try {
+            if (DatabaseConfig.PARTITION_BY_DAY) {
+                repository.maintainPartitions(DatabaseConfig.PARTITION_DAYS_AHEAD);
+            }
+            if (DatabaseConfig.RETENTION_DAYS > 0) {
+                repository.cleanOldRecords(DatabaseConfig.RETENTION_DAYS);
+                resultCache.clear();
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro na manutencao de particoes: " + e.getMessage());
+        }
+    }
+
     public void cleanOldRecords() {
         try {
             repository.cleanOldRecords(1); // Manter apenas dados do dia atual
@@ -124,9 +498,22 @@ public class WifiScannerService {
         }
     }
     
+    // Um dia por chamada para não segurar a thread do agendador; depois de completo
+    // a chamada retorna sem consultar o banco
+    public void backfillRollups() {
+        try {
+            repository.backfillRollupDay();
+        } catch (SQLException e) {
+            System.err.println("Erro ao preencher resumos: " + e.getMessage());
+        }
+    }
+    
+    // Processa as linhas gravadas desde a última rodada (ver IncrementalDeduplicator)
     public void removeDuplicatesByMinute() {
         try {
-            repository.removeDuplicatesByMinute();
+            if (deduplicator.runOnce() > 0) {
+                resultCache.clear();
+            }
         } catch (SQLException e) {
             System.err.println("Erro ao remover duplicatas: " + e.getMessage());
         }
@@ -143,5 +530,14 @@ public class WifiScannerService {
             scheduler.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        
+        // Gravar o que ainda está na fila antes de fechar o pool de conexões
+        writer.close(TimeUnit.SECONDS.toMillis(10));
+        System.out.println(writer);
+        System.out.println(resultCache);
+        System.out.println(signalHistory);
+        saveAnomalyState();
+        saveRogueState();
+        repository.close();
     }
 } 
\ No newline at end of file
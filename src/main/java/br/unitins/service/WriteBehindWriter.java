@@ -0,0 +1,449 @@
+package br.unitins.service;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.repository.AccessPointRepository;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Persistência write-behind: as varreduras entram em uma fila limitada e uma thread
+// dedicada agrupa vários lotes em uma única transação. Falhas transitórias (conexão,
+// deadlock, tempo esgotado) são repetidas com espera crescente, sem descartar os dados;
+// enquanto o banco está lento a fila enche e a política de contrapressão decide o que
+// fazer com novos lotes. Um lote que falha por erro permanente (restrição, dado
+// inválido) é separado em um arquivo dead-letter depois de maxAttempts tentativas,
+// para não travar a gravação dos seguintes.
+public class WriteBehindWriter {
+
+    public enum BackpressurePolicy {
+        BLOCK,        // quem envia espera por espaço na fila
+        DROP_OLDEST,  // descarta o lote mais antigo da fila
+        SPILL;        // grava o lote em disco para reprocessar depois
+
+        public static BackpressurePolicy fromConfig(String value) {
+            return switch (value) {
+                case "block" -> BLOCK;
+                case "drop-oldest" -> DROP_OLDEST;
+                default -> SPILL;
+            };
+        }
+    }
+
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30_000;
+    private static final String SPILL_PREFIX = "scan-";
+    private static final String DEAD_LETTER_PREFIX = "dead-";
+    // Lock wait timeout do MariaDB/MySQL, reportado com o SQLState genérico HY000
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    private enum FlushResult { OK, TRANSIENT_FAILURE, PERMANENT_FAILURE }
+
+    private final AccessPointRepository repository;
+    private final LinkedBlockingDeque<ScanBatch> queue;
+    private final int flushRows;
+    private final long flushMillis;
+    private final BackpressurePolicy policy;
+    private final Path spillDir;
+    private final int maxAttempts;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    // Métricas
+    private final AtomicInteger queuedRows = new AtomicInteger();
+    private final AtomicLong submittedBatches = new AtomicLong();
+    private final AtomicLong droppedBatches = new AtomicLong();
+    private final AtomicLong droppedRows = new AtomicLong();
+    private final AtomicLong spilledBatches = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong deadLetterBatches = new AtomicLong();
+    private final AtomicLong spillSequence = new AtomicLong();
+    // Arquivos scan-*.bin aguardando reprocessamento (evita listar o diretório a cada consulta)
+    private final AtomicInteger pendingSpillFiles = new AtomicInteger();
+
+    public WriteBehindWriter(AccessPointRepository repository, int queueCapacity, int flushRows,
+                             long flushMillis, BackpressurePolicy policy, Path spillDir, int maxAttempts) {
+        this.repository = repository;
+        this.queue = new LinkedBlockingDeque<>(queueCapacity);
+        this.flushRows = flushRows;
+        this.flushMillis = flushMillis;
+        this.policy = policy;
+        this.spillDir = spillDir;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.pendingSpillFiles.set(countSpillFiles());
+
+        this.flusher = new Thread(this::runFlusher, "write-behind-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public void submit(ScanBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            spill(batch);
+            return;
+        }
+
+        submittedBatches.incrementAndGet();
+        queuedRows.addAndGet(batch.size());
+
+        switch (policy) {
+            case BLOCK -> {
+                try {
+                    queue.putLast(batch);
+                } catch (InterruptedException e) {
+                    queuedRows.addAndGet(-batch.size());
+                    Thread.currentThread().interrupt();
+                    spill(batch);
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offerLast(batch)) {
+                    ScanBatch dropped = queue.pollFirst();
+                    if (dropped != null) {
+                        queuedRows.addAndGet(-dropped.size());
+                        droppedBatches.incrementAndGet();
+                        droppedRows.addAndGet(dropped.size());
+                    }
+                }
+            }
+            case SPILL -> {
+                if (!queue.offerLast(batch)) {
+                    queuedRows.addAndGet(-batch.size());
+                    spill(batch);
+                }
+            }
+        }
+    }
+
+    // Para de aceitar lotes, tenta gravar o que está na fila e descarrega o resto em disco
+    public void close(long timeoutMillis) {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<ScanBatch> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (ScanBatch batch : remaining) {
+            queuedRows.addAndGet(-batch.size());
+            spill(batch);
+        }
+    }
+
+    // Nada na fila nem lotes em disco aguardando reprocessamento
+    public boolean isDrained() {
+        return queuedRows.get() == 0 && pendingSpillFiles.get() == 0;
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+
+    public int getQueuedRows() { return queuedRows.get(); }
+
+    public long getSubmittedBatches() { return submittedBatches.get(); }
+
+    public long getDroppedBatches() { return droppedBatches.get(); }
+
+    public long getDroppedRows() { return droppedRows.get(); }
+
+    public long getSpilledBatches() { return spilledBatches.get(); }
+
+    public long getFlushCount() { return flushCount.get(); }
+
+    public long getFlushedRows() { return flushedRows.get(); }
+
+    public long getFailedFlushes() { return failedFlushes.get(); }
+
+    public long getDeadLetterBatches() { return deadLetterBatches.get(); }
+
+    public double getAverageFlushMillis() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : totalFlushNanos.get() / (double) flushes / 1_000_000;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Write-behind: fila=%d lotes/%d linhas | gravacoes=%d (%d linhas), "
+                        + "latencia media=%.2fms, max=%.2fms, falhas=%d, descartados=%d, em disco=%d, dead-letter=%d",
+                getQueueDepth(), getQueuedRows(), getFlushCount(), getFlushedRows(), getAverageFlushMillis(),
+                getMaxFlushMillis(), getFailedFlushes(), getDroppedBatches(), getSpilledBatches(),
+                getDeadLetterBatches());
+    }
+
+    private void runFlusher() {
+        ScanBatch pending = null;
+        Path pendingSpillFile = null;
+        long backoffMillis = 0;
+        int permanentFailures = 0;
+
+        while (true) {
+            try {
+                if (pending == null) {
+                    pending = collect();
+                    if (pending == null && running) {
+                        // Fila vazia: aproveitar para reprocessar lotes descarregados em disco
+                        pendingSpillFile = nextSpillFile();
+                        pending = pendingSpillFile != null ? readSpill(pendingSpillFile) : null;
+                    }
+                }
+
+                if (pending == null) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+
+                FlushResult result = flush(pending, pendingSpillFile != null);
+                if (result == FlushResult.PERMANENT_FAILURE && ++permanentFailures >= maxAttempts) {
+                    deadLetter(pending, pendingSpillFile);
+                    result = FlushResult.OK; // Lote separado: seguir para o próximo
+                }
+
+                if (result == FlushResult.OK) {
+                    if (pendingSpillFile != null) {
+                        if (Files.deleteIfExists(pendingSpillFile)) {
+                            pendingSpillFiles.decrementAndGet();
+                        }
+                        pendingSpillFile = null;
+                    } else {
+                        queuedRows.addAndGet(-pending.size());
+                    }
+                    pending = null;
+                    backoffMillis = 0;
+                    permanentFailures = 0;
+                } else {
+                    if (!running) {
+                        // Encerrando com o banco indisponível: preservar em disco
+                        if (pendingSpillFile == null) {
+                            queuedRows.addAndGet(-pending.size());
+                            spill(pending);
+                        }
+                        return;
+                    }
+                    backoffMillis = Math.min(MAX_RETRY_BACKOFF_MILLIS, Math.max(500, backoffMillis * 2));
+                    Thread.sleep(backoffMillis);
+                }
+
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // Interrompido no encerramento: continuar drenando sem esperas
+                    Thread.interrupted();
+                }
+            } catch (IOException e) {
+                System.err.println("Erro ao reprocessar lote em disco: " + e.getMessage());
+                if (pendingSpillFile != null && setAside(pendingSpillFile, ".bad")) {
+                    pendingSpillFiles.decrementAndGet();
+                }
+                pendingSpillFile = null;
+                pending = null;
+                permanentFailures = 0;
+            }
+        }
+    }
+
+    // Agrupa lotes até atingir flushRows linhas ou até o prazo do primeiro lote vencer
+    private ScanBatch collect() throws InterruptedException {
+        ScanBatch first = running ? queue.pollFirst(flushMillis, TimeUnit.MILLISECONDS) : queue.pollFirst();
+        if (first == null) {
+            return null;
+        }
+
+        ScanBatch merged = new ScanBatch(Math.max(first.size(), flushRows));
+        merged.addAll(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+
+        while (merged.size() < flushRows) {
+            long remaining = deadline - System.nanoTime();
+            ScanBatch next = running && remaining > 0
+                    ? queue.pollFirst(remaining, TimeUnit.NANOSECONDS)
+                    : queue.pollFirst();
+            if (next == null) {
+                break;
+            }
+            merged.addAll(next);
+        }
+
+        // queuedRows só diminui depois da gravação: linhas em andamento ainda contam como pendentes
+        return merged;
+    }
+
+    // Lotes do spill são sempre mais antigos que os já gravados da fila: vão pelo
+    // caminho de importação, que grava todas as linhas sem passar pelo filtro de mudanças
+    private FlushResult flush(ScanBatch batch, boolean fromSpill) {
+        long start = System.nanoTime();
+        try {
+            if (fromSpill) {
+                repository.importScanBatch(batch);
+            } else {
+                repository.saveScanBatch(batch);
+            }
+
+            long elapsed = System.nanoTime() - start;
+            flushCount.incrementAndGet();
+            flushedRows.addAndGet(batch.size());
+            totalFlushNanos.addAndGet(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            return FlushResult.OK;
+
+        } catch (SQLException e) {
+            failedFlushes.incrementAndGet();
+            if (isTransient(e)) {
+                System.err.println("Erro ao salvar dados no banco (nova tentativa em seguida): " + e.getMessage());
+                return FlushResult.TRANSIENT_FAILURE;
+            }
+            System.err.println("Erro permanente ao salvar dados no banco [" + e.getSQLState() + "]: " + e.getMessage());
+            return FlushResult.PERMANENT_FAILURE;
+        }
+    }
+
+    // Falhas que passam sozinhas: exceções transitórias ou recuperáveis do JDBC, classe
+    // de conexão (SQLState 08xxx, que o driver do MariaDB lança como não transitória),
+    // rollback de transação (40xxx, ex.: deadlock) e lock wait timeout
+    static boolean isTransient(SQLException error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException sql) {
+                String state = sql.getSQLState();
+                if (state != null && (state.startsWith("08") || state.startsWith("40"))) {
+                    return true;
+                }
+                if (sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Lote que não pode ser gravado: fica em disco para análise, fora do reprocessamento
+    private void deadLetter(ScanBatch batch, Path spillFile) {
+        deadLetterBatches.incrementAndGet();
+        if (spillFile != null) {
+            if (setAside(spillFile, ".dead")) {
+                pendingSpillFiles.decrementAndGet();
+            }
+        } else if (spillDir == null || writeBatchFile(batch, DEAD_LETTER_PREFIX) == null) {
+            droppedBatches.incrementAndGet();
+            droppedRows.addAndGet(batch.size());
+        }
+        System.err.println("Lote de " + batch.size() + " linhas separado como dead-letter apos "
+                + maxAttempts + " tentativas");
+    }
+
+    private void spill(ScanBatch batch) {
+        if (spillDir != null && writeBatchFile(batch, SPILL_PREFIX) != null) {
+            spilledBatches.incrementAndGet();
+            pendingSpillFiles.incrementAndGet();
+        } else {
+            droppedBatches.incrementAndGet();
+            droppedRows.addAndGet(batch.size());
+        }
+    }
+
+    // Grava em um arquivo temporário e troca de nome: uma queda ou disco cheio no meio
+    // da escrita deixa só o .tmp, que nunca é lido como lote
+    private Path writeBatchFile(ScanBatch batch, String prefix) {
+        Path file = spillDir.resolve(String.format("%s%016x-%06d.bin",
+                prefix, System.currentTimeMillis(), spillSequence.incrementAndGet()));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(spillDir);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                batch.writeTo(out);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            return file;
+        } catch (IOException e) {
+            System.err.println("Erro ao descarregar lote em disco: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // O .tmp é ignorado na leitura de qualquer forma
+            }
+            return null;
+        }
+    }
+
+    private Path nextSpillFile() throws IOException {
+        if (pendingSpillFiles.get() == 0 || spillDir == null || !Files.isDirectory(spillDir)) {
+            return null;
+        }
+
+        // Nomes começam com o timestamp em hexadecimal: a ordem lexicográfica é a cronológica
+        Path oldest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, SPILL_PREFIX + "*.bin")) {
+            for (Path file : files) {
+                if (oldest == null || file.getFileName().toString().compareTo(oldest.getFileName().toString()) < 0) {
+                    oldest = file;
+                }
+            }
+        }
+        if (oldest == null) {
+            pendingSpillFiles.set(0); // Arquivos removidos por fora
+        }
+        return oldest;
+    }
+
+    private int countSpillFiles() {
+        if (spillDir == null || !Files.isDirectory(spillDir)) {
+            return 0;
+        }
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir, SPILL_PREFIX + "*.bin")) {
+            for (Path ignored : files) {
+                count++;
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao listar lotes em disco: " + e.getMessage());
+        }
+        return count;
+    }
+
+    // Renomeia o arquivo com o sufixo (.bad ilegível, .dead sem gravação possível) para
+    // não ser reprocessado em laço
+    private static boolean setAside(Path file, String suffix) {
+        try {
+            Files.move(file, file.resolveSibling(file.getFileName() + suffix));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Nao foi possivel isolar " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static ScanBatch readSpill(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return ScanBatch.readFrom(in);
+        }
+    }
+}
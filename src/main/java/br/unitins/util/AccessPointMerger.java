@@ -0,0 +1,57 @@
+package br.unitins.util;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.AccessPoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Mescla varreduras de várias interfaces em uma lista com um AP por BSSID
+public class AccessPointMerger {
+    
+    private static final long UNKNOWN_AGE = 0;
+    
+    public static List<AccessPoint> mergeByBssid(List<List<AccessPoint>> scans) {
+        if (scans.size() == 1) {
+            return scans.get(0);
+        }
+        
+        int total = 0;
+        for (List<AccessPoint> scan : scans) {
+            total += scan.size();
+        }
+        
+        Map<String, AccessPoint> byBssid = new HashMap<>(total * 4 / 3 + 1);
+        for (List<AccessPoint> scan : scans) {
+            for (AccessPoint ap : scan) {
+                byBssid.merge(ap.getMacAddress(), ap, AccessPointMerger::preferred);
+            }
+        }
+        
+        return new ArrayList<>(byBssid.values());
+    }
+    
+    // Uma observação recente vence uma obsoleta (cache antigo de outra interface);
+    // entre duas igualmente recentes, vence o sinal mais forte. lastBeacon 0 é idade
+    // desconhecida (iwlist sem "Last beacon") e não entra nas comparações de idade.
+    static AccessPoint preferred(AccessPoint current, AccessPoint candidate) {
+        boolean currentStale = isStale(current);
+        boolean candidateStale = isStale(candidate);
+        
+        if (currentStale != candidateStale) {
+            return currentStale ? candidate : current;
+        }
+        if (candidate.getSignalLevel() != current.getSignalLevel()) {
+            return candidate.getSignalLevel() > current.getSignalLevel() ? candidate : current;
+        }
+        if (current.getLastBeacon() == UNKNOWN_AGE || candidate.getLastBeacon() == UNKNOWN_AGE) {
+            return current;
+        }
+        return candidate.getLastBeacon() < current.getLastBeacon() ? candidate : current;
+    }
+    
+    private static boolean isStale(AccessPoint ap) {
+        return ap.getLastBeacon() != UNKNOWN_AGE && ap.getLastBeacon() > DatabaseConfig.MERGE_STALE_BEACON_MS;
+    }
+}
@@ -0,0 +1,138 @@
+package br.unitins.util;
+
+import br.unitins.model.AccessPoint;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Executa comandos de varredura fora da thread chamadora: stdout é processado
+// linha a linha conforme chega, stderr é drenado em paralelo (para o processo não
+// travar com o buffer cheio) e um prazo máximo mata o processo e seus filhos.
+public class CommandRunner {
+
+    private static final int MAX_STDERR_CHARS = 4096;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    // Threads daemon sob demanda: cada varredura usa duas (stdout e stderr) só enquanto o processo vive
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "scan-io-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static ExecutorService executor() {
+        return executor;
+    }
+
+    public static CompletableFuture<List<AccessPoint>> scan(List<String> command,
+                                                            Function<Consumer<AccessPoint>, ScanOutputParser> parserFactory,
+                                                            long timeoutMillis) {
+        Process process;
+        try {
+            process = new ProcessBuilder(command).start();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // stdin não é usado
+        try {
+            process.getOutputStream().close();
+        } catch (IOException ignored) {
+            // Processo já encerrado
+        }
+
+        CompletableFuture<String> stderr = CompletableFuture.supplyAsync(
+                () -> drain(process.getErrorStream()), executor);
+
+        CompletableFuture<List<AccessPoint>> result = CompletableFuture.supplyAsync(() -> {
+            List<AccessPoint> accessPoints = new ArrayList<>();
+            ScanOutputParser parser = parserFactory.apply(accessPoints::add);
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    parser.parseLine(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            parser.finish();
+
+            try {
+                // stdout fechado: o processo deve estar terminando
+                if (process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS) && process.exitValue() != 0) {
+                    String errors = stderr.completeOnTimeout("", 500, TimeUnit.MILLISECONDS).join().trim();
+                    System.err.println("Comando '" + String.join(" ", command) + "' terminou com codigo "
+                            + process.exitValue() + (errors.isEmpty() ? "" : ": " + errors));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return accessPoints;
+        }, executor);
+
+        return result
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((accessPoints, error) -> {
+                    if (error != null) {
+                        kill(process);
+                    }
+                });
+    }
+
+    // Dispara um comando sem aguardar o resultado, matando-o se passar do prazo
+    public static void runDetached(List<String> command, long timeoutMillis) throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        process.onExit()
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((p, error) -> {
+                    if (error != null) {
+                        kill(process);
+                    }
+                });
+    }
+
+    private static void kill(Process process) {
+        if (process.isAlive()) {
+            System.err.println("Processo de varredura excedeu o prazo e foi encerrado (pid " + process.pid() + ")");
+        }
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static String drain(InputStream stream) {
+        StringBuilder output = new StringBuilder();
+        char[] buffer = new char[1024];
+
+        try (InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                // Guarda só o início; o restante é descartado mas continua sendo lido
+                int keep = Math.min(read, MAX_STDERR_CHARS - output.length());
+                if (keep > 0) {
+                    output.append(buffer, 0, keep);
+                }
+            }
+        } catch (IOException e) {
+            // Stream fechado ao matar o processo
+        }
+        return output.toString();
+    }
+}
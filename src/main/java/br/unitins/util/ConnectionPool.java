@@ -0,0 +1,245 @@
+package br.unitins.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool limitado de conexões JDBC. As conexões entregues são proxies: close() devolve
+// a conexão física ao pool em vez de fechá-la, então o padrão try-with-resources dos
+// repositórios continua valendo sem reconectar a cada chamada.
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxConnections;
+    private final long timeoutMillis;
+    private final long validationIdleMillis;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private volatile boolean closed = false;
+
+    // Métricas
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int maxConnections, long timeoutMillis, long validationIdleMillis) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxConnections = maxConnections;
+        this.timeoutMillis = timeoutMillis;
+        this.validationIdleMillis = validationIdleMillis;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool de conexoes encerrado");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTimeoutException("Tempo esgotado aguardando conexao do pool ("
+                        + timeoutMillis + "ms, " + maxConnections + " em uso)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexao do pool", e);
+        } finally {
+            recordWait(System.nanoTime() - start);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (validate(pooled)) {
+                    return pooled.lease();
+                }
+                discard(pooled);
+            }
+
+            pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+            createdCount.incrementAndGet();
+            return pooled.lease();
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.physical);
+        }
+    }
+
+    public int getMaxConnections() { return maxConnections; }
+
+    public int getActiveCount() { return maxConnections - permits.availablePermits(); }
+
+    public int getIdleCount() { return idle.size(); }
+
+    public long getBorrowCount() { return borrowCount.get(); }
+
+    public long getTimeoutCount() { return timeoutCount.get(); }
+
+    public long getCreatedCount() { return createdCount.get(); }
+
+    public long getDiscardedCount() { return discardedCount.get(); }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / (double) borrows / 1_000_000;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool: %d/%d em uso, %d ociosas | emprestimos=%d, espera media=%.2fms, "
+                        + "espera max=%.2fms, timeouts=%d, criadas=%d, descartadas=%d",
+                getActiveCount(), maxConnections, getIdleCount(), getBorrowCount(), getAverageWaitMillis(),
+                getMaxWaitMillis(), getTimeoutCount(), getCreatedCount(), getDiscardedCount());
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    // Conexões usadas há pouco são devolvidas sem ida ao banco; as demais passam por um ping
+    private boolean validate(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.releasedAt);
+            return idleMillis < validationIdleMillis || pooled.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            Connection physical = pooled.physical;
+            if (closed || physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+
+            // Desfazer estado deixado pelo chamador (transação aberta, autocommit desligado)
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            pooled.releasedAt = System.nanoTime();
+            idle.offerFirst(pooled);
+
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        discardedCount.incrementAndGet();
+        closeQuietly(pooled.physical);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Conexão já inutilizada
+        }
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long releasedAt = System.nanoTime();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    // Cada empréstimo tem seu próprio handler: após close(), o proxy fica inutilizável
+    // mesmo que a conexão física já esteja emprestada a outra thread
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean released = false;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return released || pooled.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + pooled.physical + (released ? ", devolvida" : "") + "]";
+                }
+                default -> {
+                    if (released) {
+                        throw new SQLException("Conexao ja devolvida ao pool");
+                    }
+                }
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
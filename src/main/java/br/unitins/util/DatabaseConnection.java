@@ -1,13 +1,13 @@
 package br.unitins.util;
 
 import br.unitins.config.DatabaseConfig;
+import br.unitins.util.migration.SchemaMigrator;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 public class DatabaseConnection {
-    private static Connection connection;
+    private static volatile ConnectionPool pool;
 
     static {
         try {
@@ -17,15 +17,30 @@ public class DatabaseConnection {
         }
     }
 
+    // Empresta uma conexão do pool; close() a devolve em vez de fechar o socket
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(
-                DatabaseConfig.DB_URL,
-                DatabaseConfig.DB_USER,
-                DatabaseConfig.DB_PASSWORD
-            );
+        return getPool().borrow();
+    }
+
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(
+                        DatabaseConfig.DB_URL,
+                        DatabaseConfig.DB_USER,
+                        DatabaseConfig.DB_PASSWORD,
+                        DatabaseConfig.MAX_CONNECTIONS,
+                        DatabaseConfig.CONNECTION_TIMEOUT,
+                        DatabaseConfig.CONNECTION_VALIDATION_IDLE_MS
+                    );
+                    pool = current;
+                }
+            }
         }
-        return connection;
+        return current;
     }
 
     public static void initializeDatabase() {
@@ -36,30 +51,9 @@ public class DatabaseConnection {
             stmt.execute("CREATE DATABASE IF NOT EXISTS hotspot_scanner");
             stmt.execute("USE hotspot_scanner");
             
-            // Dropar tabela se existir para recriar com estrutura correta
-            stmt.execute("DROP TABLE IF EXISTS access_points");
-            
-            // Criar tabela com estrutura correta
-            String createTableSQL = """
-                CREATE TABLE access_points (
-                    id INT AUTO_INCREMENT PRIMARY KEY,
-                    ssid VARCHAR(255),
-                    mac_address VARCHAR(17) NOT NULL,
-                    quality_link INT,
-                    signal_level INT,
-                    channel_number INT,
-                    frequency DECIMAL(4,1),
-                    last_beacon BIGINT,
-                    beacon_interval INT,
-                    wifi_security VARCHAR(50),
-                    scan_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    INDEX idx_scan_time (scan_time),
-                    INDEX idx_mac_address (mac_address),
-                    UNIQUE KEY unique_mac_minute (mac_address, scan_time)
-                ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci
-                """;
+            // Aplicar apenas as migrações pendentes; o histórico é preservado entre execuções
+            SchemaMigrator.migrate(conn);
             
-            stmt.execute(createTableSQL);
             System.out.println("Banco de dados inicializado com sucesso!");
             
         } catch (SQLException e) {
@@ -69,12 +63,11 @@ public class DatabaseConnection {
     }
 
     public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Erro ao fechar conexão: " + e.getMessage());
+        ConnectionPool current = pool;
+        if (current != null) {
+            System.out.println(current);
+            current.close();
+            pool = null;
         }
     }
 } 
\ No newline at end of file
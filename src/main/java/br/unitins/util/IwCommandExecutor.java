@@ -0,0 +1,49 @@
+package br.unitins.util;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.AccessPoint;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class IwCommandExecutor {
+    
+    // Momento do último "scan trigger" (varredura ativa) disparado por interface
+    private static final Map<String, Long> lastTriggerMillis = new ConcurrentHashMap<>();
+    
+    public static CompletableFuture<List<AccessPoint>> scanWifiNetworksAsync() {
+        return scanWifiNetworksAsync(DatabaseConfig.WIFI_INTERFACE);
+    }
+    
+    public static CompletableFuture<List<AccessPoint>> scanWifiNetworksAsync(String wifiInterface) {
+        // Varredura ativa só na cadência configurada; nas demais, lê o cache do kernel
+        triggerScanIfDue(wifiInterface);
+        
+        return CommandRunner.scan(
+                List.of("iw", "dev", wifiInterface, "scan", "dump"),
+                IwScanParser::new,
+                TimeUnit.SECONDS.toMillis(DatabaseConfig.SCAN_TIMEOUT_SECONDS));
+    }
+    
+    private static void triggerScanIfDue(String wifiInterface) {
+        long now = System.currentTimeMillis();
+        long intervalMillis = TimeUnit.SECONDS.toMillis(DatabaseConfig.IW_ACTIVE_SCAN_INTERVAL_SECONDS);
+        Long last = lastTriggerMillis.get(wifiInterface);
+        
+        if (last != null && now - last < intervalMillis) {
+            return;
+        }
+        lastTriggerMillis.put(wifiInterface, now);
+        
+        try {
+            // O trigger retorna imediatamente; os resultados aparecem nos próximos dumps
+            CommandRunner.runDetached(List.of("iw", "dev", wifiInterface, "scan", "trigger"),
+                    TimeUnit.SECONDS.toMillis(DatabaseConfig.SCAN_TIMEOUT_SECONDS));
+        } catch (IOException e) {
+            System.err.println("Nao foi possivel disparar varredura ativa com iw: " + e.getMessage());
+        }
+    }
+}
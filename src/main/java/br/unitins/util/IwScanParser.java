@@ -0,0 +1,289 @@
+package br.unitins.util;
+
+import static br.unitins.util.ScanLineTokens.isHidden;
+import static br.unitins.util.ScanLineTokens.parseSigned;
+import static br.unitins.util.ScanLineTokens.parseUnsigned;
+import static br.unitins.util.ScanLineTokens.skipDigits;
+import static br.unitins.util.ScanLineTokens.skipSpaces;
+
+import br.unitins.model.AccessPoint;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class IwScanParser implements ScanOutputParser {
+
+    private static final String BSS = "BSS ";
+    private static final String SSID = "SSID: ";
+    private static final String FREQ = "freq: ";
+    private static final String SIGNAL = "signal: ";
+    private static final String LAST_SEEN = "last seen: ";
+    private static final String BOOTTIME = "s [boottime]";
+    private static final long UNKNOWN = -1;
+    private static final String BEACON_INTERVAL = "beacon interval: ";
+    private static final String CAPABILITY = "capability: ";
+    private static final String DS_PARAMETER_SET = "DS Parameter set: channel ";
+    private static final String PRIMARY_CHANNEL = "* primary channel: ";
+    private static final String AUTH_SUITES = "* Authentication suites: ";
+    private static final String RSN = "RSN:";
+    private static final String WPA = "WPA:";
+
+    // Seção de nível 1 atualmente aberta (as linhas com mais indentação pertencem a ela)
+    private static final int SECTION_OTHER = 0;
+    private static final int SECTION_RSN = 1;
+
+    private final Consumer<AccessPoint> sink;
+    private final LocalDateTime scanTime;
+    // Instante atual no relógio de boot (CLOCK_BOOTTIME), em ms; UNKNOWN se indisponível
+    private final long boottimeMillis;
+    private AccessPoint currentAP;
+    private long lastSeenBoottime;
+    private boolean lastSeenAgo;
+    private boolean privacy;
+    private boolean rsn;
+    private boolean wpa;
+    private boolean sae;
+    private int section;
+
+    public IwScanParser(Consumer<AccessPoint> sink) {
+        this(sink, readBoottimeMillis());
+    }
+
+    IwScanParser(Consumer<AccessPoint> sink, long boottimeMillis) {
+        this.sink = sink;
+        this.scanTime = LocalDateTime.now();
+        this.boottimeMillis = boottimeMillis;
+    }
+
+    public static List<AccessPoint> parse(BufferedReader reader) throws IOException {
+        return parse(reader, readBoottimeMillis());
+    }
+
+    static List<AccessPoint> parse(BufferedReader reader, long boottimeMillis) throws IOException {
+        List<AccessPoint> accessPoints = new ArrayList<>();
+        IwScanParser parser = new IwScanParser(accessPoints::add, boottimeMillis);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            parser.parseLine(line);
+        }
+        parser.finish();
+
+        return accessPoints;
+    }
+
+    // Processa uma linha de "iw dev <if> scan dump". Cada BSS começa na coluna 0;
+    // os campos vêm indentados com TAB e as subseções (RSN, HT operation) com dois.
+    @Override
+    public void parseLine(String line) {
+        if (line.startsWith(BSS)) {
+            finish();
+            startBss(line);
+            return;
+        }
+
+        if (currentAP == null) {
+            return;
+        }
+
+        int depth = 0;
+        while (depth < line.length() && line.charAt(depth) == '\t') {
+            depth++;
+        }
+        int start = skipSpaces(line, depth);
+        if (start >= line.length()) {
+            return;
+        }
+
+        if (depth <= 1) {
+            parseField(line, start);
+        } else {
+            parseNested(line, start);
+        }
+    }
+
+    // Entrega o BSS em construção ao consumidor
+    @Override
+    public void finish() {
+        if (currentAP == null) {
+            return;
+        }
+
+        currentAP.setWifiSecurity(resolveSecurity());
+        if (currentAP.getChannel() == 0) {
+            currentAP.setChannel(channelFromFrequency((int) Math.round(currentAP.getFrequency() * 1000)));
+        }
+        if (currentAP.getBeaconInterval() == 0) {
+            currentAP.setBeaconInterval(100); // Valor padrão típico
+        }
+        // Sem a linha "ms ago", a idade sai do instante absoluto no relógio de boot
+        if (!lastSeenAgo && lastSeenBoottime != UNKNOWN && boottimeMillis != UNKNOWN) {
+            currentAP.setLastBeacon(Math.max(0, boottimeMillis - lastSeenBoottime));
+        }
+
+        sink.accept(currentAP);
+        currentAP = null;
+    }
+
+    private void startBss(String line) {
+        currentAP = new AccessPoint();
+        // BSS 00:11:22:33:44:55(on wlan0) -- associated
+        int from = BSS.length();
+        int to = from + 17;
+        currentAP.setMacAddress(to <= line.length()
+                ? line.substring(from, to).toUpperCase()
+                : "00:00:00:00:00:00");
+        currentAP.setScanTime(scanTime);
+        currentAP.setSignalLevel(-100);
+        lastSeenBoottime = UNKNOWN;
+        lastSeenAgo = false;
+        privacy = false;
+        rsn = false;
+        wpa = false;
+        sae = false;
+        section = SECTION_OTHER;
+    }
+
+    private void parseField(String line, int start) {
+        section = SECTION_OTHER;
+
+        switch (line.charAt(start)) {
+            case 'S' -> {
+                if (line.startsWith(SSID, start)) {
+                    String ssid = line.substring(start + SSID.length());
+                    currentAP.setSsid(isHidden(ssid) ? null : ssid);
+                }
+            }
+            case 's' -> {
+                if (line.startsWith(SIGNAL, start)) {
+                    // signal: -39.00 dBm
+                    int dbm = parseSigned(line, start + SIGNAL.length());
+                    if (dbm != Integer.MIN_VALUE) {
+                        currentAP.setSignalLevel(dbm);
+                        currentAP.setQualityLink(qualityFromDbm(dbm));
+                    }
+                }
+            }
+            case 'f' -> {
+                if (line.startsWith(FREQ, start)) {
+                    // freq: 2437 (ou 2437.0 nas versões mais novas do iw)
+                    int mhz = parseUnsigned(line, start + FREQ.length());
+                    if (mhz > 0) {
+                        currentAP.setFrequency(mhz / 1000.0);
+                    }
+                }
+            }
+            case 'l' -> {
+                if (line.startsWith(LAST_SEEN, start)) {
+                    // last seen: 40 ms ago, ou last seen: 2047.820s [boottime] (iw mais novo
+                    // imprime as duas; sem a primeira, a idade é calculada em finish)
+                    int pos = start + LAST_SEEN.length();
+                    int end = skipDigits(line, pos);
+                    if (end > pos && line.startsWith(" ms", end)) {
+                        currentAP.setLastBeacon(parseUnsigned(line, pos));
+                        lastSeenAgo = true;
+                    } else if (end > pos && end < line.length() && line.charAt(end) == '.') {
+                        int fractionEnd = skipDigits(line, end + 1);
+                        if (fractionEnd == end + 4 && line.startsWith(BOOTTIME, fractionEnd)) {
+                            lastSeenBoottime = parseUnsigned(line, pos) * 1000L + parseUnsigned(line, end + 1);
+                        }
+                    }
+                }
+            }
+            case 'b' -> {
+                if (line.startsWith(BEACON_INTERVAL, start)) {
+                    int tus = parseUnsigned(line, start + BEACON_INTERVAL.length());
+                    if (tus > 0) {
+                        currentAP.setBeaconInterval(tus);
+                    }
+                }
+            }
+            case 'c' -> {
+                if (line.startsWith(CAPABILITY, start)) {
+                    privacy = line.indexOf("Privacy", start + CAPABILITY.length()) >= 0;
+                }
+            }
+            case 'D' -> {
+                if (line.startsWith(DS_PARAMETER_SET, start)) {
+                    int channel = parseUnsigned(line, start + DS_PARAMETER_SET.length());
+                    if (channel > 0) {
+                        currentAP.setChannel(channel);
+                    }
+                }
+            }
+            case 'R' -> {
+                if (line.startsWith(RSN, start)) {
+                    rsn = true;
+                    section = SECTION_RSN;
+                }
+            }
+            case 'W' -> {
+                if (line.startsWith(WPA, start)) {
+                    wpa = true;
+                }
+            }
+            default -> {
+                // Campo não utilizado (TSF, Supported rates, HT capabilities, ...)
+            }
+        }
+    }
+
+    private void parseNested(String line, int start) {
+        if (section == SECTION_RSN && line.startsWith(AUTH_SUITES, start)) {
+            sae = line.indexOf("SAE", start + AUTH_SUITES.length()) >= 0;
+        } else if (currentAP.getChannel() == 0 && line.startsWith(PRIMARY_CHANNEL, start)) {
+            int channel = parseUnsigned(line, start + PRIMARY_CHANNEL.length());
+            if (channel > 0) {
+                currentAP.setChannel(channel);
+            }
+        }
+    }
+
+    private String resolveSecurity() {
+        if (rsn) {
+            return sae ? "WPA3" : "WPA2";
+        }
+        if (wpa) {
+            return "WPA";
+        }
+        return privacy ? "WEP" : "Open";
+    }
+
+    // Primeiro campo de /proc/uptime, que conta o tempo desde o boot incluindo suspensão
+    private static long readBoottimeMillis() {
+        try {
+            String uptime = Files.readString(Path.of("/proc/uptime"));
+            int end = uptime.indexOf(' ');
+            return (long) (Double.parseDouble(end > 0 ? uptime.substring(0, end) : uptime.trim()) * 1000);
+        } catch (IOException | RuntimeException e) {
+            return UNKNOWN;
+        }
+    }
+
+    static int channelFromFrequency(int mhz) {
+        if (mhz == 2484) {
+            return 14;
+        }
+        if (mhz >= 2412 && mhz < 2484) {
+            return (mhz - 2407) / 5;
+        }
+        if (mhz >= 5955 && mhz <= 7115) {
+            return (mhz - 5950) / 5; // 6 GHz
+        }
+        if (mhz >= 5000 && mhz < 5955) {
+            return (mhz - 5000) / 5;
+        }
+        return 1;
+    }
+
+    // Mesma escala do iwlist (Quality=x/70 com x = dBm + 110), convertida para %
+    static int qualityFromDbm(int dbm) {
+        int quality = (dbm + 110) * 100 / 70;
+        return Math.max(0, Math.min(100, quality));
+    }
+}
@@ -0,0 +1,220 @@
+package br.unitins.util;
+
+import static br.unitins.util.ScanLineTokens.isHidden;
+import static br.unitins.util.ScanLineTokens.parseSigned;
+import static br.unitins.util.ScanLineTokens.parseUnsigned;
+import static br.unitins.util.ScanLineTokens.skipDigits;
+import static br.unitins.util.ScanLineTokens.skipSpaces;
+
+import br.unitins.model.AccessPoint;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class IwlistParser implements ScanOutputParser {
+
+    private static final String CELL = "Cell ";
+    private static final String ADDRESS = "Address:";
+    private static final String ESSID = "ESSID:\"";
+    private static final String QUALITY = "Quality=";
+    private static final String SIGNAL_LEVEL = "Signal level=";
+    private static final String FREQUENCY = "Frequency:";
+    private static final String CHANNEL = "Channel ";
+    private static final String ENCRYPTION_KEY = "Encryption key:";
+    private static final String IE_WPA2 = "IE: IEEE 802.11i/WPA2";
+    private static final String IE_WPA = "IE: WPA";
+    private static final String BEACON_INTERVAL = "Beacon Interval:";
+    private static final String LAST_BEACON = "Last beacon:";
+    private static final String EXTRA = "Extra:";
+
+    private final Consumer<AccessPoint> sink;
+    private final LocalDateTime scanTime;
+    private AccessPoint currentAP;
+
+    public IwlistParser(Consumer<AccessPoint> sink) {
+        this.sink = sink;
+        // Um único timestamp por varredura em vez de um por célula
+        this.scanTime = LocalDateTime.now();
+    }
+
+    public static List<AccessPoint> parse(BufferedReader reader) throws IOException {
+        List<AccessPoint> accessPoints = new ArrayList<>();
+        IwlistParser parser = new IwlistParser(accessPoints::add);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            parser.parseLine(line);
+        }
+        parser.finish();
+
+        return accessPoints;
+    }
+
+    // Processa uma linha da saída do iwlist. A linha é percorrida apenas uma vez:
+    // o prefixo após a indentação decide o campo e os números são lidos direto
+    // dos caracteres, sem criar substrings intermediárias.
+    @Override
+    public void parseLine(String line) {
+        int start = skipSpaces(line, 0);
+        if (start >= line.length()) {
+            return;
+        }
+
+        // Nova célula (novo AP)
+        if (line.startsWith(CELL, start)) {
+            int address = line.indexOf(ADDRESS, start);
+            if (address >= 0) {
+                finish();
+                currentAP = new AccessPoint();
+                currentAP.setMacAddress(extractMacAddress(line, address + ADDRESS.length()));
+                currentAP.setScanTime(scanTime);
+            }
+            return;
+        }
+
+        if (currentAP == null) {
+            return;
+        }
+
+        switch (line.charAt(start)) {
+            case 'E' -> {
+                if (line.startsWith(ESSID, start)) {
+                    int end = line.lastIndexOf('"');
+                    int from = start + ESSID.length();
+                    String ssid = end >= from ? line.substring(from, end) : "";
+                    currentAP.setSsid(isHidden(ssid) ? null : ssid);
+                } else if (line.startsWith(ENCRYPTION_KEY, start)) {
+                    boolean on = line.startsWith("on", start + ENCRYPTION_KEY.length());
+                    currentAP.setWifiSecurity(on ? "WEP" : "Open");
+                } else if (line.startsWith(EXTRA, start)) {
+                    parseLastBeacon(line, start + EXTRA.length());
+                }
+            }
+            case 'Q' -> {
+                if (line.startsWith(QUALITY, start)) {
+                    parseQualityAndSignal(line, start + QUALITY.length());
+                }
+            }
+            case 'F' -> {
+                if (line.startsWith(FREQUENCY, start)) {
+                    parseFrequencyAndChannel(line, start + FREQUENCY.length());
+                }
+            }
+            case 'I' -> {
+                if (line.startsWith(IE_WPA2, start)) {
+                    currentAP.setWifiSecurity("WPA2");
+                } else if (line.startsWith(IE_WPA, start) && !"WPA2".equals(currentAP.getWifiSecurity())) {
+                    // Não rebaixar uma célula que já anunciou WPA2
+                    currentAP.setWifiSecurity("WPA");
+                }
+            }
+            case 'B' -> {
+                if (line.startsWith(BEACON_INTERVAL, start)) {
+                    int value = parseUnsigned(line, skipSpaces(line, start + BEACON_INTERVAL.length()));
+                    currentAP.setBeaconInterval(value > 0 ? value : 100);
+                }
+            }
+            default -> {
+                // Linha não utilizada (Mode, Bit Rates, IE desconhecido, ...)
+            }
+        }
+    }
+
+    // Entrega o AP em construção ao consumidor, aplicando os valores padrão
+    @Override
+    public void finish() {
+        if (currentAP == null) {
+            return;
+        }
+
+        if (currentAP.getBeaconInterval() == 0) {
+            currentAP.setBeaconInterval(100); // Valor padrão típico
+        }
+        // Sem "Last beacon" (comum no iwlist), lastBeacon fica 0: idade desconhecida
+
+        sink.accept(currentAP);
+        currentAP = null;
+    }
+
+    private void parseQualityAndSignal(String line, int pos) {
+        int signal = line.indexOf(SIGNAL_LEVEL, pos);
+        if (signal < 0) {
+            return;
+        }
+
+        // Quality=70/70
+        int current = parseUnsigned(line, pos);
+        int slash = skipDigits(line, pos);
+        int max = slash < line.length() && line.charAt(slash) == '/' ? parseUnsigned(line, slash + 1) : -1;
+        currentAP.setQualityLink(current >= 0 && max > 0 ? (current * 100) / max : 0);
+
+        // Signal level=-39 dBm
+        int signalLevel = parseSigned(line, signal + SIGNAL_LEVEL.length());
+        currentAP.setSignalLevel(signalLevel != Integer.MIN_VALUE ? signalLevel : -100);
+    }
+
+    private void parseFrequencyAndChannel(String line, int pos) {
+        // Frequency:2.437 GHz (Channel 6)
+        int end = skipDigits(line, pos);
+        if (end > pos && end < line.length() && line.charAt(end) == '.') {
+            int fractionEnd = skipDigits(line, end + 1);
+            currentAP.setFrequency(fractionEnd > end + 1 ? parseDecimal(line, pos, fractionEnd) : 2.4);
+        } else {
+            currentAP.setFrequency(2.4);
+        }
+
+        int channel = line.indexOf(CHANNEL, end);
+        int value = channel >= 0 ? parseUnsigned(line, channel + CHANNEL.length()) : -1;
+        currentAP.setChannel(value >= 0 ? value : 1);
+    }
+
+    private void parseLastBeacon(String line, int pos) {
+        // Extra: Last beacon: 40ms ago
+        int lastBeacon = line.indexOf(LAST_BEACON, pos);
+        if (lastBeacon < 0) {
+            return;
+        }
+        int value = parseUnsigned(line, skipSpaces(line, lastBeacon + LAST_BEACON.length()));
+        if (value >= 0) {
+            currentAP.setLastBeacon(value);
+        }
+    }
+
+    private static String extractMacAddress(String line, int pos) {
+        int from = skipSpaces(line, pos);
+        int to = from + 17;
+        if (to > line.length()) {
+            return "00:00:00:00:00:00";
+        }
+
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            boolean separator = (i - from) % 3 == 2;
+            if (separator ? (c != ':' && c != '-') : Character.digit(c, 16) < 0) {
+                return "00:00:00:00:00:00";
+            }
+        }
+        return line.substring(from, to);
+    }
+
+    private static double parseDecimal(String line, int from, int to) {
+        long digits = 0;
+        long scale = 1;
+        boolean fraction = false;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c == '.') {
+                fraction = true;
+                continue;
+            }
+            digits = digits * 10 + (c - '0');
+            if (fraction) {
+                scale *= 10;
+            }
+        }
+        return (double) digits / scale;
+    }
+}
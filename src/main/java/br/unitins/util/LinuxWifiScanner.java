@@ -0,0 +1,95 @@
+package br.unitins.util;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.AccessPoint;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class LinuxWifiScanner implements WifiScanner {
+    
+    @Override
+    public String getName() {
+        return "linux";
+    }
+    
+    @Override
+    public boolean isSupported() {
+        return WifiScannerFactory.isLinux();
+    }
+    
+    @Override
+    public List<AccessPoint> scanWifiNetworks() {
+        try {
+            return scanWifiNetworksAsync().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Erro no escaneamento Linux: " + cause);
+            return List.of();
+        }
+    }
+    
+    // Cada interface configurada é varrida em paralelo; o ciclo dura o tempo da
+    // mais lenta e os resultados são mesclados por BSSID
+    @Override
+    public CompletableFuture<List<AccessPoint>> scanWifiNetworksAsync() {
+        List<String> interfaces = DatabaseConfig.WIFI_INTERFACES;
+        List<CompletableFuture<List<AccessPoint>>> scans = new ArrayList<>(interfaces.size());
+        
+        for (String wifiInterface : interfaces) {
+            scans.add(scanInterface(wifiInterface.trim()));
+        }
+        
+        if (scans.size() == 1) {
+            return scans.get(0);
+        }
+        
+        return CompletableFuture.allOf(scans.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<List<AccessPoint>> results = new ArrayList<>(scans.size());
+                    for (CompletableFuture<List<AccessPoint>> scan : scans) {
+                        results.add(scan.join());
+                    }
+                    return AccessPointMerger.mergeByBssid(results);
+                });
+    }
+    
+    private CompletableFuture<List<AccessPoint>> scanInterface(String wifiInterface) {
+        CompletableFuture<List<AccessPoint>> scan;
+        if (!"iw".equals(DatabaseConfig.LINUX_SCAN_BACKEND)) {
+            scan = scanWithIwlist(wifiInterface);
+        } else {
+            scan = IwCommandExecutor.scanWifiNetworksAsync(wifiInterface)
+                    .exceptionallyCompose(error -> {
+                        Throwable cause = unwrap(error);
+                        if (cause instanceof IOException) {
+                            // iw não instalado: cair para o iwlist
+                            System.err.println("Comando iw nao disponivel (" + cause.getMessage() + "), usando iwlist.");
+                            return scanWithIwlist(wifiInterface);
+                        }
+                        return CompletableFuture.failedFuture(cause);
+                    });
+        }
+        
+        if (DatabaseConfig.WIFI_INTERFACES.size() == 1) {
+            return scan;
+        }
+        
+        // Com várias interfaces, a falha de uma não descarta as demais
+        return scan.exceptionally(error -> {
+            System.err.println("Erro ao escanear interface " + wifiInterface + ": " + unwrap(error));
+            return List.of();
+        });
+    }
+    
+    private CompletableFuture<List<AccessPoint>> scanWithIwlist(String wifiInterface) {
+        System.out.println("Usando iwlist para escaneamento (" + wifiInterface + ")...");
+        return WifiCommandExecutor.scanWifiNetworksAsync(wifiInterface);
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
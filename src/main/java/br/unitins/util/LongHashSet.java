@@ -0,0 +1,106 @@
+package br.unitins.util;
+
+import java.util.Arrays;
+
+// Conjunto de longs com endereçamento aberto, sem boxing. O valor Long.MIN_VALUE é
+// reservado como marcador de posição vazia.
+public class LongHashSet {
+    
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    private long[] keys;
+    private int size;
+    private int mask;
+    
+    public LongHashSet() {
+        this(16);
+    }
+    
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+    
+    public boolean contains(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+    
+    // Retorna true se a chave não estava presente
+    public boolean add(long key) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        return true;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Cópia independente, para estruturas publicadas por cópia na escrita
+    public LongHashSet copy() {
+        LongHashSet copy = new LongHashSet(4);
+        copy.keys = keys.clone();
+        copy.size = size;
+        copy.mask = mask;
+        return copy;
+    }
+    
+    // Chaves presentes, em ordem arbitrária
+    public long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+    
+    private int slot(long key) {
+        // Mistura de bits (fmix64 do MurmurHash3) para espalhar MACs sequenciais
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+    
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        size = 0;
+        for (long key : old) {
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+    }
+}
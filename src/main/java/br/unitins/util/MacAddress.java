@@ -0,0 +1,46 @@
+package br.unitins.util;
+
+// Conversão entre o texto "AA:BB:CC:DD:EE:FF" e um long de 48 bits
+public class MacAddress {
+    
+    public static final long INVALID = -1L;
+    
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    
+    // Aceita ':' ou '-' como separador e dígitos maiúsculos ou minúsculos
+    public static long parse(String text) {
+        if (text == null || text.length() != 17) {
+            return INVALID;
+        }
+        
+        long value = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = text.charAt(i);
+            if (i % 3 == 2) {
+                if (c != ':' && c != '-') {
+                    return INVALID;
+                }
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                return INVALID;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+    
+    public static String format(long mac) {
+        char[] out = new char[17];
+        for (int i = 0; i < 6; i++) {
+            int b = (int) (mac >>> (40 - 8 * i)) & 0xFF;
+            out[i * 3] = HEX[b >>> 4];
+            out[i * 3 + 1] = HEX[b & 0xF];
+            if (i < 5) {
+                out[i * 3 + 2] = ':';
+            }
+        }
+        return new String(out);
+    }
+}
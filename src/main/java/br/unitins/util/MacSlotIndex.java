@@ -0,0 +1,81 @@
+package br.unitins.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Índice MAC -> posição para estado por BSSID em arrays paralelos. Cuida do mapa, da
+// lista de posições livres (reaproveitadas antes de crescer) e da capacidade; o dono
+// guarda só as próprias colunas, dimensionadas com INITIAL_CAPACITY e ampliadas pelo
+// callback de crescimento sempre que a capacidade dobra.
+public class MacSlotIndex {
+
+    public static final int MISSING = -1;
+    public static final int INITIAL_CAPACITY = 1024;
+
+    private final LongIntHashMap slotByMac = new LongIntHashMap(INITIAL_CAPACITY, MISSING);
+    private final IntConsumer onGrow;
+    private long[] macs = new long[INITIAL_CAPACITY];
+    private boolean[] active = new boolean[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+
+    // onGrow recebe a nova capacidade e deve ampliar as colunas do dono
+    public MacSlotIndex(IntConsumer onGrow) {
+        this.onGrow = onGrow;
+    }
+
+    // Retorna MISSING se o MAC não tiver posição
+    public int get(long mac) {
+        return slotByMac.get(mac);
+    }
+
+    // Nova posição para um MAC ainda ausente. As colunas do dono na posição podem ter
+    // valores de um BSSID liberado antes: cabe ao chamador reinicializá-las
+    public int allocate(long mac) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == macs.length) {
+                int capacity = macs.length * 2;
+                macs = Arrays.copyOf(macs, capacity);
+                active = Arrays.copyOf(active, capacity);
+                onGrow.accept(capacity);
+            }
+            slot = slotCount++;
+        }
+        macs[slot] = mac;
+        active[slot] = true;
+        slotByMac.put(mac, slot);
+        return slot;
+    }
+
+    public void release(int slot) {
+        slotByMac.remove(macs[slot]);
+        active[slot] = false;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public long mac(int slot) {
+        return macs[slot];
+    }
+
+    public boolean isActive(int slot) {
+        return active[slot];
+    }
+
+    // Limite superior das posições já usadas: varreduras vão de 0 a slotCount()
+    // pulando as inativas
+    public int slotCount() {
+        return slotCount;
+    }
+
+    // BSSIDs com posição
+    public int size() {
+        return slotByMac.size();
+    }
+}
@@ -0,0 +1,66 @@
+package br.unitins.util;
+
+// Leitura de campos direto dos caracteres de uma linha da saída do iwlist/iw, sem
+// criar substrings intermediárias. Compartilhado pelos dois parsers.
+final class ScanLineTokens {
+
+    // Byte nulo como os dois comandos o imprimem dentro do SSID
+    private static final String HIDDEN_SSID_BYTE = "\\x00";
+
+    private ScanLineTokens() {}
+
+    // Rede oculta: SSID vazio ou só com bytes nulos
+    static boolean isHidden(String ssid) {
+        if (ssid.length() % HIDDEN_SSID_BYTE.length() != 0) {
+            return false;
+        }
+        for (int i = 0; i < ssid.length(); i += HIDDEN_SSID_BYTE.length()) {
+            if (!ssid.startsWith(HIDDEN_SSID_BYTE, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Pula espaços e tabs
+    static int skipSpaces(String line, int pos) {
+        while (pos < line.length() && line.charAt(pos) <= ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    static int skipDigits(String line, int pos) {
+        while (pos < line.length() && isDigit(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Lê um inteiro não negativo a partir de pos; retorna -1 se não houver dígitos
+    static int parseUnsigned(String line, int pos) {
+        if (pos >= line.length() || !isDigit(line.charAt(pos))) {
+            return -1;
+        }
+        int value = 0;
+        while (pos < line.length() && isDigit(line.charAt(pos))) {
+            value = value * 10 + (line.charAt(pos++) - '0');
+        }
+        return value;
+    }
+
+    // Lê um inteiro com sinal opcional (a parte decimal é descartada); retorna
+    // Integer.MIN_VALUE se não houver dígitos
+    static int parseSigned(String line, int pos) {
+        boolean negative = pos < line.length() && line.charAt(pos) == '-';
+        int value = parseUnsigned(line, negative ? pos + 1 : pos);
+        if (value < 0) {
+            return Integer.MIN_VALUE;
+        }
+        return negative ? -value : value;
+    }
+}
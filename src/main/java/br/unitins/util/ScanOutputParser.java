@@ -0,0 +1,10 @@
+package br.unitins.util;
+
+// Parser incremental da saída de um comando de varredura: recebe uma linha por vez
+// e entrega cada AP ao consumidor assim que a célula correspondente termina.
+public interface ScanOutputParser {
+    
+    void parseLine(String line);
+    
+    void finish();
+}
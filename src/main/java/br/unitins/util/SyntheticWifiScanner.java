@@ -0,0 +1,136 @@
+package br.unitins.util;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+// Scanner sintético para testes de carga: mantém uma população fixa de APs com
+// deriva de RSSI (passeio aleatório), visibilidade dependente do sinal e
+// rotatividade (APs que somem e são substituídos por BSSIDs novos).
+public class SyntheticWifiScanner implements WifiScanner {
+
+    private static final int[] CHANNELS_24 = {1, 6, 11, 1, 6, 11, 2, 3, 4, 5, 7, 8, 9, 10, 13};
+    private static final int[] CHANNELS_5 = {36, 40, 44, 48, 52, 56, 60, 64, 100, 104, 108, 112, 149, 153, 157, 161};
+    private static final WifiSecurity[] SECURITIES = {
+            WifiSecurity.WPA2, WifiSecurity.WPA2, WifiSecurity.WPA2, WifiSecurity.WPA3,
+            WifiSecurity.WPA, WifiSecurity.WEP, WifiSecurity.OPEN};
+    private static final String[] SSID_PREFIXES = {"NET_", "WiFi_", "FIBRA_", "Casa_", "Escritorio_", "Guest_", "IoT_"};
+
+    private final Random random;
+    private final int count;
+
+    // População em colunas primitivas; cada varredura é emitida como um ScanBatch
+    private final long[] macs;
+    private final String[] ssids;
+    private final short[] signalLevels;
+    private final byte[] securities;
+    private final short[] channels;
+    private final short[] beaconIntervals;
+    private long nextMac;
+
+    public SyntheticWifiScanner() {
+        this(DatabaseConfig.SYNTHETIC_AP_COUNT, DatabaseConfig.SYNTHETIC_SEED);
+    }
+
+    public SyntheticWifiScanner(int count, long seed) {
+        this.random = new Random(seed);
+        this.count = count;
+        this.macs = new long[count];
+        this.ssids = new String[count];
+        this.signalLevels = new short[count];
+        this.securities = new byte[count];
+        this.channels = new short[count];
+        this.beaconIntervals = new short[count];
+        // Prefixo localmente administrado (02:xx) para não colidir com BSSIDs reais
+        this.nextMac = 0x020000000000L | (seed & 0xFFFFFFL) << 16;
+
+        for (int i = 0; i < count; i++) {
+            spawn(i);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "synthetic";
+    }
+
+    @Override
+    public boolean isSupported() {
+        // Nunca escolhido automaticamente; só por seleção explícita
+        return false;
+    }
+
+    @Override
+    public List<AccessPoint> scanWifiNetworks() {
+        return scanBatch().toAccessPoints();
+    }
+
+    @Override
+    public CompletableFuture<ScanBatch> scanBatchAsync() {
+        return CompletableFuture.supplyAsync(this::scanBatch, CommandRunner.executor());
+    }
+
+    // Gera a varredura direto em colunas primitivas, sem criar AccessPoint por AP
+    public synchronized ScanBatch scanBatch() {
+        long scanEpochSecond = ScanBatch.toEpochSecond(LocalDateTime.now());
+        ScanBatch batch = new ScanBatch(count);
+        double churn = DatabaseConfig.SYNTHETIC_CHURN_PERCENT / 100.0;
+
+        for (int i = 0; i < count; i++) {
+            if (random.nextDouble() < churn) {
+                spawn(i);
+            }
+
+            // Deriva de RSSI: passeio aleatório de até ±3 dBm, limitado a [-95, -30]
+            int signal = signalLevels[i] + random.nextInt(7) - 3;
+            signal = Math.max(-95, Math.min(-30, signal));
+            signalLevels[i] = (short) signal;
+
+            // APs fracos aparecem com menos frequência, como em uma varredura real
+            double visibility = Math.min(1.0, (signal + 100) / 30.0);
+            if (random.nextDouble() > visibility) {
+                continue;
+            }
+
+            int channel = channels[i];
+            batch.add(macs[i],
+                    ssids[i],
+                    scanEpochSecond,
+                    signal,
+                    IwScanParser.qualityFromDbm(signal),
+                    channel,
+                    frequencyOf(channel),
+                    random.nextInt(1000),
+                    beaconIntervals[i],
+                    SECURITIES[securities[i]]);
+        }
+
+        return batch;
+    }
+
+    // Frequência central do canal de 20 MHz, como o iw reportaria
+    static int frequencyOf(int channel) {
+        if (channel == 14) {
+            return 2484;
+        }
+        return channel < 14 ? 2407 + 5 * channel : 5000 + 5 * channel;
+    }
+
+    private void spawn(int i) {
+        macs[i] = nextMac++;
+        ssids[i] = random.nextInt(20) == 0
+                ? null
+                : SSID_PREFIXES[random.nextInt(SSID_PREFIXES.length)] + Integer.toHexString(random.nextInt(0x10000));
+        signalLevels[i] = (short) (-90 + random.nextInt(55));
+        securities[i] = (byte) random.nextInt(SECURITIES.length);
+        channels[i] = (short) (random.nextInt(3) == 0
+                ? CHANNELS_5[random.nextInt(CHANNELS_5.length)]
+                : CHANNELS_24[random.nextInt(CHANNELS_24.length)]);
+        beaconIntervals[i] = (short) (random.nextInt(10) == 0 ? 102 : 100);
+    }
+}
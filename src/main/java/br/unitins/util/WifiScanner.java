@@ -0,0 +1,31 @@
+package br.unitins.util;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Backend de escaneamento Wi-Fi. As implementações são descobertas via ServiceLoader
+// (META-INF/services/br.unitins.util.WifiScanner) pelo WifiScannerFactory.
+public interface WifiScanner {
+    
+    // Nome usado para seleção explícita em DatabaseConfig.WIFI_SCANNER
+    String getName();
+    
+    // Indica se o backend pode ser escolhido automaticamente nesta máquina
+    boolean isSupported();
+    
+    // Executa uma varredura; erros devem ser tratados internamente, retornando lista vazia
+    List<AccessPoint> scanWifiNetworks();
+    
+    // Versão assíncrona; por padrão executa a varredura síncrona fora da thread chamadora
+    default CompletableFuture<List<AccessPoint>> scanWifiNetworksAsync() {
+        return CompletableFuture.supplyAsync(this::scanWifiNetworks, CommandRunner.executor());
+    }
+    
+    // Resultado em colunas primitivas para o caminho de ingestão; backends que
+    // geram os dados diretamente (como o sintético) podem evitar os AccessPoint
+    default CompletableFuture<ScanBatch> scanBatchAsync() {
+        return scanWifiNetworksAsync().thenApply(ScanBatch::fromAccessPoints);
+    }
+}
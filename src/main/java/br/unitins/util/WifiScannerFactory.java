@@ -1,8 +1,11 @@
 package br.unitins.util;
 
+import br.unitins.config.DatabaseConfig;
 import br.unitins.model.AccessPoint;
-import br.unitins.util.windows.WindowsWifiScanner;
+import br.unitins.model.ScanBatch;
 import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
 
 public class WifiScannerFactory {
     
@@ -10,39 +13,74 @@ public class WifiScannerFactory {
     private static final boolean IS_WINDOWS = OS_NAME.contains("windows");
     private static final boolean IS_LINUX = OS_NAME.contains("linux");
     
+    private static volatile WifiScanner scanner;
+    
     public static List<AccessPoint> scanWifiNetworks() {
-        if (IS_WINDOWS) {
-            return scanWindowsWifi();
-        } else if (IS_LINUX) {
-            return scanLinuxWifi();
-        } else {
+        WifiScanner current = getScanner();
+        if (current == null) {
             System.err.println("Sistema operacional nao suportado: " + OS_NAME);
             return List.of();
         }
+        return current.scanWifiNetworks();
     }
     
-    private static List<AccessPoint> scanWindowsWifi() {
-        try {
-            System.out.println("Usando Windows WLAN API para escaneamento...");
-            return WindowsWifiScanner.scanWifiNetworks();
-        } catch (UnsatisfiedLinkError e) {
-            System.err.println("Erro ao carregar biblioteca Windows WLAN API: " + e.getMessage());
-            System.err.println("Verifique se o sistema suporta WLAN API.");
-            return List.of();
-        } catch (Exception e) {
-            System.err.println("Erro no escaneamento Windows: " + e.getMessage());
-            return List.of();
+    // Varredura sem bloquear o chamador; falhas e prazos estourados resultam em lista vazia
+    public static CompletableFuture<List<AccessPoint>> scanWifiNetworksAsync() {
+        WifiScanner current = getScanner();
+        if (current == null) {
+            System.err.println("Sistema operacional nao suportado: " + OS_NAME);
+            return CompletableFuture.completedFuture(List.of());
         }
+        return current.scanWifiNetworksAsync()
+                .exceptionally(error -> {
+                    System.err.println("Erro no escaneamento (" + current.getName() + "): " + error.getMessage());
+                    return List.of();
+                });
     }
     
-    private static List<AccessPoint> scanLinuxWifi() {
-        try {
-            System.out.println("Usando iwlist para escaneamento...");
-            return WifiCommandExecutor.scanWifiNetworks();
-        } catch (Exception e) {
-            System.err.println("Erro no escaneamento Linux: " + e.getMessage());
-            return List.of();
+    public static CompletableFuture<ScanBatch> scanBatchAsync() {
+        WifiScanner current = getScanner();
+        if (current == null) {
+            System.err.println("Sistema operacional nao suportado: " + OS_NAME);
+            return CompletableFuture.completedFuture(new ScanBatch(1));
+        }
+        return current.scanBatchAsync()
+                .exceptionally(error -> {
+                    System.err.println("Erro no escaneamento (" + current.getName() + "): " + error.getMessage());
+                    return new ScanBatch(1);
+                });
+    }
+    
+    // Escolhe o backend uma única vez: pelo nome configurado ou, em "auto",
+    // o primeiro registrado que suporta a plataforma atual
+    public static WifiScanner getScanner() {
+        WifiScanner current = scanner;
+        if (current == null) {
+            synchronized (WifiScannerFactory.class) {
+                current = scanner;
+                if (current == null) {
+                    current = loadScanner(DatabaseConfig.WIFI_SCANNER);
+                    scanner = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    private static WifiScanner loadScanner(String name) {
+        boolean auto = "auto".equals(name);
+        
+        for (WifiScanner candidate : ServiceLoader.load(WifiScanner.class)) {
+            if (auto ? candidate.isSupported() : candidate.getName().equals(name)) {
+                return candidate;
+            }
+        }
+        
+        if (!auto) {
+            System.err.println("Scanner Wi-Fi '" + name + "' nao encontrado, usando deteccao automatica.");
+            return loadScanner("auto");
         }
+        return null;
     }
     
     public static String getOperatingSystem() {
@@ -56,4 +94,4 @@ public class WifiScannerFactory {
     public static boolean isLinux() {
         return IS_LINUX;
     }
-} 
\ No newline at end of file
+}
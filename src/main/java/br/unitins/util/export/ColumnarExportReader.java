@@ -0,0 +1,149 @@
+package br.unitins.util.export;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Leitura dos arquivos gerados pelo ColumnarExportWriter, um bloco por vez
+public class ColumnarExportReader implements Closeable {
+
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private final List<Long> macs = new ArrayList<>();
+    private final List<String> ssids = new ArrayList<>();
+    private byte[] compressed = new byte[64 * 1024];
+    private long previousEpochSecond;
+    private boolean finished;
+
+    public ColumnarExportReader(Path file) throws IOException {
+        this(Files.newInputStream(file));
+    }
+
+    public ColumnarExportReader(InputStream input) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != ColumnarExportWriter.MAGIC) {
+            throw new IOException("Arquivo nao e uma exportacao colunar");
+        }
+        int version = in.readInt();
+        if (version != ColumnarExportWriter.VERSION) {
+            throw new IOException("Versao de exportacao nao suportada: " + version);
+        }
+    }
+
+    // Próximo bloco como ScanBatch, ou null no fim do arquivo
+    public ScanBatch readBlock() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        int compressedLength = in.readInt();
+        if (compressedLength == 0) {
+            finished = true;
+            return null;
+        }
+        int rawLength = in.readInt();
+        if (compressed.length < compressedLength) {
+            compressed = new byte[compressedLength];
+        }
+        in.readFully(compressed, 0, compressedLength);
+
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(compressed, 0, compressedLength);
+        try {
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                length += inflater.inflate(raw, length, rawLength - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco corrompido: " + e.getMessage(), e);
+        }
+
+        return decode(ByteBuffer.wrap(raw));
+    }
+
+    public void forEach(Consumer<AccessPoint> consumer) throws IOException {
+        ScanBatch batch;
+        while ((batch = readBlock()) != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                consumer.accept(batch.toAccessPoint(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    private ScanBatch decode(ByteBuffer raw) throws IOException {
+        int rows = (int) VarInt.read(raw);
+        if (raw.get() == 1) {
+            macs.clear();
+            ssids.clear();
+        }
+
+        int newMacs = (int) VarInt.read(raw);
+        for (int k = 0; k < newMacs; k++) {
+            macs.add(VarInt.read(raw));
+        }
+        int newSsids = (int) VarInt.read(raw);
+        for (int k = 0; k < newSsids; k++) {
+            byte[] bytes = new byte[(int) VarInt.read(raw)];
+            raw.get(bytes);
+            ssids.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        long[] epochSeconds = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            previousEpochSecond += VarInt.readSigned(raw);
+            epochSeconds[i] = previousEpochSecond;
+        }
+        int[] macColumn = readColumn(raw, rows, false);
+        int[] ssidColumn = readColumn(raw, rows, false);
+        int[] signals = readColumn(raw, rows, true);
+        int[] qualities = readColumn(raw, rows, true);
+        int[] channels = readColumn(raw, rows, false);
+        int[] frequencies = readColumn(raw, rows, false);
+        int[] lastBeacons = readColumn(raw, rows, false);
+        int[] beaconIntervals = readColumn(raw, rows, false);
+
+        ScanBatch batch = new ScanBatch(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(macs.get(macColumn[i]),
+                    ssidColumn[i] == 0 ? null : ssids.get(ssidColumn[i] - 1),
+                    epochSeconds[i],
+                    signals[i],
+                    qualities[i],
+                    channels[i],
+                    frequencies[i],
+                    lastBeacons[i],
+                    beaconIntervals[i],
+                    WifiSecurity.fromOrdinal(raw.get()));
+        }
+        return batch;
+    }
+
+    private static int[] readColumn(ByteBuffer raw, int rows, boolean signed) throws IOException {
+        int[] column = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            column[i] = (int) (signed ? VarInt.readSigned(raw) : VarInt.read(raw));
+        }
+        return column;
+    }
+}
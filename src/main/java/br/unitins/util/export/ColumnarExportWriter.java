@@ -0,0 +1,216 @@
+package br.unitins.util.export;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// Exportação colunar comprimida do histórico. As linhas são acumuladas em blocos de
+// BLOCK_ROWS; cada bloco grava uma coluna por vez (instantes em delta, dBm e qualidade
+// em zig-zag/varint, MAC e SSID como IDs de dicionário) e é comprimido com Deflate.
+// A memória usada é a de um bloco mais os dicionários, que são reiniciados ao passar
+// de MAX_DICTIONARY_ENTRIES para manter o consumo limitado.
+//
+// Arquivo: "HSCX", versão, e blocos [tamanho comprimido][tamanho original][bytes];
+// um tamanho comprimido 0 marca o fim.
+public class ColumnarExportWriter implements Closeable {
+
+    static final int MAGIC = 0x48534358; // "HSCX"
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 8192;
+    static final int MAX_DICTIONARY_ENTRIES = 1 << 20;
+
+    private final DataOutputStream out;
+    private final int maxDictionaryEntries;
+    private final ScanBatch block = new ScanBatch(BLOCK_ROWS);
+    private final Map<Long, Integer> macIds = new HashMap<>();
+    private final Map<String, Integer> ssidIds = new HashMap<>();
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private byte[] compressed = new byte[64 * 1024];
+    private long previousEpochSecond;
+    private long rowCount;
+    private long bytesWritten;
+
+    public ColumnarExportWriter(Path file) throws IOException {
+        this(Files.newOutputStream(file));
+    }
+
+    public ColumnarExportWriter(OutputStream output) throws IOException {
+        this(output, MAX_DICTIONARY_ENTRIES);
+    }
+
+    // Limite menor dos dicionários para exercitar o reinício sem milhões de linhas
+    ColumnarExportWriter(OutputStream output, int maxDictionaryEntries) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(output));
+        this.maxDictionaryEntries = maxDictionaryEntries;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        bytesWritten = 8;
+    }
+
+    // APs com BSSID inválido são descartados pelo ScanBatch e não entram na contagem
+    public void write(AccessPoint ap) throws IOException {
+        if (!block.add(ap)) {
+            return;
+        }
+        rowCount++;
+        if (block.size() == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    public void write(ScanBatch batch) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            block.add(batch.getMac(i), batch.getSsid(i), batch.getScanEpochSecond(i), batch.getSignalLevel(i),
+                    batch.getQualityLink(i), batch.getChannel(i), batch.getFrequencyMhz(i), batch.getLastBeacon(i),
+                    batch.getBeaconInterval(i), batch.getSecurity(i));
+            rowCount++;
+            if (block.size() == BLOCK_ROWS) {
+                flushBlock();
+            }
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    // Bytes gravados até o último bloco completo (inclui cabeçalho)
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!block.isEmpty()) {
+                flushBlock();
+            }
+            out.writeInt(0);
+            bytesWritten += 4;
+            out.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        int rows = block.size();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(rows * 12);
+
+        boolean reset = macIds.size() + rows > maxDictionaryEntries
+                || ssidIds.size() + rows > maxDictionaryEntries;
+        if (reset) {
+            macIds.clear();
+            ssidIds.clear();
+        }
+
+        VarInt.write(raw, rows);
+        raw.write(reset ? 1 : 0);
+
+        // Entradas novas dos dicionários, na ordem em que recebem ID
+        int[] macColumn = new int[rows];
+        int[] ssidColumn = new int[rows];
+        ByteArrayOutputStream newMacs = new ByteArrayOutputStream();
+        ByteArrayOutputStream newSsids = new ByteArrayOutputStream();
+        int newMacCount = 0;
+        int newSsidCount = 0;
+
+        for (int i = 0; i < rows; i++) {
+            long mac = block.getMac(i);
+            Integer macId = macIds.get(mac);
+            if (macId == null) {
+                macId = macIds.size();
+                macIds.put(mac, macId);
+                VarInt.write(newMacs, mac);
+                newMacCount++;
+            }
+            macColumn[i] = macId;
+
+            String ssid = block.getSsid(i);
+            if (ssid == null) {
+                ssidColumn[i] = 0;
+            } else {
+                Integer ssidId = ssidIds.get(ssid);
+                if (ssidId == null) {
+                    ssidId = ssidIds.size();
+                    ssidIds.put(ssid, ssidId);
+                    byte[] bytes = ssid.getBytes(StandardCharsets.UTF_8);
+                    VarInt.write(newSsids, bytes.length);
+                    newSsids.write(bytes, 0, bytes.length);
+                    newSsidCount++;
+                }
+                // 0 reservado para SSID oculto
+                ssidColumn[i] = ssidId + 1;
+            }
+        }
+
+        VarInt.write(raw, newMacCount);
+        newMacs.writeTo(raw);
+        VarInt.write(raw, newSsidCount);
+        newSsids.writeTo(raw);
+
+        // Instantes: delta em relação à linha anterior (inclusive entre blocos)
+        for (int i = 0; i < rows; i++) {
+            long epochSecond = block.getScanEpochSecond(i);
+            VarInt.writeSigned(raw, epochSecond - previousEpochSecond);
+            previousEpochSecond = epochSecond;
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.write(raw, macColumn[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.write(raw, ssidColumn[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.writeSigned(raw, block.getSignalLevel(i));
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.writeSigned(raw, block.getQualityLink(i));
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.write(raw, block.getChannel(i));
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.write(raw, block.getFrequencyMhz(i));
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.write(raw, block.getLastBeacon(i));
+        }
+        for (int i = 0; i < rows; i++) {
+            VarInt.write(raw, block.getBeaconInterval(i));
+        }
+        for (int i = 0; i < rows; i++) {
+            raw.write(block.getSecurity(i).ordinal());
+        }
+
+        byte[] input = raw.toByteArray();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+
+        out.writeInt(length);
+        out.writeInt(input.length);
+        out.write(compressed, 0, length);
+        bytesWritten += 8 + length;
+        block.clear();
+    }
+}
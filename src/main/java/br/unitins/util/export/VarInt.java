@@ -0,0 +1,48 @@
+package br.unitins.util.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Inteiros de tamanho variável (7 bits por byte, bit alto = continua) e codificação
+// zig-zag, que leva valores negativos pequenos (ex.: dBm, deltas) para poucos bytes
+final class VarInt {
+
+    private VarInt() {}
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void write(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeSigned(ByteArrayOutputStream out, long value) {
+        write(out, zigZag(value));
+    }
+
+    static long read(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Inteiro variavel malformado");
+    }
+
+    static long readSigned(ByteBuffer in) throws IOException {
+        return unZigZag(read(in));
+    }
+}
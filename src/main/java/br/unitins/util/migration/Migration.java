@@ -0,0 +1,47 @@
+package br.unitins.util.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Alteração de esquema identificada por uma versão crescente. Cada migração é
+// aplicada uma única vez e registrada na tabela schema_version.
+public class Migration {
+    
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+    
+    private final int version;
+    private final String description;
+    private final Step step;
+    
+    private Migration(int version, String description, Step step) {
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+    
+    public static Migration of(int version, String description, Step step) {
+        return new Migration(version, description, step);
+    }
+    
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+            }
+        });
+    }
+    
+    public int getVersion() { return version; }
+    
+    public String getDescription() { return description; }
+    
+    public void apply(Connection conn) throws SQLException {
+        step.apply(conn);
+    }
+}
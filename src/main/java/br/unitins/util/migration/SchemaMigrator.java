@@ -0,0 +1,245 @@
+package br.unitins.util.migration;
+
+import br.unitins.model.ScanBatch;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// Aplica as migrações pendentes em ordem. Com o esquema em dia, a inicialização
+// custa apenas a leitura da versão atual.
+public class SchemaMigrator {
+    
+    // Em maintenance_state: epoch (s) antes do qual os resumos ainda não têm o histórico
+    public static final String ROLLUP_BACKFILL_STATE = "rollup_backfill_before";
+    
+    private static final String LOCK_NAME = "hotspot_scanner_migrations";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+    
+    // Nunca alterar uma migração já publicada; mudanças novas entram no fim da lista
+    private static final List<Migration> MIGRATIONS = List.of(
+        Migration.sql(1, "Tabela access_points",
+            """
+            CREATE TABLE IF NOT EXISTS access_points (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                ssid VARCHAR(255),
+                mac_address VARCHAR(17) NOT NULL,
+                quality_link INT,
+                signal_level INT,
+                channel_number INT,
+                frequency DECIMAL(4,1),
+                last_beacon BIGINT,
+                beacon_interval INT,
+                wifi_security VARCHAR(50),
+                scan_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                INDEX idx_scan_time (scan_time),
+                INDEX idx_mac_address (mac_address),
+                UNIQUE KEY unique_mac_minute (mac_address, scan_time)
+            ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci
+            """),
+        // Tabelas particionadas exigem a coluna de partição em todas as chaves únicas. Com
+        // dados, a troca reescreveria a tabela inteira na inicialização: fica para a
+        // conversão em PartitionManager, que só roda com a tabela vazia ou por opção
+        Migration.of(2, "Chave primaria (id, scan_time) para particionamento por dia",
+            SchemaMigrator::widenPrimaryKeyIfEmpty),
+        Migration.sql(3, "Tabela maintenance_state (marcas d'agua de tarefas em segundo plano)",
+            """
+            CREATE TABLE IF NOT EXISTS maintenance_state (
+                name VARCHAR(64) PRIMARY KEY,
+                value BIGINT NOT NULL,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+            )
+            """),
+        // Modo normalizado: textos viram IDs pequenos; a tabela de fatos só guarda números.
+        // SSIDs usam colação binária NO PAD para que "Casa", "casa" e "Casa " sejam redes
+        // distintas (utf8mb4_bin ignora espaços finais e juntaria as duas últimas).
+        // scan_time tem DEFAULT explícito: sem ele, o primeiro TIMESTAMP NOT NULL ganha
+        // ON UPDATE CURRENT_TIMESTAMP em versões antigas do MariaDB, e um upsert o reescreveria
+        Migration.sql(4, "Dimensoes bssid/ssid e tabela de fatos ap_observations",
+            """
+            CREATE TABLE IF NOT EXISTS bssid (
+                id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+                mac BIGINT NOT NULL,
+                UNIQUE KEY unique_mac (mac)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS ssid (
+                id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+                name VARCHAR(255) NOT NULL,
+                UNIQUE KEY unique_name (name)
+            ) CHARACTER SET utf8mb4 COLLATE utf8mb4_nopad_bin
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS ap_observations (
+                scan_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                bssid_id INT UNSIGNED NOT NULL,
+                ssid_id INT UNSIGNED NULL,
+                signal_level SMALLINT NOT NULL,
+                quality_link TINYINT UNSIGNED NOT NULL,
+                channel_number SMALLINT UNSIGNED NOT NULL,
+                frequency_mhz MEDIUMINT UNSIGNED NOT NULL,
+                last_beacon INT NOT NULL,
+                beacon_interval SMALLINT UNSIGNED NOT NULL,
+                wifi_security TINYINT UNSIGNED NOT NULL,
+                PRIMARY KEY (scan_time, bssid_id),
+                INDEX idx_bssid_time (bssid_id, scan_time)
+            )
+            """),
+        // Só cria as tabelas e marca até onde o histórico falta; o preenchimento roda em
+        // segundo plano, fora do lock de migração
+        Migration.of(5, "Resumos por hora e por dia (ap_rollup_hourly, ap_rollup_daily)", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(rollupTable("ap_rollup_hourly", true));
+                stmt.execute(rollupTable("ap_rollup_daily", false));
+            }
+            scheduleRollupBackfill(conn);
+        }),
+        Migration.sql(6, "Tabela rogue_alerts (alertas de AP suspeito)",
+            """
+            CREATE TABLE IF NOT EXISTS rogue_alerts (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                detected_at DATETIME NOT NULL,
+                alert_type VARCHAR(32) NOT NULL,
+                ssid VARCHAR(255) NOT NULL,
+                mac BIGINT NOT NULL,
+                wifi_security TINYINT UNSIGNED NOT NULL,
+                details VARCHAR(255),
+                INDEX idx_detected_at (detected_at),
+                INDEX idx_ssid_time (ssid, detected_at)
+            ) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin
+            """)
+    );
+    
+    private static void widenPrimaryKeyIfEmpty(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM access_points LIMIT 1")) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+            stmt.execute("ALTER TABLE access_points DROP PRIMARY KEY, ADD PRIMARY KEY (id, scan_time)");
+        }
+    }
+    
+    // Resumos valem a partir do minuto da migração 5; o histórico anterior é agregado
+    // em segundo plano (AccessPointRepository.backfillRollupDay), que recua esta marca
+    // um dia por vez até zerá-la. Sem linhas brutas, não há o que preencher
+    private static void scheduleRollupBackfill(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                 SELECT EXISTS (SELECT 1 FROM access_points) OR EXISTS (SELECT 1 FROM ap_observations)
+                 """)) {
+            if (!rs.next() || !rs.getBoolean(1)) {
+                return;
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("""
+                INSERT INTO maintenance_state (name, value) VALUES (?, ?)
+                ON DUPLICATE KEY UPDATE value = VALUES(value)
+                """)) {
+            stmt.setString(1, ROLLUP_BACKFILL_STATE);
+            stmt.setLong(2, ScanBatch.toEpochSecond(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES)));
+            stmt.executeUpdate();
+        }
+    }
+    
+    // Só a tabela por hora tem minute_mask (bit N = minuto N já somado ao resumo)
+    private static String rollupTable(String name, boolean minuteMask) {
+        return "CREATE TABLE IF NOT EXISTS " + name + """
+             (
+                bucket_start DATETIME NOT NULL,
+                mac BIGINT NOT NULL,
+                ssid VARCHAR(255),
+                min_signal SMALLINT NOT NULL,
+                max_signal SMALLINT NOT NULL,
+                signal_sum BIGINT NOT NULL,
+                quality_sum BIGINT NOT NULL,
+                sample_count INT UNSIGNED NOT NULL,
+                channels VARCHAR(255) NOT NULL,
+                first_seen DATETIME NOT NULL,
+                last_seen DATETIME NOT NULL,%s
+                PRIMARY KEY (bucket_start, mac)
+            ) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci
+            """.formatted(minuteMask ? "\n    minute_mask BIGINT UNSIGNED NOT NULL DEFAULT 0," : "");
+    }
+    
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion();
+    }
+    
+    public static void migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INT PRIMARY KEY,
+                    description VARCHAR(255) NOT NULL,
+                    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+        }
+        
+        int current = getCurrentVersion(conn);
+        if (current >= getLatestVersion()) {
+            return;
+        }
+        
+        // Evita que duas instâncias apliquem a mesma migração ao mesmo tempo
+        acquireLock(conn);
+        try {
+            current = getCurrentVersion(conn);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+                
+                System.out.println("Aplicando migracao " + migration.getVersion() + ": " + migration.getDescription());
+                migration.apply(conn);
+                recordVersion(conn, migration);
+            }
+        } finally {
+            releaseLock(conn);
+        }
+    }
+    
+    public static int getCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    private static void recordVersion(Connection conn, Migration migration) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            stmt.setInt(1, migration.getVersion());
+            stmt.setString(2, migration.getDescription());
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Nao foi possivel obter o lock de migracao");
+                }
+            }
+        }
+    }
+    
+    private static void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao liberar lock de migracao: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package br.unitins.util.windows;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.util.WifiScanner;
+import br.unitins.util.WifiScannerFactory;
+import java.util.List;
+
+public class WindowsWlanScanner implements WifiScanner {
+    
+    @Override
+    public String getName() {
+        return "windows";
+    }
+    
+    @Override
+    public boolean isSupported() {
+        return WifiScannerFactory.isWindows();
+    }
+    
+    @Override
+    public List<AccessPoint> scanWifiNetworks() {
+        try {
+            System.out.println("Usando Windows WLAN API para escaneamento...");
+            return WindowsWifiScanner.scanWifiNetworks();
+        } catch (UnsatisfiedLinkError e) {
+            System.err.println("Erro ao carregar biblioteca Windows WLAN API: " + e.getMessage());
+            System.err.println("Verifique se o sistema suporta WLAN API.");
+            return List.of();
+        } catch (Exception e) {
+            System.err.println("Erro no escaneamento Windows: " + e.getMessage());
+            return List.of();
+        }
+    }
+}
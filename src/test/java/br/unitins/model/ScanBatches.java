@@ -0,0 +1,36 @@
+package br.unitins.model;
+
+// Dados de teste comuns: um instante de referência e observações em que só MAC,
+// instante, sinal e segurança variam (qualidade acompanha o sinal, canal 6)
+public final class ScanBatches {
+
+    public static final long MINUTE = 1_760_000_040L; // Início de um minuto
+
+    private ScanBatches() {}
+
+    public static void add(ScanBatch batch, long mac, long epochSecond, int signal) {
+        add(batch, mac, epochSecond, signal, WifiSecurity.WPA2);
+    }
+
+    public static void add(ScanBatch batch, long mac, long epochSecond, int signal, WifiSecurity security) {
+        batch.add(mac, "NET", epochSecond, signal, signal + 100, 6, 2437, 0, 100, security);
+    }
+
+    public static void addOnChannel(ScanBatch batch, long mac, long epochSecond, int signal, int channel,
+                                    int frequencyMhz) {
+        batch.add(mac, "NET", epochSecond, signal, signal + 100, channel, frequencyMhz, 0, 100, WifiSecurity.WPA2);
+    }
+
+    // Uma varredura com pares MAC, sinal
+    public static ScanBatch scan(long epochSecond, long... macsAndSignals) {
+        return scan(epochSecond, WifiSecurity.WPA2, macsAndSignals);
+    }
+
+    public static ScanBatch scan(long epochSecond, WifiSecurity security, long... macsAndSignals) {
+        ScanBatch batch = new ScanBatch();
+        for (int i = 0; i < macsAndSignals.length; i += 2) {
+            add(batch, macsAndSignals[i], epochSecond, (int) macsAndSignals[i + 1], security);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,28 @@
+package br.unitins.repository;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.add;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import br.unitins.model.ScanBatch;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class AccessPointRepositoryTest {
+
+    @Test
+    void selectUnwrittenKeepsLastObservationPerMacAndMinute() {
+        ScanBatch batch = new ScanBatch();
+        add(batch, 1, MINUTE, -70);
+        add(batch, 2, MINUTE + 5, -60);
+        add(batch, 1, MINUTE + 30, -65); // Mesmo minuto: substitui o índice 0
+        add(batch, 1, MINUTE + 60, -64); // Minuto seguinte: linha própria
+
+        int[] pending = new int[batch.size()];
+        int count = new AccessPointRepository().selectUnwritten(batch, pending);
+
+        assertEquals(3, count);
+        assertArrayEquals(new int[] {1, 2, 3}, Arrays.copyOf(pending, count));
+    }
+}
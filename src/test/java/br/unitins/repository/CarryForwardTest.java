@@ -0,0 +1,54 @@
+package br.unitins.repository;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.AccessPointRollup;
+import br.unitins.model.ScanBatch;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CarryForwardTest {
+
+    private static final String MAC = "00:11:22:33:44:55";
+
+    private static AccessPoint row(long epochSecond, int signal) {
+        AccessPoint ap = new AccessPoint("NET", MAC, signal + 100, signal, 6, 2.437, 0, 100, "WPA2");
+        ap.setScanTime(ScanBatch.toLocalDateTime(epochSecond));
+        return ap;
+    }
+
+    @Test
+    void expandStopsAtTombstone() {
+        List<AccessPoint> stored = List.of(
+                row(MINUTE, -60),
+                row(MINUTE + 5 * 60, ScanBatch.TOMBSTONE_SIGNAL));
+
+        List<AccessPoint> expanded = CarryForward.expand(stored, MINUTE, MINUTE + 20 * 60, 30);
+
+        assertEquals(5, expanded.size());
+        assertEquals(ScanBatch.toLocalDateTime(MINUTE + 4 * 60), expanded.get(0).getScanTime());
+    }
+
+    @Test
+    void rollupCountsEachCarriedMinuteInsideTheInterval() {
+        List<AccessPoint> stored = List.of(
+                row(MINUTE - 10 * 60, -70), // Vale do início até a próxima linha
+                row(MINUTE + 3 * 60, -50),
+                row(MINUTE + 8 * 60, ScanBatch.TOMBSTONE_SIGNAL));
+        Map<String, AccessPointRollup> byMac = new HashMap<>();
+
+        CarryForward.rollup(stored, MINUTE, MINUTE + 20 * 60, 30, byMac);
+
+        AccessPointRollup rollup = byMac.get(MAC);
+        assertEquals(8, rollup.getSampleCount());
+        assertEquals((3 * -70 + 5 * -50) / 8.0, rollup.getAvgSignal(), 1e-9);
+        assertEquals(-70, rollup.getMinSignal());
+        assertEquals(-50, rollup.getMaxSignal());
+        assertEquals(ScanBatch.toLocalDateTime(MINUTE), rollup.getFirstSeen());
+        assertEquals(ScanBatch.toLocalDateTime(MINUTE + 7 * 60), rollup.getLastSeen());
+    }
+}
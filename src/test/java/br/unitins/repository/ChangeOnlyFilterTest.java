@@ -0,0 +1,76 @@
+package br.unitins.repository;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.add;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import br.unitins.model.ScanBatch;
+import org.junit.jupiter.api.Test;
+
+class ChangeOnlyFilterTest {
+
+    private static int[] selectAndRecord(ChangeOnlyFilter filter, ScanBatch batch) {
+        int[] pending = new int[batch.size()];
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = i;
+        }
+        int[] rows = filter.select(batch, pending, pending.length);
+        filter.record(batch, rows);
+        return rows;
+    }
+
+    @Test
+    void unchangedObservationIsSkipped() {
+        ChangeOnlyFilter filter = new ChangeOnlyFilter(4, 5, 30);
+        ScanBatch batch = new ScanBatch();
+        add(batch, 1, MINUTE, -60);
+        add(batch, 1, MINUTE + 60, -61);
+
+        assertArrayEquals(new int[] {0}, selectAndRecord(filter, batch));
+    }
+
+    @Test
+    void tombstoneIsAlwaysWrittenAndReappearanceIsNotSkipped() {
+        ChangeOnlyFilter filter = new ChangeOnlyFilter(4, 5, 30);
+        ScanBatch first = new ScanBatch();
+        add(first, 1, MINUTE, -60);
+        selectAndRecord(filter, first);
+
+        // No mesmo lote: o marcador é gravado e a volta com os mesmos valores também
+        ScanBatch inBatch = new ScanBatch();
+        inBatch.addTombstone(1, MINUTE + 60);
+        add(inBatch, 1, MINUTE + 5 * 60, -60);
+        assertArrayEquals(new int[] {0, 1}, selectAndRecord(filter, inBatch));
+
+        // Em lotes separados: o marcador faz o filtro esquecer o BSSID
+        ScanBatch gone = new ScanBatch();
+        gone.addTombstone(1, MINUTE + 6 * 60);
+        assertArrayEquals(new int[] {0}, selectAndRecord(filter, gone));
+
+        ScanBatch back = new ScanBatch();
+        add(back, 1, MINUTE + 9 * 60, -60);
+        assertArrayEquals(new int[] {0}, selectAndRecord(filter, back));
+    }
+
+    @Test
+    void olderBatchAfterNewerIsWrittenWithoutMovingState() {
+        ChangeOnlyFilter filter = new ChangeOnlyFilter(4, 5, 30);
+        ScanBatch newer = new ScanBatch();
+        add(newer, 1, MINUTE + 10 * 60, -60);
+        selectAndRecord(filter, newer);
+
+        // Mesmos valores, minutos anteriores: gravados, pois a reconstrução precisa deles
+        ScanBatch older = new ScanBatch();
+        add(older, 1, MINUTE, -60);
+        add(older, 1, MINUTE + 60, -61);
+        assertArrayEquals(new int[] {0, 1}, selectAndRecord(filter, older));
+
+        // O estado continua no minuto 10: sem mudança antes do heartbeat, nada é gravado
+        ScanBatch next = new ScanBatch();
+        add(next, 1, MINUTE + 39 * 60, -60);
+        assertArrayEquals(new int[0], selectAndRecord(filter, next));
+        ScanBatch heartbeat = new ScanBatch();
+        add(heartbeat, 1, MINUTE + 40 * 60, -60);
+        assertArrayEquals(new int[] {0}, selectAndRecord(filter, heartbeat));
+    }
+}
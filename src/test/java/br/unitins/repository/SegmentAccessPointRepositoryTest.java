@@ -0,0 +1,79 @@
+package br.unitins.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.AccessPointRollup;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentAccessPointRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private static ScanBatch scan(LocalDateTime time, long... macs) {
+        ScanBatch batch = new ScanBatch();
+        for (long mac : macs) {
+            batch.add(mac, "NET", ScanBatch.toEpochSecond(time), -60, 80, 6, 2437, 0, 100, WifiSecurity.WPA2);
+        }
+        return batch;
+    }
+
+    private static int countRecords(SegmentAccessPointRepository repository, LocalDateTime from, LocalDateTime to) {
+        AtomicInteger count = new AtomicInteger();
+        repository.forEachAccessPointByTime(from, to, ap -> count.incrementAndGet());
+        return count.get();
+    }
+
+    @Test
+    void replayAfterReopenDoesNotDuplicateMinutes() throws Exception {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime old = minute.minusMinutes(10);
+
+        SegmentAccessPointRepository first = new SegmentAccessPointRepository(directory);
+        first.saveScanBatch(scan(old, 1, 2));
+        first.saveScanBatch(scan(minute, 1, 2));
+        first.close();
+
+        SegmentAccessPointRepository reopened = new SegmentAccessPointRepository(directory);
+        reopened.saveScanBatch(scan(minute.plusSeconds(20), 1, 2, 3)); // Mesmo minuto, após reiniciar
+        reopened.saveScanBatch(scan(old, 1, 2)); // Lote antigo reenviado do spill
+        reopened.saveScanBatch(scan(minute.plusSeconds(40), 3, 4));
+
+        assertEquals(6, countRecords(reopened, old.minusMinutes(1), minute.plusMinutes(1)));
+        reopened.close();
+    }
+
+    @Test
+    void zeroDbmReadingIsKeptAndTombstoneIsHidden() throws Exception {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(5);
+        SegmentAccessPointRepository repository = new SegmentAccessPointRepository(directory);
+
+        ScanBatch batch = new ScanBatch();
+        batch.add(1, "NET", ScanBatch.toEpochSecond(minute), 0, 100, 6, 2437, 0, 100, WifiSecurity.WPA2);
+        batch.addTombstone(2, ScanBatch.toEpochSecond(minute));
+        repository.saveScanBatch(batch);
+
+        List<AccessPointRollup> rollups = repository.getRollupsByTime(minute, minute.plusMinutes(1));
+        assertEquals(1, rollups.size());
+        assertEquals(0, rollups.get(0).getMaxSignal());
+        assertEquals(1, rollups.get(0).getSampleCount());
+
+        List<AccessPoint> latest = repository.getLatestAccessPoints();
+        assertEquals(1, latest.size());
+        assertEquals(0, latest.get(0).getSignalLevel());
+
+        assertEquals(1, countRecords(repository, minute, minute.plusMinutes(1)));
+        assertEquals(1, repository.getAccessPointsPage(minute, minute.plusMinutes(1), null, 10).getItems().size());
+        repository.close();
+    }
+}
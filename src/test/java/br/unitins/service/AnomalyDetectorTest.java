@@ -0,0 +1,97 @@
+package br.unitins.service;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.scan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.unitins.model.Anomaly;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnomalyDetectorTest {
+
+    // alpha 0.2, z >= 3, queda mínima de 10 dB, 5 amostras de aquecimento, oscilação a
+    // partir de 2 com decaimento 0.9, esquecido após 3 ausências
+    private static AnomalyDetector detector() {
+        return new AnomalyDetector(0.2, 3.0, 10, 5, 2.0, 0.9, 3);
+    }
+
+    private static void steady(AnomalyDetector detector, int scans) {
+        for (int k = 0; k < scans; k++) {
+            assertTrue(detector.ingest(scan(MINUTE + k * 60L, 1, -60)).isEmpty());
+        }
+    }
+
+    @Test
+    void rssiDropIsReportedOnlyAfterWarmup() {
+        AnomalyDetector early = detector();
+        steady(early, 2);
+        assertTrue(early.ingest(scan(MINUTE + 120, 1, -80)).isEmpty());
+
+        AnomalyDetector warm = detector();
+        steady(warm, 10);
+        List<Anomaly> anomalies = warm.ingest(scan(MINUTE + 600, 1, -75));
+        assertEquals(1, anomalies.size());
+        assertEquals(Anomaly.Type.RSSI_DROP, anomalies.get(0).getType());
+        assertEquals(1, anomalies.get(0).getMac());
+
+        // Queda pequena não passa do mínimo em dB, mesmo com z alto
+        assertTrue(warm.ingest(scan(MINUTE + 660, 1, -63)).isEmpty());
+    }
+
+    @Test
+    void flappingIsReportedOnceUntilScoreDecays() {
+        AnomalyDetector detector = detector();
+        List<Integer> alertScans = new ArrayList<>();
+        // Presente nas varreduras pares, ausente nas ímpares (só o BSSID 2 aparece)
+        for (int k = 0; k < 10; k++) {
+            ScanBatch batch = k % 2 == 0 ? scan(MINUTE + k * 60L, 1, -60, 2, -60) : scan(MINUTE + k * 60L, 2, -60);
+            for (Anomaly anomaly : detector.ingest(batch)) {
+                assertEquals(Anomaly.Type.FLAPPING, anomaly.getType());
+                alertScans.add(k);
+            }
+        }
+        // Pontuação 1, 1.81, 2.47: alerta na terceira volta e não repete enquanto alta
+        assertEquals(List.of(6), alertScans);
+    }
+
+    @Test
+    void beaconIntervalChangeAndForgetting() {
+        AnomalyDetector detector = detector();
+        detector.ingest(scan(MINUTE, 1, -60, 2, -60));
+
+        ScanBatch changed = new ScanBatch();
+        changed.add(1, "NET", MINUTE + 60, -60, 40, 6, 2437, 0, 200, WifiSecurity.WPA2);
+        changed.add(2, "NET", MINUTE + 60, -60, 40, 6, 2437, 0, 100, WifiSecurity.WPA2);
+        List<Anomaly> anomalies = detector.ingest(changed);
+        assertEquals(1, anomalies.size());
+        assertEquals(Anomaly.Type.BEACON_INTERVAL_CHANGED, anomalies.get(0).getType());
+        assertEquals(1.0, anomalies.get(0).getSeverity(), 1e-9);
+
+        // Mais de 3 ausências seguidas: o BSSID 1 deixa de ser rastreado
+        for (int k = 2; k <= 5; k++) {
+            detector.ingest(scan(MINUTE + k * 60L, 2, -60));
+        }
+        assertEquals(1, detector.getTrackedCount());
+    }
+
+    @Test
+    void restoredStateSkipsWarmup(@TempDir Path dir) throws Exception {
+        AnomalyDetector before = detector();
+        steady(before, 10);
+        Path file = dir.resolve("anomaly-state.bin");
+        before.snapshot(file);
+
+        AnomalyDetector after = detector();
+        assertEquals(1, after.restore(file));
+        List<Anomaly> anomalies = after.ingest(scan(MINUTE + 3600, 1, -75));
+        assertEquals(1, anomalies.size());
+        assertEquals(Anomaly.Type.RSSI_DROP, anomalies.get(0).getType());
+    }
+}
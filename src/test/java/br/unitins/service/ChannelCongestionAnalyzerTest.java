@@ -0,0 +1,85 @@
+package br.unitins.service;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.addOnChannel;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.service.ChannelCongestionAnalyzer.Band;
+import br.unitins.service.ChannelCongestionAnalyzer.ChannelLoad;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ChannelCongestionAnalyzerTest {
+
+    // Peso 0 em -90 dBm e 1 em -30 dBm; expira quem não aparece há 5 minutos
+    private static ChannelCongestionAnalyzer analyzer() {
+        return new ChannelCongestionAnalyzer(300, -90, -30);
+    }
+
+    // Canal de 2.4 GHz com a frequência correspondente
+    private static void add(ScanBatch batch, long mac, long epochSecond, int channel, int signal) {
+        addOnChannel(batch, mac, epochSecond, signal, channel, 2407 + 5 * channel);
+    }
+
+    private static ChannelLoad load(List<ChannelLoad> loads, int channel) {
+        return loads.stream().filter(load -> load.channel() == channel).findFirst().orElseThrow();
+    }
+
+    @Test
+    void weightsBySignalAndCountsAdjacentOverlap() {
+        ChannelCongestionAnalyzer analyzer = analyzer();
+        ScanBatch batch = new ScanBatch();
+        add(batch, 1, MINUTE, 1, -30);  // peso 1
+        add(batch, 2, MINUTE, 6, -60);  // peso 0.5
+        add(batch, 3, MINUTE, 6, -95);  // abaixo do mínimo: peso 0
+        add(batch, 4, MINUTE, 11, -45); // peso 0.75
+        add(batch, 5, MINUTE, 3, -30);  // fora dos candidatos, sobrepõe 1 e 6
+        addOnChannel(batch, 6, MINUTE, -60, 36, 5180);
+        analyzer.ingest(batch);
+
+        List<ChannelLoad> loads = analyzer.getChannelLoads(Band.GHZ_2_4);
+        assertEquals(List.of(1, 3, 6, 11), loads.stream().map(ChannelLoad::channel).toList());
+        assertEquals(2, load(loads, 6).apCount());
+        assertEquals(0.5, load(loads, 6).occupancy(), 1e-9);
+        assertEquals(1.6, load(loads, 1).score(), 1e-9);  // 1 + 0.6 do canal 3
+        assertEquals(0.9, load(loads, 6).score(), 1e-9);  // 0.5 + 0.4 do canal 3
+        assertEquals(0.75, load(loads, 11).score(), 1e-9);
+
+        assertEquals(11, analyzer.recommend(Band.GHZ_2_4).channel());
+        assertEquals(1, load(analyzer.getChannelLoads(Band.GHZ_5), 36).apCount());
+        assertEquals(6, analyzer.getTrackedCount());
+    }
+
+    @Test
+    void movesContributionAndExpiresStaleBssids() {
+        ChannelCongestionAnalyzer analyzer = analyzer();
+        ScanBatch first = new ScanBatch();
+        add(first, 1, MINUTE, 1, -30);
+        add(first, 2, MINUTE, 11, -30);
+        analyzer.ingest(first);
+
+        // Mudou de canal: a contribuição sai do 1 e vai para o 6; a observação atrasada é ignorada
+        ScanBatch moved = new ScanBatch();
+        add(moved, 1, MINUTE + 60, 6, -60);
+        add(moved, 1, MINUTE - 60, 1, -30);
+        analyzer.ingest(moved);
+        List<ChannelLoad> loads = analyzer.getChannelLoads(Band.GHZ_2_4);
+        assertEquals(0, load(loads, 1).apCount());
+        assertEquals(0.0, load(loads, 1).occupancy(), 1e-9);
+        assertEquals(1, load(loads, 6).apCount());
+
+        // O BSSID 2 não aparece há mais de 5 minutos
+        ScanBatch later = new ScanBatch();
+        add(later, 1, MINUTE + 400, 6, -60);
+        analyzer.ingest(later);
+        assertEquals(0, load(analyzer.getChannelLoads(Band.GHZ_2_4), 11).apCount());
+        assertEquals(1, analyzer.getTrackedCount());
+
+        ScanBatch back = new ScanBatch();
+        add(back, 2, MINUTE + 460, 11, -30);
+        analyzer.ingest(back);
+        assertEquals(1, load(analyzer.getChannelLoads(Band.GHZ_2_4), 11).apCount());
+        assertEquals(2, analyzer.getTrackedCount());
+    }
+}
@@ -0,0 +1,42 @@
+package br.unitins.service;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.scan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import br.unitins.model.AccessPoint;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LatestStateIndexTest {
+
+    @Test
+    void keepsNewestObservationAndRanksOnRead() {
+        LatestStateIndex index = new LatestStateIndex(3600);
+        index.ingest(scan(MINUTE, 1, -70, 2, -50));
+        index.ingest(scan(MINUTE - 60, 1, -30)); // Atrasada: não substitui a de MINUTE
+
+        List<AccessPoint> bySignal = index.getBySignal();
+        assertEquals(2, bySignal.size());
+        assertEquals(-50, bySignal.get(0).getSignalLevel());
+        assertEquals(-70, index.get(1).getSignalLevel());
+        assertSame(bySignal, index.getBySignal()); // Sem mudança, a lista não é remontada
+
+        index.ingest(scan(MINUTE + 60, 1, -40));
+        assertEquals("00:00:00:00:00:01", index.getByQuality().get(0).getMacAddress());
+    }
+
+    @Test
+    void expiresBssidsNotSeenWithinTtl() {
+        LatestStateIndex index = new LatestStateIndex(600);
+        index.ingest(scan(MINUTE, 1, -60, 2, -60));
+        index.ingest(scan(MINUTE + 300, 1, -60));
+        index.ingest(scan(MINUTE + 660, 1, -60));
+
+        assertEquals(1, index.size());
+        assertNull(index.get(2));
+        assertEquals(1, index.getByQuality().size());
+    }
+}
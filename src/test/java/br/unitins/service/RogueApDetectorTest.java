@@ -0,0 +1,41 @@
+package br.unitins.service;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.scan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.unitins.model.RogueAlert;
+import br.unitins.model.WifiSecurity;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RogueApDetectorTest {
+
+    private static final long KNOWN = 0x001122334455L;
+    private static final long UNKNOWN = 0x0011223344AAL;
+
+    @Test
+    void restoredProfileSkipsLearningAfterRestart(@TempDir Path dir) throws Exception {
+        RogueApDetector before = new RogueApDetector(10, List.of());
+        before.ingest(scan(MINUTE, WifiSecurity.WPA2, KNOWN, -60));
+        Path file = dir.resolve("rogue-state.bin");
+        before.snapshot(file);
+
+        RogueApDetector after = new RogueApDetector(10, List.of());
+        assertEquals(1, after.restore(file));
+
+        long later = MINUTE + 60 * 60;
+        assertTrue(after.ingest(scan(later, WifiSecurity.WPA2, KNOWN, -60)).isEmpty());
+
+        List<RogueAlert> alerts = after.ingest(scan(later, WifiSecurity.WPA2, UNKNOWN, -60));
+        assertEquals(1, alerts.size());
+        assertEquals(RogueAlert.Type.UNEXPECTED_BSSID, alerts.get(0).getType());
+
+        alerts = after.ingest(scan(later + 60, WifiSecurity.OPEN, KNOWN, -60));
+        assertEquals(1, alerts.size());
+        assertEquals(RogueAlert.Type.SECURITY_DOWNGRADE, alerts.get(0).getType());
+    }
+}
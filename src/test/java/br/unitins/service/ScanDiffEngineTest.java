@@ -0,0 +1,79 @@
+package br.unitins.service;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.addOnChannel;
+import static br.unitins.model.ScanBatches.scan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.model.ScanEvent;
+import br.unitins.model.WifiSecurity;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ScanDiffEngineTest {
+
+    private static List<String> describe(List<ScanEvent> events) {
+        List<String> described = new ArrayList<>();
+        for (ScanEvent event : events) {
+            described.add(event.getType() + " " + event.getMac() + " " + event.getPreviousValue()
+                    + " -> " + event.getCurrentValue());
+        }
+        return described;
+    }
+
+    @Test
+    void reportsAppearanceSignalDriftAndGone() {
+        ScanDiffEngine engine = new ScanDiffEngine(2, 5);
+        List<ScanEvent> events = new ArrayList<>();
+        engine.subscribe(events::addAll);
+
+        engine.ingest(scan(MINUTE, 1, -60, 2, -70));
+        assertEquals(List.of("APPEARED 1 -60 -> -60", "APPEARED 2 -70 -> -70"), describe(events));
+
+        // O limiar é medido contra o último valor reportado: a deriva de 3 em 3 dB gera evento
+        events.clear();
+        engine.ingest(scan(MINUTE + 60, 1, -63, 2, -70));
+        assertEquals(List.of(), describe(events));
+        engine.ingest(scan(MINUTE + 120, 1, -66, 2, -70));
+        assertEquals(List.of("SIGNAL_CHANGED 1 -60 -> -66"), describe(events));
+
+        events.clear();
+        engine.ingest(scan(MINUTE + 180, 1, -66));
+        assertEquals(List.of(), describe(events));
+        engine.ingest(scan(MINUTE + 240, 1, -66));
+        assertEquals(List.of("GONE 2 -70 -> -70"), describe(events));
+        assertEquals(MINUTE + 120, events.get(0).getEpochSecond()); // Última vez visto
+        assertEquals(1, engine.getTrackedCount());
+
+        // A volta é uma nova aparição
+        events.clear();
+        engine.ingest(scan(MINUTE + 300, 1, -66, 2, -71));
+        assertEquals(List.of("APPEARED 2 -71 -> -71"), describe(events));
+        assertEquals(2, engine.getTrackedCount());
+    }
+
+    @Test
+    void reportsChannelAndSecurityChangesDespiteFailingListener() {
+        ScanDiffEngine engine = new ScanDiffEngine(2, 5);
+        List<ScanEvent> events = new ArrayList<>();
+        engine.subscribe(received -> {
+            throw new IllegalStateException("assinante com defeito");
+        });
+        engine.subscribe(events::addAll);
+
+        engine.ingest(scan(MINUTE, WifiSecurity.WPA2, 1, -60));
+        ScanBatch moved = new ScanBatch();
+        addOnChannel(moved, 1, MINUTE + 60, -60, 11, 2462);
+        engine.ingest(moved);
+        engine.ingest(scan(MINUTE + 120, WifiSecurity.OPEN, 1, -60));
+
+        assertEquals(List.of(
+                "APPEARED 1 -60 -> -60",
+                "CHANNEL_CHANGED 1 6 -> 11",
+                "CHANNEL_CHANGED 1 11 -> 6",
+                "SECURITY_CHANGED 1 " + WifiSecurity.WPA2.ordinal() + " -> " + WifiSecurity.OPEN.ordinal()),
+                describe(events));
+    }
+}
@@ -0,0 +1,54 @@
+package br.unitins.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SignalHistoryStoreTest {
+
+    private static final long T0 = 1_760_000_040L; // Início de um minuto
+
+    private static ScanBatch point(long epochSecond, int signal) {
+        ScanBatch batch = new ScanBatch();
+        batch.add(7, "NET", epochSecond, signal, signal + 100, 6, 2437, 0, 100, WifiSecurity.WPA2);
+        return batch;
+    }
+
+    private static List<String> points(SignalHistoryStore store) {
+        List<String> points = new ArrayList<>();
+        store.forEach(7, T0, T0 + 3600, (epochSecond, signal, quality) ->
+                points.add((epochSecond - T0) / 60 + ":" + signal + "/" + quality));
+        return points;
+    }
+
+    @Test
+    void sameMinuteKeepsOnlyLastPoint() {
+        SignalHistoryStore store = new SignalHistoryStore(16);
+        store.ingest(point(T0, -70));
+        store.ingest(point(T0 + 20, -40)); // Substitui o primeiro ponto do bloco
+        store.ingest(point(T0 + 60, -41));
+        store.ingest(point(T0 + 90, -90)); // Delta grande, substitui de novo
+        store.ingest(point(T0 + 100, -42));
+        store.ingest(point(T0 + 180, -42));
+
+        assertEquals(List.of("0:-40/60", "1:-42/58", "3:-42/58"), points(store));
+        assertEquals(3, store.getPointCount());
+    }
+
+    @Test
+    void fillsBlocksAcrossReplacements() {
+        SignalHistoryStore store = new SignalHistoryStore(16);
+        for (int m = 0; m < 200; m++) {
+            store.ingest(point(T0 + m * 60L, -30 - (m * 37) % 60));
+            store.ingest(point(T0 + m * 60L + 30, -30 - (m * 13) % 60));
+        }
+        List<String> points = points(store);
+        assertEquals(61, points.size()); // Minutos 0 a 60, inclusive
+        assertEquals("5:-35/65", points.get(5));
+        assertEquals(200, store.getPointCount());
+    }
+}
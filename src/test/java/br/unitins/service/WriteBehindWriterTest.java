@@ -0,0 +1,173 @@
+package br.unitins.service;
+
+import static br.unitins.model.ScanBatches.MINUTE;
+import static br.unitins.model.ScanBatches.scan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.unitins.model.ScanBatch;
+import br.unitins.repository.AccessPointRepository;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteBehindWriterTest {
+
+    @TempDir
+    Path spillDir;
+
+    // Guarda o primeiro MAC de cada lote gravado; a primeira gravação espera por release()
+    private static class RecordingRepository extends AccessPointRepository {
+        final List<Long> saved = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> imported = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<SQLException> failures = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void saveScanBatch(ScanBatch batch) throws SQLException {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!failures.isEmpty()) {
+                throw failures.remove(0);
+            }
+            saved.add(batch.getMac(0));
+        }
+
+        @Override
+        public void importScanBatch(ScanBatch batch) {
+            imported.add(batch.getMac(0));
+        }
+
+        void release() {
+            gate.countDown();
+        }
+    }
+
+    private WriteBehindWriter writer(RecordingRepository repository, int capacity,
+                                     WriteBehindWriter.BackpressurePolicy policy, int maxAttempts) {
+        return new WriteBehindWriter(repository, capacity, 1, 20, policy, spillDir, maxAttempts);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condicao nao atingida a tempo");
+            Thread.sleep(10);
+        }
+    }
+
+    private List<Path> files(String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(spillDir)) {
+            stream.filter(file -> spillDir.getFileSystem().getPathMatcher("glob:" + glob)
+                    .matches(file.getFileName())).forEach(files::add);
+        }
+        return files;
+    }
+
+    @Test
+    void fullQueueSpillsToDiskAndReplaysThroughImport() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        WriteBehindWriter writer = writer(repository, 1, WriteBehindWriter.BackpressurePolicy.SPILL, 3);
+
+        writer.submit(scan(MINUTE, 1, -60));
+        assertTrue(repository.entered.await(10, TimeUnit.SECONDS)); // Lote 1 em gravação
+        writer.submit(scan(MINUTE + 60, 2, -60));                   // Ocupa a fila
+        writer.submit(scan(MINUTE + 120, 3, -60));                  // Fila cheia: vai para o disco
+
+        assertEquals(1, writer.getSpilledBatches());
+        assertEquals(1, files("scan-*.bin").size());
+        assertFalse(writer.isDrained());
+
+        repository.release();
+        await(writer::isDrained);
+        writer.close(1000);
+
+        assertEquals(List.of(1L, 2L), repository.saved);
+        assertEquals(List.of(3L), repository.imported);
+        assertTrue(files("scan-*.bin").isEmpty());
+        assertEquals(0, writer.getDroppedBatches());
+    }
+
+    @Test
+    void dropOldestDiscardsHeadOfQueue() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        WriteBehindWriter writer = writer(repository, 2, WriteBehindWriter.BackpressurePolicy.DROP_OLDEST, 3);
+
+        writer.submit(scan(MINUTE, 1, -60));
+        assertTrue(repository.entered.await(10, TimeUnit.SECONDS));
+        writer.submit(scan(MINUTE + 60, 2, -60, 20, -70)); // Descartado ao chegar o lote 4
+        writer.submit(scan(MINUTE + 120, 3, -60));
+        writer.submit(scan(MINUTE + 180, 4, -60));
+
+        assertEquals(1, writer.getDroppedBatches());
+        assertEquals(2, writer.getDroppedRows());
+
+        repository.release();
+        await(writer::isDrained);
+        writer.close(1000);
+
+        assertEquals(List.of(1L, 3L, 4L), repository.saved);
+        assertEquals(0, writer.getSpilledBatches());
+    }
+
+    @Test
+    void permanentFailureIsDeadLetteredAfterMaxAttempts() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        repository.failures.add(new SQLException("Duplicate entry", "23000"));
+        repository.failures.add(new SQLException("Duplicate entry", "23000"));
+        repository.release();
+        WriteBehindWriter writer = writer(repository, 4, WriteBehindWriter.BackpressurePolicy.SPILL, 2);
+
+        writer.submit(scan(MINUTE, 1, -60, 2, -61));
+        await(() -> writer.getDeadLetterBatches() == 1);
+        writer.submit(scan(MINUTE + 60, 3, -60)); // O seguinte não fica travado
+        await(writer::isDrained);
+        writer.close(1000);
+
+        assertEquals(2, writer.getFailedFlushes());
+        assertEquals(List.of(3L), repository.saved);
+        List<Path> dead = files("dead-*.bin");
+        assertEquals(1, dead.size());
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(dead.get(0)))) {
+            ScanBatch batch = ScanBatch.readFrom(in);
+            assertEquals(2, batch.size());
+            assertEquals(1, batch.getMac(0));
+        }
+    }
+
+    @Test
+    void transientFailureIsRetriedWithoutDeadLetter() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        repository.failures.add(new SQLTransientConnectionException("Connection refused"));
+        repository.failures.add(new SQLTransientConnectionException("Connection refused"));
+        repository.release();
+        WriteBehindWriter writer = writer(repository, 4, WriteBehindWriter.BackpressurePolicy.SPILL, 1);
+
+        writer.submit(scan(MINUTE, 1, -60));
+        await(writer::isDrained);
+        writer.close(1000);
+
+        assertEquals(2, writer.getFailedFlushes());
+        assertEquals(0, writer.getDeadLetterBatches());
+        assertEquals(List.of(1L), repository.saved);
+    }
+}
@@ -0,0 +1,35 @@
+package br.unitins.util;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import br.unitins.config.DatabaseConfig;
+import br.unitins.model.AccessPoint;
+import org.junit.jupiter.api.Test;
+
+class AccessPointMergerTest {
+
+    private static AccessPoint observation(int signal, long lastBeacon) {
+        return new AccessPoint("HomeNet", "00:11:22:33:44:55", 50, signal, 6, 2.437, lastBeacon, 100, "WPA2");
+    }
+
+    @Test
+    void freshObservationBeatsStaleOne() {
+        AccessPoint stale = observation(-40, DatabaseConfig.MERGE_STALE_BEACON_MS + 1);
+        AccessPoint fresh = observation(-70, 200);
+        assertSame(fresh, AccessPointMerger.preferred(stale, fresh));
+        assertSame(fresh, AccessPointMerger.preferred(fresh, stale));
+    }
+
+    @Test
+    void unknownAgeIsNeitherStaleNorFresher() {
+        // iwlist sem "Last beacon": decide só o sinal, nos dois sentidos
+        AccessPoint unknown = observation(-50, 0);
+        AccessPoint known = observation(-60, 40);
+        assertSame(unknown, AccessPointMerger.preferred(unknown, known));
+        assertSame(unknown, AccessPointMerger.preferred(known, unknown));
+
+        AccessPoint tie = observation(-50, 40);
+        assertSame(unknown, AccessPointMerger.preferred(unknown, tie));
+        assertSame(tie, AccessPointMerger.preferred(tie, unknown));
+    }
+}
@@ -0,0 +1,135 @@
+package br.unitins.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import br.unitins.model.AccessPoint;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Saída real de "iw dev wlan0 scan dump" (iw 5.x), com BSSs ocultos, WPA3/SAE e
+// entradas que só trazem o "last seen" no relógio de boot
+class IwScanParserTest {
+
+    // Instante do dump no relógio de boot usado nos cálculos de idade
+    static final long BOOTTIME_MILLIS = 2_047_820;
+
+    private static Map<String, AccessPoint> byBssid;
+
+    @BeforeAll
+    static void parseFixture() throws IOException {
+        byBssid = index(parseIw("fixtures/iw-scan-dump.txt"));
+    }
+
+    static List<AccessPoint> parseIw(String resource) throws IOException {
+        try (BufferedReader reader = open(resource)) {
+            return IwScanParser.parse(reader, BOOTTIME_MILLIS);
+        }
+    }
+
+    static BufferedReader open(String resource) {
+        InputStream in = IwScanParserTest.class.getClassLoader().getResourceAsStream(resource);
+        assertNotNull(in, "fixture ausente: " + resource);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static Map<String, AccessPoint> index(List<AccessPoint> accessPoints) {
+        Map<String, AccessPoint> index = new LinkedHashMap<>();
+        for (AccessPoint ap : accessPoints) {
+            index.put(ap.getMacAddress(), ap);
+        }
+        return index;
+    }
+
+    @Test
+    void parsesEveryBss() {
+        assertEquals(List.of("00:11:22:33:44:55", "A4:2B:B0:11:22:33", "C8:3A:35:AA:BB:CC", "6C:5A:B0:01:02:03",
+                "3C:84:6A:DD:EE:FF", "F4:92:BF:10:20:30", "00:1A:2B:3C:4D:5E"), List.copyOf(byBssid.keySet()));
+    }
+
+    @Test
+    void parsesAssociatedWpa2Network() {
+        AccessPoint ap = byBssid.get("00:11:22:33:44:55");
+        assertEquals("HomeNet", ap.getSsid());
+        assertEquals(-39, ap.getSignalLevel());
+        assertEquals(IwScanParser.qualityFromDbm(-39), ap.getQualityLink());
+        assertEquals(6, ap.getChannel());
+        assertEquals(2.437, ap.getFrequency(), 1e-9);
+        assertEquals(100, ap.getBeaconInterval());
+        assertEquals("WPA2", ap.getWifiSecurity());
+        // A linha "ms ago" vence a de boottime
+        assertEquals(40, ap.getLastBeacon());
+    }
+
+    @Test
+    void hiddenSsidsAreNull() {
+        assertNull(byBssid.get("A4:2B:B0:11:22:33").getSsid());
+        assertNull(byBssid.get("C8:3A:35:AA:BB:CC").getSsid());
+    }
+
+    @Test
+    void channelComesFromHtOperationWhenDsParameterIsMissing() {
+        AccessPoint ap = byBssid.get("A4:2B:B0:11:22:33");
+        assertEquals(36, ap.getChannel());
+        assertEquals(5.18, ap.getFrequency(), 1e-9);
+        assertEquals(720, ap.getLastBeacon());
+    }
+
+    @Test
+    void saeIsWpa3() {
+        assertEquals("WPA3", byBssid.get("6C:5A:B0:01:02:03").getWifiSecurity());
+        assertEquals(149, byBssid.get("6C:5A:B0:01:02:03").getChannel());
+        // Modo de transição WPA2/WPA3 (PSK e SAE) conta como WPA3
+        assertEquals("WPA3", byBssid.get("F4:92:BF:10:20:30").getWifiSecurity());
+    }
+
+    @Test
+    void lastSeenBoottimeOnlyIsConvertedToAge() {
+        // last seen: 2046.512s [boottime], dump em 2047.820s
+        assertEquals(1308, byBssid.get("6C:5A:B0:01:02:03").getLastBeacon());
+    }
+
+    @Test
+    void lastSeenBoottimeIsIgnoredWhenBoottimeIsUnknown() throws IOException {
+        String dump = "BSS 6c:5a:b0:01:02:03(on wlan0)\n"
+                + "\tlast seen: 2046.512s [boottime]\n"
+                + "\tfreq: 5745\n"
+                + "\tSSID: Office-WPA3\n";
+        List<AccessPoint> parsed = IwScanParser.parse(new BufferedReader(new StringReader(dump)), -1);
+        assertEquals(0, parsed.get(0).getLastBeacon());
+        assertEquals(149, parsed.get(0).getChannel());
+    }
+
+    @Test
+    void legacySecurity() {
+        AccessPoint wpa = byBssid.get("3C:84:6A:DD:EE:FF");
+        assertEquals("WPA", wpa.getWifiSecurity());
+        assertEquals("Cafe Guest", wpa.getSsid());
+        assertEquals(200, wpa.getBeaconInterval());
+        assertEquals(11, wpa.getChannel());
+
+        assertEquals("WEP", byBssid.get("00:1A:2B:3C:4D:5E").getWifiSecurity());
+        assertEquals("Open", byBssid.get("C8:3A:35:AA:BB:CC").getWifiSecurity());
+        assertEquals(102, byBssid.get("C8:3A:35:AA:BB:CC").getBeaconInterval());
+    }
+
+    @Test
+    void channelFromFrequency() {
+        assertEquals(1, IwScanParser.channelFromFrequency(2412));
+        assertEquals(14, IwScanParser.channelFromFrequency(2484));
+        assertEquals(36, IwScanParser.channelFromFrequency(5180));
+        assertEquals(165, IwScanParser.channelFromFrequency(5825));
+        assertEquals(1, IwScanParser.channelFromFrequency(5955));
+        assertEquals(233, IwScanParser.channelFromFrequency(7115));
+    }
+}
@@ -0,0 +1,75 @@
+package br.unitins.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import br.unitins.model.AccessPoint;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Saída de "iwlist wlan0 scan" para os mesmos BSSs do fixture do iw: os dois backends
+// devem concordar em tudo que o iwlist consegue informar
+class IwlistParserTest {
+
+    private static Map<String, AccessPoint> iwlist;
+    private static Map<String, AccessPoint> iw;
+
+    @BeforeAll
+    static void parseFixtures() throws IOException {
+        try (BufferedReader reader = IwScanParserTest.open("fixtures/iwlist-scan.txt")) {
+            iwlist = IwScanParserTest.index(IwlistParser.parse(reader));
+        }
+        iw = IwScanParserTest.index(IwScanParserTest.parseIw("fixtures/iw-scan-dump.txt"));
+    }
+
+    @Test
+    void parsesEveryCell() {
+        AccessPoint ap = iwlist.get("00:11:22:33:44:55");
+        assertEquals(7, iwlist.size());
+        assertEquals("HomeNet", ap.getSsid());
+        assertEquals(-39, ap.getSignalLevel());
+        assertEquals(100, ap.getQualityLink());
+        assertEquals(6, ap.getChannel());
+        assertEquals(2.437, ap.getFrequency(), 1e-9);
+        assertEquals(40, ap.getLastBeacon());
+        assertEquals("WPA2", ap.getWifiSecurity());
+    }
+
+    @Test
+    void lastBeaconIsUnknownWithoutExtraLine() {
+        assertEquals(0, iwlist.get("6C:5A:B0:01:02:03").getLastBeacon());
+    }
+
+    @Test
+    void hiddenSsidsAreNull() {
+        assertNull(iwlist.get("A4:2B:B0:11:22:33").getSsid());
+        assertNull(iwlist.get("C8:3A:35:AA:BB:CC").getSsid());
+    }
+
+    @Test
+    void agreesWithIwOnCommonFields() {
+        assertEquals(iw.keySet(), iwlist.keySet());
+        for (AccessPoint expected : iw.values()) {
+            AccessPoint actual = iwlist.get(expected.getMacAddress());
+            String bssid = expected.getMacAddress();
+            assertEquals(expected.getSsid(), actual.getSsid(), bssid);
+            assertEquals(expected.getSignalLevel(), actual.getSignalLevel(), bssid);
+            assertEquals(expected.getChannel(), actual.getChannel(), bssid);
+            assertEquals(expected.getFrequency(), actual.getFrequency(), 1e-9, bssid);
+        }
+    }
+
+    @Test
+    void securityMatchesIwExceptSae() {
+        // O iwlist não decodifica SAE (aparece como "unknown (8)"): WPA3 vira WPA2
+        for (AccessPoint expected : iw.values()) {
+            String security = expected.getWifiSecurity();
+            assertEquals("WPA3".equals(security) ? "WPA2" : security,
+                    iwlist.get(expected.getMacAddress()).getWifiSecurity(), expected.getMacAddress());
+        }
+    }
+}
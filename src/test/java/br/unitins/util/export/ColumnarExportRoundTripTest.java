@@ -0,0 +1,110 @@
+package br.unitins.util.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import br.unitins.model.AccessPoint;
+import br.unitins.model.ScanBatch;
+import br.unitins.model.WifiSecurity;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ColumnarExportRoundTripTest {
+
+    private static final long T0 = 1_760_000_000L;
+
+    // Três blocos e meio: 9000 MACs não cabem duas vezes no limite de 10000, então o
+    // segundo bloco reinicia os dicionários e volta a gravar MACs já vistos
+    private static final int ROWS = 3 * ColumnarExportWriter.BLOCK_ROWS + 100;
+    private static final int DICTIONARY_LIMIT = 10_000;
+
+    private static ScanBatch sample() {
+        WifiSecurity[] securities = WifiSecurity.values();
+        ScanBatch batch = new ScanBatch(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(1 + (i % 9000),
+                    i % 7 == 0 ? null : "NET-" + (i % 50),
+                    T0 + i * 5L - (i % 3 == 0 ? 20 : 0), // Deltas negativos a cada três linhas
+                    -30 - (i % 70),
+                    i % 71,
+                    1 + (i % 13),
+                    2412 + 5 * (i % 13),
+                    i * 100L,
+                    100,
+                    securities[i % securities.length]);
+        }
+        return batch;
+    }
+
+    private static List<ScanBatch> readAll(byte[] bytes) throws IOException {
+        List<ScanBatch> blocks = new ArrayList<>();
+        try (ColumnarExportReader reader = new ColumnarExportReader(new ByteArrayInputStream(bytes))) {
+            ScanBatch block;
+            while ((block = reader.readBlock()) != null) {
+                blocks.add(block);
+            }
+        }
+        return blocks;
+    }
+
+    @Test
+    void roundTripsEveryColumnAcrossBlocksAndDictionaryResets() throws IOException {
+        ScanBatch expected = sample();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ColumnarExportWriter writer = new ColumnarExportWriter(bytes, DICTIONARY_LIMIT)) {
+            writer.write(expected);
+            assertEquals(ROWS, writer.getRowCount());
+        }
+
+        List<ScanBatch> blocks = readAll(bytes.toByteArray());
+        assertEquals(4, blocks.size());
+        assertEquals(ColumnarExportWriter.BLOCK_ROWS, blocks.get(0).size());
+        assertEquals(100, blocks.get(3).size());
+
+        int row = 0;
+        for (ScanBatch block : blocks) {
+            for (int i = 0; i < block.size(); i++, row++) {
+                assertEquals(expected.getMac(row), block.getMac(i), "mac " + row);
+                assertEquals(expected.getSsid(row), block.getSsid(i), "ssid " + row);
+                assertEquals(expected.getScanEpochSecond(row), block.getScanEpochSecond(i), "instante " + row);
+                assertEquals(expected.getSignalLevel(row), block.getSignalLevel(i), "sinal " + row);
+                assertEquals(expected.getQualityLink(row), block.getQualityLink(i), "qualidade " + row);
+                assertEquals(expected.getChannel(row), block.getChannel(i), "canal " + row);
+                assertEquals(expected.getFrequencyMhz(row), block.getFrequencyMhz(i), "frequencia " + row);
+                assertEquals(expected.getLastBeacon(row), block.getLastBeacon(i), "beacon " + row);
+                assertEquals(expected.getBeaconInterval(row), block.getBeaconInterval(i), "intervalo " + row);
+                assertEquals(expected.getSecurity(row), block.getSecurity(i), "seguranca " + row);
+            }
+        }
+        assertEquals(ROWS, row);
+        assertNull(blocks.get(0).getSsid(0)); // SSID oculto vira o ID 0 e volta como null
+    }
+
+    @Test
+    void invalidBssidIsNotCounted() throws IOException {
+        AccessPoint valid = new AccessPoint();
+        valid.setMacAddress("AA:BB:CC:DD:EE:01");
+        valid.setSignalLevel(-61);
+        valid.setScanTime(LocalDateTime.of(2025, 10, 9, 12, 0));
+        AccessPoint invalid = new AccessPoint();
+        invalid.setMacAddress("00:00:00:00:00:00");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ColumnarExportWriter writer = new ColumnarExportWriter(bytes)) {
+            writer.write(valid);
+            writer.write(invalid);
+            assertEquals(1, writer.getRowCount());
+        }
+
+        List<ScanBatch> blocks = readAll(bytes.toByteArray());
+        assertEquals(1, blocks.size());
+        assertEquals(1, blocks.get(0).size());
+        assertEquals("AA:BB:CC:DD:EE:01", blocks.get(0).getMacAddress(0));
+        assertEquals(-61, blocks.get(0).getSignalLevel(0));
+    }
+}